@@ -87,11 +87,13 @@ CREATE TABLE work_order (
     created_by VARCHAR(50) NOT NULL COMMENT '创建人',
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号',
     INDEX idx_batch_no (batch_no) COMMENT '批次号索引，用于批次追溯查询',
     INDEX idx_status (status) COMMENT '状态索引，用于工单状态筛选',
     INDEX idx_created_at (created_at) COMMENT '创建时间索引，用于时间范围查询',
     INDEX idx_product_code (product_code) COMMENT '产品编码索引',
     INDEX idx_equipment_id (equipment_id) COMMENT '设备ID索引',
+    INDEX idx_line_status (line_id, status) COMMENT '产线+状态组合索引，用于查询产线进行中工单',
     FOREIGN KEY (product_code) REFERENCES product(product_code) ON DELETE RESTRICT,
     FOREIGN KEY (equipment_id) REFERENCES equipment(equipment_id) ON DELETE SET NULL,
     FOREIGN KEY (operator_id) REFERENCES user(user_id) ON DELETE SET NULL
@@ -118,10 +120,10 @@ CREATE TABLE downtime_report (
     attachments VARCHAR(500) COMMENT '附件路径（JSON格式存储多个文件路径）',
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
-    INDEX idx_equipment_id (equipment_id) COMMENT '设备ID索引，用于设备异常统计',
-    INDEX idx_status (status) COMMENT '状态索引，用于待处理异常查询',
+    INDEX idx_equipment_start (equipment_id, start_time) COMMENT '设备+停机时间组合索引，用于设备异常统计及按设备的时间范围查询',
+    INDEX idx_status_start (status, start_time) COMMENT '状态+停机时间组合索引，用于待处理异常查询及按状态的时间范围查询',
     INDEX idx_start_time (start_time) COMMENT '停机时间索引，用于时间范围统计',
-    INDEX idx_downtime_type (downtime_type) COMMENT '停机类型索引，用于异常分类统计',
+    INDEX idx_type_start (downtime_type, start_time) COMMENT '停机类型+停机时间组合索引，用于异常分类统计及按类型的时间范围查询',
     FOREIGN KEY (order_id) REFERENCES work_order(order_id) ON DELETE SET NULL,
     FOREIGN KEY (equipment_id) REFERENCES equipment(equipment_id) ON DELETE RESTRICT,
     FOREIGN KEY (reporter_id) REFERENCES user(user_id) ON DELETE RESTRICT,
@@ -149,6 +151,94 @@ CREATE TABLE audit_log (
     INDEX idx_created_at (created_at) COMMENT '时间索引'
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='审计日志表';
 
+-- ============================================
+-- 7. 每日生产汇总表 (daily_production_rollup)
+-- Description: 按 日期+产线+产品 预聚合的工单统计，由应用在工单变更事务内增量维护，
+--              每日定时从 work_order 重建最近几天；历史报表只读取汇总行，不再扫描工单表
+-- ============================================
+DROP TABLE IF EXISTS daily_production_rollup;
+CREATE TABLE daily_production_rollup (
+    production_date DATE NOT NULL COMMENT '生产日期（工单创建日期）',
+    line_id VARCHAR(50) NOT NULL DEFAULT '' COMMENT '产线ID（未分配产线为空字符串）',
+    product_code VARCHAR(50) NOT NULL COMMENT '产品编码',
+    total_orders INT NOT NULL DEFAULT 0 COMMENT '工单总数',
+    pending_orders INT NOT NULL DEFAULT 0 COMMENT '待开始工单数',
+    in_progress_orders INT NOT NULL DEFAULT 0 COMMENT '进行中工单数',
+    completed_orders INT NOT NULL DEFAULT 0 COMMENT '已完成工单数',
+    abnormal_orders INT NOT NULL DEFAULT 0 COMMENT '异常工单数',
+    cancelled_orders INT NOT NULL DEFAULT 0 COMMENT '已取消工单数',
+    closed_orders INT NOT NULL DEFAULT 0 COMMENT '已关闭工单数',
+    total_plan_qty BIGINT NOT NULL DEFAULT 0 COMMENT '计划产量合计',
+    total_actual_qty BIGINT NOT NULL DEFAULT 0 COMMENT '实际产量合计',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (production_date, line_id, product_code),
+    INDEX idx_line_date (line_id, production_date) COMMENT '产线+日期索引，用于按产线查询历史报表'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='每日生产汇总表';
+
+-- 初始化汇总数据（已有工单数据时回填）
+INSERT INTO daily_production_rollup (production_date, line_id, product_code, total_orders,
+    pending_orders, in_progress_orders, completed_orders, abnormal_orders, cancelled_orders, closed_orders,
+    total_plan_qty, total_actual_qty)
+SELECT
+    DATE(created_at), COALESCE(line_id, ''), product_code, COUNT(*),
+    SUM(status = 'PENDING'), SUM(status = 'IN_PROGRESS'), SUM(status = 'COMPLETED'),
+    SUM(status = 'ABNORMAL'), SUM(status = 'CANCELLED'), SUM(status = 'CLOSED'),
+    COALESCE(SUM(plan_qty), 0), COALESCE(SUM(actual_qty), 0)
+FROM work_order
+GROUP BY DATE(created_at), COALESCE(line_id, ''), product_code;
+
+-- ============================================
+-- 8. 生产趋势汇总表 (production_trend_rollup)
+-- Description: 按 粒度(HOUR/DAY)+时间桶+产线 预聚合的产量、完工数和停机时长，
+--              由应用在工单/停机变更事务内增量维护，每日定时从 work_order/downtime_report 重建最近几天，供看板趋势接口读取
+--              计划产量按工单创建时间、实际产量按工单开始时间（未开始按创建时间）、完工数按完工时间、
+--              已解决停机的时长按停机开始时间归桶，归桶时间均取自记录本身，可由明细表重建
+-- ============================================
+DROP TABLE IF EXISTS production_trend_rollup;
+CREATE TABLE production_trend_rollup (
+    granularity VARCHAR(10) NOT NULL COMMENT '汇总粒度: HOUR-小时, DAY-天',
+    bucket_start DATETIME NOT NULL COMMENT '时间桶开始时间',
+    line_id VARCHAR(50) NOT NULL DEFAULT '' COMMENT '产线ID（未分配产线为空字符串）',
+    plan_qty BIGINT NOT NULL DEFAULT 0 COMMENT '计划产量',
+    actual_qty BIGINT NOT NULL DEFAULT 0 COMMENT '实际产量',
+    completed_orders INT NOT NULL DEFAULT 0 COMMENT '完工工单数',
+    downtime_minutes BIGINT NOT NULL DEFAULT 0 COMMENT '停机时长（分钟）',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (granularity, bucket_start, line_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='生产趋势汇总表';
+
+-- 初始化趋势汇总数据（已有工单/停机数据时回填）：先聚合小时汇总，再由小时汇总聚合天汇总
+INSERT INTO production_trend_rollup (granularity, bucket_start, line_id, plan_qty, actual_qty,
+    completed_orders, downtime_minutes)
+SELECT
+    'HOUR', DATE_FORMAT(t.bucket_time, '%Y-%m-%d %H:00:00'), t.line_id,
+    SUM(t.plan_qty), SUM(t.actual_qty), SUM(t.completed_orders), SUM(t.downtime_minutes)
+FROM (
+    SELECT created_at AS bucket_time, COALESCE(line_id, '') AS line_id, COALESCE(plan_qty, 0) AS plan_qty,
+        0 AS actual_qty, 0 AS completed_orders, 0 AS downtime_minutes
+    FROM work_order
+    UNION ALL
+    SELECT COALESCE(start_time, created_at), COALESCE(line_id, ''), 0, actual_qty, 0, 0
+    FROM work_order WHERE actual_qty <> 0
+    UNION ALL
+    SELECT COALESCE(end_time, created_at), COALESCE(line_id, ''), 0, 0, 1, 0
+    FROM work_order WHERE status = 'COMPLETED'
+    UNION ALL
+    SELECT d.start_time, COALESCE(e.line_id, ''), 0, 0, 0, d.duration_minutes
+    FROM downtime_report d LEFT JOIN equipment e ON e.equipment_id = d.equipment_id
+    WHERE d.status = 'RESOLVED' AND d.duration_minutes IS NOT NULL
+) t
+GROUP BY DATE_FORMAT(t.bucket_time, '%Y-%m-%d %H:00:00'), t.line_id;
+
+INSERT INTO production_trend_rollup (granularity, bucket_start, line_id, plan_qty, actual_qty,
+    completed_orders, downtime_minutes)
+SELECT
+    'DAY', DATE(bucket_start), line_id,
+    SUM(plan_qty), SUM(actual_qty), SUM(completed_orders), SUM(downtime_minutes)
+FROM production_trend_rollup
+WHERE granularity = 'HOUR'
+GROUP BY DATE(bucket_start), line_id;
+
 -- ============================================
 -- 触发器：自动计算停机时长
 -- ============================================
@@ -112,23 +112,24 @@ FROM equipment e;
 
 -- 视图4: 生产统计日报视图 (Daily Production Statistics)
 -- 用途: 生成每日生产统计数据
+-- 说明: 读取每日生产汇总表 daily_production_rollup，每天只聚合 产线×产品 个汇总行，
+--       不再随工单表增长而变慢；设备使用数（COUNT DISTINCT）无法增量维护，已移除
 DROP VIEW IF EXISTS v_daily_production_stats;
 CREATE VIEW v_daily_production_stats AS
 SELECT
-    DATE(wo.created_at) AS production_date,
-    COUNT(DISTINCT wo.order_id) AS total_orders,
-    SUM(CASE WHEN wo.status = 'COMPLETED' THEN 1 ELSE 0 END) AS completed_orders,
-    SUM(CASE WHEN wo.status = 'IN_PROGRESS' THEN 1 ELSE 0 END) AS in_progress_orders,
-    SUM(CASE WHEN wo.status = 'ABNORMAL' THEN 1 ELSE 0 END) AS abnormal_orders,
-    SUM(wo.plan_qty) AS total_plan_qty,
-    SUM(wo.actual_qty) AS total_actual_qty,
+    r.production_date,
+    SUM(r.total_orders) AS total_orders,
+    SUM(r.completed_orders) AS completed_orders,
+    SUM(r.in_progress_orders) AS in_progress_orders,
+    SUM(r.abnormal_orders) AS abnormal_orders,
+    SUM(r.total_plan_qty) AS total_plan_qty,
+    SUM(r.total_actual_qty) AS total_actual_qty,
     CASE
-        WHEN SUM(wo.plan_qty) > 0 THEN ROUND((SUM(wo.actual_qty) * 100.0 / SUM(wo.plan_qty)), 1)
+        WHEN SUM(r.total_plan_qty) > 0 THEN ROUND((SUM(r.total_actual_qty) * 100.0 / SUM(r.total_plan_qty)), 1)
         ELSE 0
-    END AS overall_completion_rate,
-    COUNT(DISTINCT wo.equipment_id) AS equipment_used
-FROM work_order wo
-GROUP BY DATE(wo.created_at);
+    END AS overall_completion_rate
+FROM daily_production_rollup r
+GROUP BY r.production_date;
 
 -- ============================================
 -- 常用查询 (Common Queries)
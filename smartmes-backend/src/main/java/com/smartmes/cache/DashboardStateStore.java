@@ -0,0 +1,308 @@
+package com.smartmes.cache;
+
+import com.smartmes.cache.WorkOrderRebuildLog.State;
+import com.smartmes.dto.DashboardData;
+import com.smartmes.entity.WorkOrder.WorkOrderStatus;
+import com.smartmes.event.WorkOrderBatchChangedEvent;
+import com.smartmes.event.WorkOrderChangedEvent;
+import com.smartmes.repository.WorkOrderRepository;
+import com.smartmes.repository.WorkOrderRepository.WorkOrderStatusTotals;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 看板内存状态存储
+ * 以分段原子计数器维护今日各状态工单数量及计划/实际产量，
+ * 由工单变更事件在事务提交后增量更新，并定期在可重复读事务内重建并与数据库对账纠正偏差
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DashboardStateStore {
+
+    private final WorkOrderRepository workOrderRepository;
+    private final DashboardVersionTracker dashboardVersionTracker;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * 是否启用内存看板状态
+     */
+    @Value("${smartmes.dashboard.state.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 当日计数器，首次对账完成前为null
+     */
+    private volatile DayCounters counters;
+
+    /**
+     * 对账的变更记录，只在持有本对象锁时访问
+     */
+    private final WorkOrderRebuildLog rebuildLog = new WorkOrderRebuildLog();
+
+    /**
+     * 同一时间只有一个线程执行对账（启动时与定时对账可能重叠）
+     */
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+
+    /**
+     * 读取今日工单统计快照
+     *
+     * @return 统计快照，内存状态未加载或已跨天时返回null
+     */
+    public DaySnapshot getSnapshot() {
+        DayCounters current = counters;
+        if (!enabled || current == null || !current.day.equals(LocalDate.now())) {
+            return null;
+        }
+
+        long[] statusCounts = new long[current.statusCounts.length];
+        for (int i = 0; i < statusCounts.length; i++) {
+            statusCounts[i] = current.statusCounts[i].sum();
+        }
+        return new DaySnapshot(current.day, statusCounts, current.planQty.sum(), current.actualQty.sum());
+    }
+
+    /**
+     * 应用启动完成后从数据库加载初始状态
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reconcile();
+    }
+
+    /**
+     * 工单变更事务提交前登记，对账完成时仍未收到提交后事件的工单按状态替换计入
+     *
+     * @param event 工单变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public synchronized void beforeWorkOrderCommit(WorkOrderChangedEvent event) {
+        rebuildLog.beforeCommit(event);
+    }
+
+    /**
+     * 工单批量变更事务提交前逐条登记
+     *
+     * @param event 工单批量变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public synchronized void beforeWorkOrderBatchCommit(WorkOrderBatchChangedEvent event) {
+        event.getChanges().forEach(rebuildLog::beforeCommit);
+    }
+
+    /**
+     * 工单变更事务回滚后注销登记
+     *
+     * @param event 工单变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public synchronized void afterWorkOrderRollback(WorkOrderChangedEvent event) {
+        rebuildLog.afterRollback(event);
+    }
+
+    /**
+     * 工单批量变更事务回滚后逐条注销登记
+     *
+     * @param event 工单批量变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public synchronized void afterWorkOrderBatchRollback(WorkOrderBatchChangedEvent event) {
+        event.getChanges().forEach(rebuildLog::afterRollback);
+    }
+
+    /**
+     * 工单变更事务提交后增量更新计数器
+     * 同时记入变更记录，与计数器替换互斥
+     *
+     * @param event 工单变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onWorkOrderChanged(WorkOrderChangedEvent event) {
+        DayCounters current = counters;
+        if (rebuildLog.afterCommit(event, (seen, after) -> {
+            if (current != null) {
+                current.add(seen, -1);
+                current.add(after, 1);
+            }
+        })) {
+            return;
+        }
+        if (current == null || event.getCreatedAt() == null
+                || !current.day.equals(event.getCreatedAt().toLocalDate())) {
+            // 非今日工单不影响今日统计
+            return;
+        }
+
+        if (event.isStatusChanged()) {
+            if (event.getPreviousStatus() != null) {
+                current.statusCounts[event.getPreviousStatus().ordinal()].decrement();
+            }
+            if (event.getCurrentStatus() != null) {
+                current.statusCounts[event.getCurrentStatus().ordinal()].increment();
+            }
+        }
+        current.planQty.add(event.getPlanQtyDelta());
+        current.actualQty.add(event.getActualQtyDelta());
+    }
+
+    /**
+     * 工单批量变更事务提交后逐条更新计数器
+     *
+     * @param event 工单批量变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onWorkOrderBatchChanged(WorkOrderBatchChangedEvent event) {
+        event.getChanges().forEach(this::onWorkOrderChanged);
+    }
+
+    /**
+     * 定期与数据库对账
+     * 在可重复读事务内重新统计今日数据，查询期间提交的变更由变更记录按快照状态与最后状态修正，
+     * 在锁内整体替换计数器，纠正漏算或跨天带来的偏差
+     */
+    @Scheduled(fixedDelayString = "${smartmes.dashboard.state.reconcile-interval-ms:60000}",
+               initialDelayString = "${smartmes.dashboard.state.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+
+        reconcileLock.lock();
+        try {
+            synchronized (this) {
+                rebuildLog.start();
+            }
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+            transactionTemplate.setReadOnly(true);
+            transactionTemplate.executeWithoutResult(status -> rebuild(LocalDate.now()));
+        } catch (Exception e) {
+            synchronized (this) {
+                rebuildLog.abort();
+            }
+            log.error("看板内存状态对账失败", e);
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    private void rebuild(LocalDate today) {
+        List<WorkOrderStatusTotals> totals = workOrderRepository.summarizeTodayWorkOrdersByStatus(
+                LocalDateTime.of(today, LocalTime.MIN), LocalDateTime.of(today, LocalTime.MAX));
+
+        DayCounters fresh = new DayCounters(today);
+        for (WorkOrderStatusTotals row : totals) {
+            fresh.statusCounts[row.getStatus().ordinal()].add(row.getCount());
+            fresh.planQty.add(row.getPlanQtyTotal());
+            fresh.actualQty.add(row.getActualQtyTotal());
+        }
+
+        synchronized (this) {
+            int changes = rebuildLog.size();
+            rebuildLog.finish(workOrderRepository, (seen, after) -> {
+                fresh.add(seen, -1);
+                fresh.add(after, 1);
+            });
+
+            DayCounters previous = counters;
+            if (previous != null && previous.day.equals(today) && !rebuildLog.hasDeferred()
+                    && !previous.sameAs(fresh)) {
+                log.warn("看板内存状态与数据库存在偏差，已按数据库纠正");
+                dashboardVersionTracker.bump(DashboardData.SECTION_PRODUCTION_OVERVIEW);
+            }
+            counters = fresh;
+            log.debug("看板内存状态对账完成: {}，对账期间变更{}条", today, changes);
+        }
+    }
+
+    /**
+     * 单日计数器
+     */
+    private static final class DayCounters {
+
+        private final LocalDate day;
+        private final LongAdder[] statusCounts = new LongAdder[WorkOrderStatus.values().length];
+        private final LongAdder planQty = new LongAdder();
+        private final LongAdder actualQty = new LongAdder();
+
+        private DayCounters(LocalDate day) {
+            this.day = day;
+            for (int i = 0; i < statusCounts.length; i++) {
+                statusCounts[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * 计入或扣除一个工单的状态，非当日创建的工单不计入
+         */
+        private void add(State state, int sign) {
+            if (state == null || state.createdAt() == null || !day.equals(state.createdAt().toLocalDate())) {
+                return;
+            }
+            if (state.status() != null) {
+                statusCounts[state.status().ordinal()].add(sign);
+            }
+            planQty.add((long) sign * state.planQty());
+            actualQty.add((long) sign * state.actualQty());
+        }
+
+        private boolean sameAs(DayCounters other) {
+            for (int i = 0; i < statusCounts.length; i++) {
+                if (statusCounts[i].sum() != other.statusCounts[i].sum()) {
+                    return false;
+                }
+            }
+            return planQty.sum() == other.planQty.sum() && actualQty.sum() == other.actualQty.sum();
+        }
+    }
+
+    /**
+     * 今日工单统计快照
+     *
+     * @param day 统计日期
+     * @param statusCounts 按状态序号索引的工单数量
+     * @param planQtyTotal 计划产量总数
+     * @param actualQtyTotal 实际产量总数
+     */
+    public record DaySnapshot(LocalDate day, long[] statusCounts, long planQtyTotal, long actualQtyTotal) {
+
+        /**
+         * 工单总数
+         */
+        public long total() {
+            long total = 0;
+            for (long count : statusCounts) {
+                total += count;
+            }
+            return total;
+        }
+
+        /**
+         * 指定状态的工单数量
+         */
+        public long count(WorkOrderStatus status) {
+            return statusCounts[status.ordinal()];
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.smartmes.cache;
+
+import com.smartmes.event.DowntimeReportChangedEvent;
+import com.smartmes.event.EquipmentChangedEvent;
+import com.smartmes.event.WorkOrderBatchChangedEvent;
+import com.smartmes.event.WorkOrderChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.smartmes.dto.DashboardData.SECTION_DOWNTIME_STATISTICS;
+import static com.smartmes.dto.DashboardData.SECTION_EQUIPMENT_STATUS;
+import static com.smartmes.dto.DashboardData.SECTION_PRODUCTION_OVERVIEW;
+import static com.smartmes.dto.DashboardData.SECTION_WORK_ORDER_PROGRESS;
+
+/**
+ * 看板数据版本跟踪器
+ * 为每个看板分段维护单调递增的数据版本号，写操作提交后递增，
+ * 控制器据此生成ETag，数据未变化时直接返回304而无需查询数据库
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+public class DashboardVersionTracker {
+
+    /**
+     * 启动标识，保证重启后版本号从头计数也不会与旧ETag冲突
+     */
+    private final String instanceId = Long.toHexString(System.currentTimeMillis());
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 获取分段当前版本号
+     *
+     * @param section 分段名称
+     * @return 版本号
+     */
+    public long getVersion(String section) {
+        return counter(section).get();
+    }
+
+    /**
+     * 递增分段版本号
+     *
+     * @param section 分段名称
+     */
+    public void bump(String section) {
+        counter(section).incrementAndGet();
+    }
+
+    /**
+     * 生成分段ETag
+     * 看板数据均按“今日”统计，日期变化时ETag随之变化
+     *
+     * @param sections 分段名称
+     * @return ETag（含双引号）
+     */
+    public String etag(String... sections) {
+        StringBuilder builder = new StringBuilder("\"").append(instanceId);
+        for (String section : sections) {
+            builder.append('-').append(getVersion(section));
+        }
+        return builder.append('-').append(LocalDate.now().toEpochDay()).append('"').toString();
+    }
+
+    /**
+     * 工单变更影响生产概览和工单进度
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onWorkOrderChanged(WorkOrderChangedEvent event) {
+        bump(SECTION_PRODUCTION_OVERVIEW);
+        bump(SECTION_WORK_ORDER_PROGRESS);
+    }
+
+    /**
+     * 工单批量变更影响生产概览和工单进度
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onWorkOrderBatchChanged(WorkOrderBatchChangedEvent event) {
+        bump(SECTION_PRODUCTION_OVERVIEW);
+        bump(SECTION_WORK_ORDER_PROGRESS);
+    }
+
+    /**
+     * 设备变更影响设备状态和生产概览
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEquipmentChanged(EquipmentChangedEvent event) {
+        bump(SECTION_EQUIPMENT_STATUS);
+        bump(SECTION_PRODUCTION_OVERVIEW);
+    }
+
+    /**
+     * 异常停机变更影响异常统计
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDowntimeReportChanged(DowntimeReportChangedEvent event) {
+        bump(SECTION_DOWNTIME_STATISTICS);
+    }
+
+    private AtomicLong counter(String section) {
+        return versions.computeIfAbsent(section, key -> new AtomicLong());
+    }
+}
@@ -0,0 +1,168 @@
+package com.smartmes.cache;
+
+import com.smartmes.entity.DowntimeReport;
+import com.smartmes.event.DowntimeReportChangedEvent;
+import com.smartmes.event.DowntimeReportChangedEvent.ChangeType;
+import com.smartmes.mapper.DowntimeMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * 停机记录内存统计重建的变更记录
+ * 重建在首次读取之前开始记录，按记录ID保留重建期间提交的最后一次变更后的状态（删除为null），
+ * 并在同一可重复读事务内查询这些记录在快照中的状态，以“快照中的状态 -> 最后状态”修正重建结果；
+ * 另外登记已进入提交、尚未收到提交后事件的记录，这些记录的提交可能在快照之前也可能在之后，
+ * 重建完成后其提交后事件改为以“重建结果中的状态 -> 最后状态”计入。
+ * 快照之前或之后提交的变更都只计算一次。只在持有所属统计对象的锁时访问
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+public final class DowntimeRebuildLog {
+
+    /**
+     * 按ID批量查询快照状态时每批的ID数
+     */
+    private static final int QUERY_BATCH_SIZE = 1000;
+
+    /**
+     * 已进入提交、尚未收到提交后事件的记录ID -> 提交中的事务数
+     */
+    private final Map<Long, Integer> committing = new HashMap<>();
+
+    /**
+     * 上次重建完成时仍在提交中的记录ID -> 重建结果中该记录的状态（不存在时为null）
+     */
+    private Map<Long, DowntimeReport> deferred = new HashMap<>();
+
+    /**
+     * 重建期间提交的记录ID -> 最后状态，不在重建时为null
+     */
+    private Map<Long, DowntimeReport> latest;
+
+    /**
+     * 停机记录所在事务提交前登记
+     *
+     * @param event 停机记录变更事件
+     */
+    public void beforeCommit(DowntimeReportChangedEvent event) {
+        Long reportId = reportId(event);
+        if (reportId != null) {
+            committing.merge(reportId, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * 停机记录所在事务回滚后注销
+     *
+     * @param event 停机记录变更事件
+     */
+    public void afterRollback(DowntimeReportChangedEvent event) {
+        Long reportId = reportId(event);
+        if (reportId != null) {
+            committing.computeIfPresent(reportId, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * 停机记录所在事务提交后登记变更
+     * 该记录在上次重建完成时仍在提交中时，把“重建结果中的状态 -> 最后状态”交给调用方替换，调用方不再按增量计入
+     *
+     * @param event 停机记录变更事件
+     * @param replace (重建结果中的状态，不存在时为null; 最后状态，已删除时为null)
+     * @return true-已交给调用方按状态替换，false-调用方按增量计入
+     */
+    public boolean afterCommit(DowntimeReportChangedEvent event,
+                               BiConsumer<DowntimeReport, DowntimeReport> replace) {
+        Long reportId = reportId(event);
+        if (reportId == null) {
+            return false;
+        }
+        committing.computeIfPresent(reportId, (key, count) -> count > 1 ? count - 1 : null);
+
+        DowntimeReport after = event.getChangeType() == ChangeType.DELETED ? null : event.getReport();
+        if (latest != null) {
+            latest.put(reportId, after);
+        }
+        if (!deferred.containsKey(reportId)) {
+            return false;
+        }
+        replace.accept(deferred.remove(reportId), after);
+        return true;
+    }
+
+    /**
+     * 开始重建，须在重建的首次读取之前调用
+     */
+    public void start() {
+        latest = new LinkedHashMap<>();
+    }
+
+    /**
+     * 完成重建，须在重建查询所在的事务内调用，之后以重建结果替换原有统计
+     * 逐条给出重建期间提交的变更在快照中的状态与最后状态，并登记仍在提交中的记录在重建结果中的状态
+     *
+     * @param downtimeMapper 异常停机Mapper
+     * @param replay (快照中的状态，不存在时为null; 最后状态，已删除时为null)
+     */
+    public void finish(DowntimeMapper downtimeMapper, BiConsumer<DowntimeReport, DowntimeReport> replay) {
+        Set<Long> reportIds = new LinkedHashSet<>(latest.keySet());
+        reportIds.addAll(committing.keySet());
+        Map<Long, DowntimeReport> seen = findByIds(downtimeMapper, reportIds);
+
+        latest.forEach((reportId, after) -> replay.accept(seen.get(reportId), after));
+
+        Map<Long, DowntimeReport> rebuilt = new HashMap<>();
+        for (Long reportId : committing.keySet()) {
+            rebuilt.put(reportId, latest.containsKey(reportId) ? latest.get(reportId) : seen.get(reportId));
+        }
+        deferred = rebuilt;
+        latest = null;
+    }
+
+    /**
+     * 放弃重建，原有统计保持不变
+     */
+    public void abort() {
+        latest = null;
+    }
+
+    /**
+     * 上次重建完成时是否有仍在提交中的记录
+     * 此时原有统计尚未计入这些提交，与重建结果的差异不代表偏差
+     */
+    public boolean hasDeferred() {
+        return !deferred.isEmpty();
+    }
+
+    /**
+     * 本次重建期间记录的变更数
+     */
+    public int size() {
+        return latest != null ? latest.size() : 0;
+    }
+
+    private static Map<Long, DowntimeReport> findByIds(DowntimeMapper downtimeMapper, Set<Long> reportIds) {
+        Map<Long, DowntimeReport> seen = new HashMap<>();
+        List<Long> ids = new ArrayList<>(reportIds);
+        for (int from = 0; from < ids.size(); from += QUERY_BATCH_SIZE) {
+            for (DowntimeReport report : downtimeMapper.findByIds(
+                    ids.subList(from, Math.min(from + QUERY_BATCH_SIZE, ids.size())))) {
+                seen.put(report.getReportId(), report);
+            }
+        }
+        return seen;
+    }
+
+    private static Long reportId(DowntimeReportChangedEvent event) {
+        DowntimeReport report = event.getReport();
+        return report != null ? report.getReportId() : null;
+    }
+}
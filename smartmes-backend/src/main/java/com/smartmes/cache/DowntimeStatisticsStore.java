@@ -0,0 +1,302 @@
+package com.smartmes.cache;
+
+import com.smartmes.dto.DowntimeStatisticsDTO.StatusTypeTotals;
+import com.smartmes.entity.DowntimeReport;
+import com.smartmes.enums.DowntimeStatus;
+import com.smartmes.enums.DowntimeType;
+import com.smartmes.event.DowntimeReportChangedEvent;
+import com.smartmes.event.DowntimeReportChangedEvent.ChangeType;
+import com.smartmes.mapper.DowntimeMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 异常停机统计内存存储
+ * 以分段原子计数器维护异常总数、总停机时长及按状态、类型的数量，
+ * 由停机记录变更事件在事务提交后增量更新，启动时及定期按一次分组汇总查询重建并与数据库对账
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DowntimeStatisticsStore {
+
+    private final DowntimeMapper downtimeMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * 是否启用内存异常统计
+     */
+    @Value("${smartmes.downtime.statistics.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 当前计数器，首次对账完成前为null
+     */
+    private volatile Counters counters;
+
+    /**
+     * 对账的变更记录，只在持有本对象锁时访问
+     */
+    private final DowntimeRebuildLog rebuildLog = new DowntimeRebuildLog();
+
+    /**
+     * 同一时间只有一个线程执行对账（启动时与定时对账可能重叠）
+     */
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+
+    /**
+     * 读取异常统计快照
+     *
+     * @return 统计快照，未启用或尚未加载时返回null
+     */
+    public Snapshot getSnapshot() {
+        Counters current = counters;
+        if (!enabled || current == null) {
+            return null;
+        }
+        return current.snapshot();
+    }
+
+    /**
+     * 应用启动完成后从数据库加载初始状态
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reconcile();
+    }
+
+    /**
+     * 停机记录变更事务提交前登记，对账完成时仍未收到提交后事件的记录按状态替换计入
+     *
+     * @param event 停机记录变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public synchronized void beforeDowntimeReportCommit(DowntimeReportChangedEvent event) {
+        rebuildLog.beforeCommit(event);
+    }
+
+    /**
+     * 停机记录变更事务回滚后注销登记
+     *
+     * @param event 停机记录变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public synchronized void afterDowntimeReportRollback(DowntimeReportChangedEvent event) {
+        rebuildLog.afterRollback(event);
+    }
+
+    /**
+     * 停机记录变更事务提交后增量更新计数器
+     * 上报计入总数、状态与类型，删除扣减；状态在变更前后间转移，停机时长按变更前后的差值累加。
+     * 同时记入变更记录，与计数器替换互斥
+     *
+     * @param event 停机记录变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onDowntimeReportChanged(DowntimeReportChangedEvent event) {
+        Counters current = counters;
+        if (rebuildLog.afterCommit(event, (seen, after) -> {
+            if (current != null) {
+                current.add(seen, -1);
+                current.add(after, 1);
+            }
+        })) {
+            return;
+        }
+        DowntimeReport report = event.getReport();
+        if (current == null || report == null) {
+            return;
+        }
+
+        ChangeType changeType = event.getChangeType();
+        long incidents = changeType == ChangeType.REPORTED ? 1 : changeType == ChangeType.DELETED ? -1 : 0;
+        if (incidents != 0) {
+            current.total.add(incidents);
+            if (report.getDowntimeType() != null) {
+                current.typeCounts[report.getDowntimeType().ordinal()].add(incidents);
+            }
+        }
+
+        DowntimeStatus previousStatus = changeType == ChangeType.REPORTED ? null : event.getPreviousStatus();
+        DowntimeStatus currentStatus = event.getCurrentStatus();
+        if (previousStatus != currentStatus) {
+            if (previousStatus != null) {
+                current.statusCounts[previousStatus.ordinal()].decrement();
+            }
+            if (currentStatus != null) {
+                current.statusCounts[currentStatus.ordinal()].increment();
+            }
+        }
+
+        long currentMinutes = changeType == ChangeType.DELETED ? 0 : nullToZero(report.getDurationMinutes());
+        long previousMinutes = changeType == ChangeType.REPORTED ? 0 : nullToZero(event.getPreviousDurationMinutes());
+        current.durationMinutes.add(currentMinutes - previousMinutes);
+    }
+
+    /**
+     * 定期与数据库对账
+     * 在可重复读事务内重新汇总，查询期间提交的变更由变更记录按快照状态与最后状态修正，
+     * 在锁内整体替换计数器，纠正漏算的偏差
+     */
+    @Scheduled(fixedDelayString = "${smartmes.downtime.statistics.reconcile-interval-ms:60000}",
+               initialDelayString = "${smartmes.downtime.statistics.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+
+        reconcileLock.lock();
+        try {
+            synchronized (this) {
+                rebuildLog.start();
+            }
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+            transactionTemplate.setReadOnly(true);
+            transactionTemplate.executeWithoutResult(status -> rebuild());
+        } catch (Exception e) {
+            synchronized (this) {
+                rebuildLog.abort();
+            }
+            log.error("异常统计对账失败", e);
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    private void rebuild() {
+        Counters fresh = new Counters();
+        for (StatusTypeTotals row : downtimeMapper.summarizeByStatusAndType()) {
+            long count = nullToZero(row.getReportCount());
+            fresh.total.add(count);
+            fresh.durationMinutes.add(nullToZero(row.getTotalDurationMinutes()));
+            if (row.getStatus() != null) {
+                fresh.statusCounts[row.getStatus().ordinal()].add(count);
+            }
+            if (row.getDowntimeType() != null) {
+                fresh.typeCounts[row.getDowntimeType().ordinal()].add(count);
+            }
+        }
+
+        synchronized (this) {
+            int changes = rebuildLog.size();
+            rebuildLog.finish(downtimeMapper, (seen, after) -> {
+                fresh.add(seen, -1);
+                fresh.add(after, 1);
+            });
+
+            Counters previous = counters;
+            if (previous != null && !rebuildLog.hasDeferred() && !previous.sameAs(fresh)) {
+                log.warn("异常统计内存状态与数据库存在偏差，已按数据库纠正");
+            }
+            counters = fresh;
+            log.debug("异常统计对账完成，异常总数{}，对账期间变更{}条", fresh.total.sum(), changes);
+        }
+    }
+
+    private static long nullToZero(Number value) {
+        return value == null ? 0 : value.longValue();
+    }
+
+    /**
+     * 统计计数器
+     */
+    private static final class Counters {
+
+        private final LongAdder total = new LongAdder();
+        private final LongAdder durationMinutes = new LongAdder();
+        private final LongAdder[] statusCounts = newAdders(DowntimeStatus.values().length);
+        private final LongAdder[] typeCounts = newAdders(DowntimeType.values().length);
+
+        /**
+         * 计入或扣除一条停机记录
+         */
+        private void add(DowntimeReport report, int sign) {
+            if (report == null) {
+                return;
+            }
+            total.add(sign);
+            durationMinutes.add(sign * nullToZero(report.getDurationMinutes()));
+            if (report.getStatus() != null) {
+                statusCounts[report.getStatus().ordinal()].add(sign);
+            }
+            if (report.getDowntimeType() != null) {
+                typeCounts[report.getDowntimeType().ordinal()].add(sign);
+            }
+        }
+
+        private static LongAdder[] newAdders(int length) {
+            LongAdder[] adders = new LongAdder[length];
+            for (int i = 0; i < length; i++) {
+                adders[i] = new LongAdder();
+            }
+            return adders;
+        }
+
+        private Snapshot snapshot() {
+            Map<DowntimeStatus, Long> byStatus = new EnumMap<>(DowntimeStatus.class);
+            for (DowntimeStatus status : DowntimeStatus.values()) {
+                byStatus.put(status, statusCounts[status.ordinal()].sum());
+            }
+            Map<DowntimeType, Long> byType = new EnumMap<>(DowntimeType.class);
+            for (DowntimeType type : DowntimeType.values()) {
+                long count = typeCounts[type.ordinal()].sum();
+                if (count > 0) {
+                    byType.put(type, count);
+                }
+            }
+            return new Snapshot(total.sum(), durationMinutes.sum(), byStatus, byType);
+        }
+
+        private boolean sameAs(Counters other) {
+            for (int i = 0; i < statusCounts.length; i++) {
+                if (statusCounts[i].sum() != other.statusCounts[i].sum()) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < typeCounts.length; i++) {
+                if (typeCounts[i].sum() != other.typeCounts[i].sum()) {
+                    return false;
+                }
+            }
+            return total.sum() == other.total.sum() && durationMinutes.sum() == other.durationMinutes.sum();
+        }
+    }
+
+    /**
+     * 异常统计快照
+     *
+     * @param totalReports 异常总数
+     * @param totalDurationMinutes 总停机时长（分钟）
+     * @param statusCounts 各状态数量
+     * @param typeCounts 各类型数量（仅含数量大于0的类型）
+     */
+    public record Snapshot(long totalReports, long totalDurationMinutes,
+                           Map<DowntimeStatus, Long> statusCounts, Map<DowntimeType, Long> typeCounts) {
+
+        /**
+         * 指定状态的数量
+         */
+        public long count(DowntimeStatus status) {
+            return statusCounts.getOrDefault(status, 0L);
+        }
+    }
+}
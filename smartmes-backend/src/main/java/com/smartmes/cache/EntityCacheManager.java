@@ -0,0 +1,100 @@
+package com.smartmes.cache;
+
+import com.smartmes.dto.CacheStatistics;
+import com.smartmes.dto.CacheStatistics.RegionStatistics;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hibernate 二级缓存管理
+ * 产品、设备主数据及其查询结果由 Hibernate 二级缓存（Ehcache，容量见 ehcache.xml）提供，
+ * 经 JPA 的更新/删除在事务提交时自动失效；本组件提供各区域命中统计，
+ * 以及绕过应用直接修改数据库后的手动清空
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EntityCacheManager {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * 查询二级缓存命中统计
+     *
+     * @return 缓存统计（未开启 hibernate.generate_statistics 时各计数为0）
+     */
+    public CacheStatistics getStatistics() {
+        Statistics statistics = sessionFactory().getStatistics();
+
+        List<RegionStatistics> regions = new ArrayList<>();
+        String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regionNames);
+        for (String regionName : regionNames) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            long hits = region.getHitCount();
+            long misses = region.getMissCount();
+            regions.add(RegionStatistics.builder()
+                    .regionName(regionName)
+                    .hitCount(hits)
+                    .missCount(misses)
+                    .putCount(region.getPutCount())
+                    .hitRate(hitRate(hits, misses))
+                    .elementCountInMemory(elementCount(region))
+                    .build());
+        }
+
+        return CacheStatistics.builder()
+                .hitCount(statistics.getSecondLevelCacheHitCount())
+                .missCount(statistics.getSecondLevelCacheMissCount())
+                .putCount(statistics.getSecondLevelCachePutCount())
+                .queryHitCount(statistics.getQueryCacheHitCount())
+                .queryMissCount(statistics.getQueryCacheMissCount())
+                .queryPutCount(statistics.getQueryCachePutCount())
+                .regions(regions)
+                .build();
+    }
+
+    /**
+     * 清空全部二级缓存区域（实体缓存与查询缓存）
+     * 用于绕过应用直接修改主数据表之后
+     */
+    public void evictAll() {
+        sessionFactory().getCache().evictAllRegions();
+        log.info("二级缓存已清空");
+    }
+
+    private SessionFactory sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    /**
+     * JCache 不提供区域条目数，此时返回null
+     */
+    private Long elementCount(CacheRegionStatistics region) {
+        long count = region.getElementCountInMemory();
+        return count == CacheRegionStatistics.NO_EXTENDED_STAT_SUPPORT_RETURN ? null : count;
+    }
+
+    private double hitRate(long hits, long misses) {
+        long total = hits + misses;
+        if (total == 0) {
+            return 0.0;
+        }
+        return Math.round(hits * 10000.0 / total) / 100.0;
+    }
+}
@@ -0,0 +1,469 @@
+package com.smartmes.cache;
+
+import com.smartmes.common.ShiftCalendar;
+import com.smartmes.dto.DashboardData;
+import com.smartmes.dto.DowntimeStatisticsDTO.EquipmentDowntimeStats;
+import com.smartmes.entity.DowntimeReport;
+import com.smartmes.event.DowntimeReportChangedEvent;
+import com.smartmes.event.DowntimeReportChangedEvent.ChangeType;
+import com.smartmes.mapper.DowntimeMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * 设备停机排行跟踪器
+ * 按设备维护最近1小时、1个班次、1天、30天的滑动窗口（环形时间桶）以及累计的异常次数和停机时长，
+ * 由停机记录变更事件在事务提交后增量更新，启动时及定期从数据库重建；排行查询用大小为N的最小堆精确选出前N台设备，不执行聚合SQL
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EquipmentDowntimeTracker {
+
+    private static final int INCIDENTS = 0;
+    private static final int MINUTES = 1;
+
+    private final DowntimeMapper downtimeMapper;
+    private final ShiftCalendar shiftCalendar;
+    private final PlatformTransactionManager transactionManager;
+    private final DashboardVersionTracker dashboardVersionTracker;
+
+    /**
+     * 是否启用内存停机排行
+     */
+    @Value("${smartmes.dashboard.downtime-ranking.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 当前计数，首次重建完成前为null；只在持有本对象锁时访问
+     */
+    private Counts counts;
+
+    /**
+     * 重建的变更记录，只在持有本对象锁时访问
+     */
+    private final DowntimeRebuildLog rebuildLog = new DowntimeRebuildLog();
+
+    /**
+     * 同一时间只有一个线程执行重建（启动时与定时重建可能重叠）
+     */
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+
+    private volatile boolean loaded;
+
+    /**
+     * 查询排行前N的设备
+     *
+     * @param window 统计窗口
+     * @param rankBy 排序依据
+     * @param limit 返回数量
+     * @return 排行列表（降序），跟踪器未启用或未加载时返回null
+     */
+    public List<EquipmentDowntimeStats> top(Window window, RankBy rankBy, int limit) {
+        if (!enabled || !loaded) {
+            return null;
+        }
+        if (window == Window.ALL) {
+            return rank(rankBy, limit, consumer -> counts.allTime.forEach(consumer));
+        }
+        return rank(rankBy, limit, consumer -> counts.windows.get(window).forEachTotals(System.currentTimeMillis(), consumer));
+    }
+
+    /**
+     * 查询指定时间之后开始的异常中排行前N的设备（如按自然日统计今日排行）
+     * 由最近24小时窗口中起始时间所在及之后的时间桶累加，起始时间向下取整到15分钟时间桶边界
+     *
+     * @param since 起始时间，早于24小时前时按24小时计
+     * @param rankBy 排序依据
+     * @param limit 返回数量
+     * @return 排行列表（降序），跟踪器未启用或未加载时返回null
+     */
+    public List<EquipmentDowntimeStats> topSince(LocalDateTime since, RankBy rankBy, int limit) {
+        if (!enabled || !loaded) {
+            return null;
+        }
+        long sinceMillis = since.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return rank(rankBy, limit, consumer -> counts.windows.get(Window.DAY)
+                .forEachTotals(System.currentTimeMillis(), sinceMillis, consumer));
+    }
+
+    /**
+     * 用大小为N的最小堆从各设备合计中选出前N项
+     */
+    private List<EquipmentDowntimeStats> rank(RankBy rankBy, int limit, Consumer<BiConsumer<String, long[]>> totals) {
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        int metric = rankBy == RankBy.MINUTES ? MINUTES : INCIDENTS;
+        Comparator<EquipmentDowntimeStats> order = Comparator
+                .comparingLong((EquipmentDowntimeStats stats) -> metric == MINUTES
+                        ? stats.getTotalDurationMinutes() : stats.getIncidentCount())
+                .thenComparingLong(stats -> metric == MINUTES
+                        ? stats.getIncidentCount() : stats.getTotalDurationMinutes())
+                .thenComparing(EquipmentDowntimeStats::getEquipmentId, Comparator.reverseOrder());
+
+        // 最小堆只保留当前最大的N项
+        PriorityQueue<EquipmentDowntimeStats> heap = new PriorityQueue<>(limit + 1, order);
+        synchronized (this) {
+            totals.accept((equipmentId, equipmentTotals) -> offer(heap, limit, equipmentId, equipmentTotals));
+        }
+
+        List<EquipmentDowntimeStats> result = new ArrayList<>(heap);
+        result.sort(order.reversed());
+        return result;
+    }
+
+    /**
+     * 应用启动完成后从数据库初始化
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reconcile();
+    }
+
+    /**
+     * 停机记录变更事务提交前登记，重建完成时仍未收到提交后事件的记录按状态替换计入
+     *
+     * @param event 停机记录变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public synchronized void beforeDowntimeReportCommit(DowntimeReportChangedEvent event) {
+        rebuildLog.beforeCommit(event);
+    }
+
+    /**
+     * 停机记录变更事务回滚后注销登记
+     *
+     * @param event 停机记录变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public synchronized void afterDowntimeReportRollback(DowntimeReportChangedEvent event) {
+        rebuildLog.afterRollback(event);
+    }
+
+    /**
+     * 停机记录变更事务提交后更新计数
+     * 上报计1次异常，删除扣减1次；停机时长按变更前后的差值累加，均归入停机开始时间所在的时间桶。
+     * 同时记入变更记录，由重建按最后状态修正新的计数
+     *
+     * @param event 停机记录变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onDowntimeReportChanged(DowntimeReportChangedEvent event) {
+        long now = System.currentTimeMillis();
+        if (rebuildLog.afterCommit(event, (seen, after) -> counts.replace(seen, after, now))) {
+            return;
+        }
+        DowntimeReport report = event.getReport();
+        if (!loaded || report == null || report.getEquipmentId() == null) {
+            return;
+        }
+
+        long incidents = event.getChangeType() == ChangeType.REPORTED ? 1
+                : event.getChangeType() == ChangeType.DELETED ? -1 : 0;
+        long currentMinutes = event.getChangeType() == ChangeType.DELETED ? 0 : nullToZero(report.getDurationMinutes());
+        long previousMinutes = event.getChangeType() == ChangeType.REPORTED ? 0 : nullToZero(event.getPreviousDurationMinutes());
+        long minutes = currentMinutes - previousMinutes;
+        if (incidents == 0 && minutes == 0) {
+            return;
+        }
+        counts.add(report.getEquipmentId(), report.getStartTime(), incidents, minutes, now);
+    }
+
+    /**
+     * 定期从数据库重建
+     * 30天内的记录逐条放入滑动窗口，累计统计按设备汇总一次，两次查询在同一可重复读事务内读取同一快照；
+     * 查询期间提交的变更由变更记录按快照状态与最后状态修正，完成后整体替换计数，
+     * 与增量结果不一致时告警并使看板故障排行的缓存版本失效
+     */
+    @Scheduled(fixedDelayString = "${smartmes.dashboard.downtime-ranking.reconcile-interval-ms:300000}",
+               initialDelayString = "${smartmes.dashboard.downtime-ranking.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+
+        reconcileLock.lock();
+        try {
+            synchronized (this) {
+                rebuildLog.start();
+            }
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+            transactionTemplate.setReadOnly(true);
+            transactionTemplate.executeWithoutResult(status -> rebuild());
+        } catch (Exception e) {
+            synchronized (this) {
+                rebuildLog.abort();
+            }
+            log.error("设备停机排行重建失败", e);
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    private void rebuild() {
+        long now = System.currentTimeMillis();
+        Counts fresh = new Counts();
+        List<DowntimeReport> recent = downtimeMapper.findStartedSince(LocalDateTime.now().minusDays(30));
+        for (DowntimeReport report : recent) {
+            fresh.addToWindows(report.getEquipmentId(), report.getStartTime(), 1, nullToZero(report.getDurationMinutes()), now);
+        }
+        for (EquipmentDowntimeStats stats : downtimeMapper.sumByEquipment()) {
+            fresh.allTime.put(stats.getEquipmentId(), new long[]{
+                    nullToZero(stats.getIncidentCount()), nullToZero(stats.getTotalDurationMinutes())});
+        }
+
+        synchronized (this) {
+            int changes = rebuildLog.size();
+            rebuildLog.finish(downtimeMapper, (seen, after) -> fresh.replace(seen, after, now));
+
+            if (loaded && !rebuildLog.hasDeferred() && !counts.sameAs(fresh, System.currentTimeMillis())) {
+                log.warn("设备停机排行内存状态与数据库存在偏差，已按数据库纠正");
+                dashboardVersionTracker.bump(DashboardData.SECTION_DOWNTIME_STATISTICS);
+            }
+            counts = fresh;
+            if (!loaded) {
+                loaded = true;
+                log.info("设备停机排行初始化完成，30天内记录{}条，累计设备{}台", recent.size(), fresh.allTime.size());
+            } else {
+                log.debug("设备停机排行重建完成，重建期间变更{}条", changes);
+            }
+        }
+    }
+
+    private static void offer(PriorityQueue<EquipmentDowntimeStats> heap, int limit, String equipmentId, long[] totals) {
+        if (totals[INCIDENTS] <= 0) {
+            return;
+        }
+        heap.offer(EquipmentDowntimeStats.builder()
+                .equipmentId(equipmentId)
+                .incidentCount(totals[INCIDENTS])
+                .totalDurationMinutes(totals[MINUTES])
+                .build());
+        if (heap.size() > limit) {
+            heap.poll();
+        }
+    }
+
+    private static long nullToZero(Number value) {
+        return value != null ? value.longValue() : 0L;
+    }
+
+    /**
+     * 滑动窗口与累计统计
+     */
+    private final class Counts {
+
+        private final Map<Window, SlidingWindow> windows = new EnumMap<>(Window.class);
+
+        /**
+         * 累计统计：设备ID -> [异常次数, 停机时长]
+         */
+        private final Map<String, long[]> allTime = new HashMap<>();
+
+        private Counts() {
+            windows.put(Window.HOUR, new SlidingWindow(TimeUnit.MINUTES.toMillis(1), 60));
+            windows.put(Window.SHIFT, new SlidingWindow(TimeUnit.MINUTES.toMillis(5), shiftCalendar.getShiftHours() * 12));
+            windows.put(Window.DAY, new SlidingWindow(TimeUnit.MINUTES.toMillis(15), 96));
+            windows.put(Window.MONTH, new SlidingWindow(TimeUnit.HOURS.toMillis(6), 120));
+        }
+
+        private void add(String equipmentId, LocalDateTime startTime, long incidents, long minutes, long now) {
+            long[] totals = allTime.computeIfAbsent(equipmentId, key -> new long[2]);
+            totals[INCIDENTS] += incidents;
+            totals[MINUTES] += minutes;
+            if (totals[INCIDENTS] <= 0 && totals[MINUTES] == 0) {
+                allTime.remove(equipmentId);
+            }
+            addToWindows(equipmentId, startTime, incidents, minutes, now);
+        }
+
+        /**
+         * 扣除一条停机记录变更前的状态并计入变更后的状态
+         */
+        private void replace(DowntimeReport seen, DowntimeReport after, long now) {
+            if (seen != null && seen.getEquipmentId() != null) {
+                add(seen.getEquipmentId(), seen.getStartTime(), -1, -nullToZero(seen.getDurationMinutes()), now);
+            }
+            if (after != null && after.getEquipmentId() != null) {
+                add(after.getEquipmentId(), after.getStartTime(), 1, nullToZero(after.getDurationMinutes()), now);
+            }
+        }
+
+        private void addToWindows(String equipmentId, LocalDateTime startTime, long incidents, long minutes, long now) {
+            if (startTime == null) {
+                return;
+            }
+            long time = startTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            for (SlidingWindow window : windows.values()) {
+                window.add(equipmentId, time, incidents, minutes, now);
+            }
+        }
+
+        /**
+         * 比较累计统计及各窗口内的设备合计，均为0的设备不参与比较
+         */
+        private boolean sameAs(Counts other, long now) {
+            if (!nonZero(allTime::forEach).equals(nonZero(other.allTime::forEach))) {
+                return false;
+            }
+            for (Window window : windows.keySet()) {
+                SlidingWindow mine = windows.get(window);
+                SlidingWindow theirs = other.windows.get(window);
+                if (!nonZero(consumer -> mine.forEachTotals(now, consumer))
+                        .equals(nonZero(consumer -> theirs.forEachTotals(now, consumer)))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Map<String, List<Long>> nonZero(Consumer<BiConsumer<String, long[]>> totals) {
+            Map<String, List<Long>> result = new HashMap<>();
+            totals.accept((equipmentId, equipmentTotals) -> {
+                if (equipmentTotals[INCIDENTS] != 0 || equipmentTotals[MINUTES] != 0) {
+                    result.put(equipmentId, List.of(equipmentTotals[INCIDENTS], equipmentTotals[MINUTES]));
+                }
+            });
+            return result;
+        }
+    }
+
+    /**
+     * 统计窗口枚举
+     */
+    public enum Window {
+        HOUR,   // 最近1小时
+        SHIFT,  // 最近1个班次时长
+        DAY,    // 最近24小时
+        MONTH,  // 最近30天
+        ALL     // 累计
+    }
+
+    /**
+     * 排序依据枚举
+     */
+    public enum RankBy {
+        INCIDENTS,  // 异常次数
+        MINUTES     // 停机时长
+    }
+
+    /**
+     * 设备维度的环形时间桶滑动窗口
+     * 时间桶按序号取模存放，读取时只累加仍在窗口内的时间桶，过期的时间桶在复用时清零
+     */
+    private static final class SlidingWindow {
+
+        private final long bucketMillis;
+        private final int bucketCount;
+        private final Map<String, Buckets> byEquipment = new HashMap<>();
+
+        private SlidingWindow(long bucketMillis, int bucketCount) {
+            this.bucketMillis = bucketMillis;
+            this.bucketCount = bucketCount;
+        }
+
+        private void add(String equipmentId, long time, long incidents, long minutes, long now) {
+            long current = Math.floorDiv(now, bucketMillis);
+            long bucket = Math.min(Math.floorDiv(time, bucketMillis), current);
+            if (bucket <= current - bucketCount) {
+                return;
+            }
+
+            Buckets buckets = byEquipment.computeIfAbsent(equipmentId, key -> new Buckets(bucketCount));
+            int slot = (int) Math.floorMod(bucket, (long) bucketCount);
+            if (buckets.bucketIds[slot] != bucket) {
+                buckets.bucketIds[slot] = bucket;
+                buckets.incidents[slot] = 0;
+                buckets.minutes[slot] = 0;
+            }
+            buckets.incidents[slot] += incidents;
+            buckets.minutes[slot] += minutes;
+        }
+
+        /**
+         * 遍历各设备窗口内的合计，同时清理已完全过期的设备
+         */
+        private void forEachTotals(long now, BiConsumer<String, long[]> consumer) {
+            forEachTotals(now, Long.MIN_VALUE, consumer);
+        }
+
+        /**
+         * 遍历各设备窗口内、起始时间所在及之后时间桶的合计，同时清理已完全过期的设备
+         */
+        private void forEachTotals(long now, long since, BiConsumer<String, long[]> consumer) {
+            long current = Math.floorDiv(now, bucketMillis);
+            long oldest = current - bucketCount + 1;
+            long first = Math.max(oldest, Math.floorDiv(since, bucketMillis));
+            Iterator<Map.Entry<String, Buckets>> iterator = byEquipment.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Buckets> entry = iterator.next();
+                Buckets buckets = entry.getValue();
+                long[] totals = new long[2];
+                boolean live = false;
+                for (int i = 0; i < bucketCount; i++) {
+                    if (buckets.bucketIds[i] >= oldest) {
+                        live = true;
+                        if (buckets.bucketIds[i] >= first) {
+                            totals[INCIDENTS] += buckets.incidents[i];
+                            totals[MINUTES] += buckets.minutes[i];
+                        }
+                    }
+                }
+                if (!live) {
+                    iterator.remove();
+                } else {
+                    consumer.accept(entry.getKey(), totals);
+                }
+            }
+        }
+    }
+
+    /**
+     * 单台设备的时间桶数组
+     */
+    private static final class Buckets {
+
+        private final long[] bucketIds;
+        private final long[] incidents;
+        private final long[] minutes;
+
+        private Buckets(int bucketCount) {
+            bucketIds = new long[bucketCount];
+            incidents = new long[bucketCount];
+            minutes = new long[bucketCount];
+            Arrays.fill(bucketIds, Long.MIN_VALUE);
+        }
+    }
+}
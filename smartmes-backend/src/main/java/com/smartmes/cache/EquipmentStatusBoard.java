@@ -0,0 +1,355 @@
+package com.smartmes.cache;
+
+import com.smartmes.entity.Equipment;
+import com.smartmes.entity.Equipment.EquipmentStatus;
+import com.smartmes.event.EquipmentChangedEvent;
+import com.smartmes.repository.EquipmentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 设备状态看板内存存储
+ * 设备状态以字节数组按槽位存放，各状态数量以按枚举序号索引的计数数组维护；
+ * 设备变更事务提交后在写锁内更新，读取使用 StampedLock 乐观读（顺序锁）：
+ * 无写入时读取不加锁，读取期间发生写入则重试，保证快照不会读到写了一半的数据
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EquipmentStatusBoard {
+
+    /**
+     * 无状态槽位标记
+     */
+    private static final byte NO_STATUS = -1;
+
+    /**
+     * 乐观读失败后退化为读锁前的重试次数
+     */
+    private static final int OPTIMISTIC_ATTEMPTS = 3;
+
+    private static final EquipmentStatus[] STATUSES = EquipmentStatus.values();
+
+    private final EquipmentRepository equipmentRepository;
+
+    /**
+     * 是否启用内存设备状态看板
+     */
+    @Value("${smartmes.dashboard.equipment-board.enabled:true}")
+    private boolean enabled;
+
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * 设备ID到槽位的索引，仅在写锁内访问
+     */
+    private final Map<String, Integer> slots = new HashMap<>();
+
+    private byte[] statuses = new byte[0];
+    private EquipmentDetail[] details = new EquipmentDetail[0];
+    private int size;
+    private final int[] counts = new int[STATUSES.length];
+
+    /**
+     * 数据版本，每次写入递增
+     */
+    private long version;
+
+    /**
+     * 加载期间到达的变更事件，加载完成后按顺序重放；不在加载中时为null（写锁内访问）
+     */
+    private List<EquipmentChangedEvent> pendingChanges;
+
+    private volatile boolean loaded;
+
+    /**
+     * 读取完整看板快照
+     *
+     * @return 设备状态快照，看板未启用或未加载时返回null
+     */
+    public BoardSnapshot snapshot() {
+        if (!enabled || !loaded) {
+            return null;
+        }
+
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp == 0L) {
+                Thread.onSpinWait();
+                continue;
+            }
+            BoardSnapshot snapshot = copySnapshot();
+            if (lock.validate(stamp)) {
+                return snapshot;
+            }
+        }
+
+        long stamp = lock.readLock();
+        try {
+            return copySnapshot();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 读取各状态设备数量
+     *
+     * @return 状态计数快照，看板未启用或未加载时返回null
+     */
+    public StatusCounts counts() {
+        if (!enabled || !loaded) {
+            return null;
+        }
+
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp == 0L) {
+                Thread.onSpinWait();
+                continue;
+            }
+            StatusCounts statusCounts = new StatusCounts(version, counts.clone());
+            if (lock.validate(stamp)) {
+                return statusCounts;
+            }
+        }
+
+        long stamp = lock.readLock();
+        try {
+            return new StatusCounts(version, counts.clone());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 应用启动完成后从数据库加载全部设备
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    /**
+     * 从数据库重新加载全部设备
+     * 查询期间到达的变更先暂存，替换完成后按顺序重放，避免丢失
+     */
+    public void reload() {
+        long stamp = lock.writeLock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        List<Equipment> equipmentList;
+        try {
+            equipmentList = equipmentRepository.findAll();
+        } catch (RuntimeException e) {
+            stamp = lock.writeLock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            log.error("设备状态看板加载失败", e);
+            return;
+        }
+
+        stamp = lock.writeLock();
+        try {
+            slots.clear();
+            statuses = new byte[Math.max(equipmentList.size(), 16)];
+            details = new EquipmentDetail[statuses.length];
+            size = 0;
+            Arrays.fill(counts, 0);
+            for (Equipment equipment : equipmentList) {
+                upsert(equipment);
+            }
+            for (EquipmentChangedEvent event : pendingChanges) {
+                apply(event);
+            }
+            pendingChanges = null;
+            version++;
+            loaded = true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        log.info("设备状态看板加载完成，共{}台设备", equipmentList.size());
+    }
+
+    /**
+     * 设备变更事务提交后更新看板
+     *
+     * @param event 设备变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEquipmentChanged(EquipmentChangedEvent event) {
+        long stamp = lock.writeLock();
+        try {
+            if (pendingChanges != null) {
+                pendingChanges.add(event);
+            } else if (loaded) {
+                apply(event);
+                version++;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void apply(EquipmentChangedEvent event) {
+        if (event.getChangeType() == EquipmentChangedEvent.ChangeType.DELETED) {
+            remove(event.getEquipmentId());
+        } else if (event.getEquipment() != null) {
+            upsert(event.getEquipment());
+        }
+    }
+
+    private void upsert(Equipment equipment) {
+        Integer slot = slots.get(equipment.getEquipmentId());
+        if (slot == null) {
+            if (size == statuses.length) {
+                int capacity = Math.max(statuses.length * 2, 16);
+                statuses = Arrays.copyOf(statuses, capacity);
+                details = Arrays.copyOf(details, capacity);
+            }
+            slot = size++;
+            slots.put(equipment.getEquipmentId(), slot);
+        } else if (statuses[slot] != NO_STATUS) {
+            counts[statuses[slot]]--;
+        }
+
+        byte status = equipment.getStatus() != null ? (byte) equipment.getStatus().ordinal() : NO_STATUS;
+        statuses[slot] = status;
+        details[slot] = EquipmentDetail.of(equipment);
+        if (status != NO_STATUS) {
+            counts[status]++;
+        }
+    }
+
+    private void remove(String equipmentId) {
+        Integer slot = slots.remove(equipmentId);
+        if (slot == null) {
+            return;
+        }
+        if (statuses[slot] != NO_STATUS) {
+            counts[statuses[slot]]--;
+        }
+
+        // 用最后一个槽位填补空位，保持数组紧凑
+        int last = --size;
+        if (slot != last) {
+            statuses[slot] = statuses[last];
+            details[slot] = details[last];
+            slots.put(details[slot].equipmentId(), slot);
+        }
+        statuses[last] = NO_STATUS;
+        details[last] = null;
+    }
+
+    /**
+     * 复制当前数据；乐观读时可能读到不一致的数据，由调用方校验后丢弃，
+     * 因此这里只做不会因不一致而越界的复制
+     */
+    private BoardSnapshot copySnapshot() {
+        long currentVersion = version;
+        byte[] currentStatuses = statuses;
+        EquipmentDetail[] currentDetails = details;
+        int n = Math.min(size, Math.min(currentStatuses.length, currentDetails.length));
+        byte[] statusCopy = Arrays.copyOf(currentStatuses, n);
+        EquipmentDetail[] detailCopy = Arrays.copyOf(currentDetails, n);
+        int[] countCopy = counts.clone();
+
+        return new BoardSnapshot(currentVersion, statusCopy, detailCopy, new StatusCounts(currentVersion, countCopy));
+    }
+
+    /**
+     * 设备基础信息（不可变）
+     *
+     * @param equipmentId 设备ID
+     * @param equipmentName 设备名称
+     * @param equipmentType 设备类型
+     * @param lineId 产线ID
+     * @param location 位置
+     * @param lastMaintenanceTime 上次维护时间
+     * @param nextMaintenanceTime 下次维护时间
+     */
+    public record EquipmentDetail(String equipmentId, String equipmentName, String equipmentType, String lineId,
+                                  String location, LocalDateTime lastMaintenanceTime,
+                                  LocalDateTime nextMaintenanceTime) {
+
+        static EquipmentDetail of(Equipment equipment) {
+            return new EquipmentDetail(equipment.getEquipmentId(), equipment.getEquipmentName(),
+                    equipment.getEquipmentType(), equipment.getLineId(), equipment.getLocation(),
+                    equipment.getLastMaintenanceTime(), equipment.getNextMaintenanceTime());
+        }
+    }
+
+    /**
+     * 各状态设备数量快照
+     *
+     * @param version 数据版本
+     * @param counts 按状态序号索引的设备数量
+     */
+    public record StatusCounts(long version, int[] counts) {
+
+        /**
+         * 指定状态的设备数量
+         */
+        public int count(EquipmentStatus status) {
+            return counts[status.ordinal()];
+        }
+    }
+
+    /**
+     * 设备状态看板快照
+     *
+     * @param version 数据版本
+     * @param statuses 按槽位存放的状态序号（-1表示无状态）
+     * @param details 按槽位存放的设备信息
+     * @param statusCounts 各状态设备数量
+     */
+    public record BoardSnapshot(long version, byte[] statuses, EquipmentDetail[] details, StatusCounts statusCounts) {
+
+        /**
+         * 设备数量
+         */
+        public int size() {
+            return details.length;
+        }
+
+        /**
+         * 指定槽位设备的状态
+         */
+        public EquipmentStatus status(int index) {
+            return statuses[index] != NO_STATUS ? STATUSES[statuses[index]] : null;
+        }
+
+        /**
+         * 指定槽位设备的信息
+         */
+        public EquipmentDetail detail(int index) {
+            return details[index];
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.smartmes.cache;
+
+import com.smartmes.entity.WorkOrder.WorkOrderStatus;
+import com.smartmes.event.WorkOrderBatchChangedEvent;
+import com.smartmes.event.WorkOrderChangedEvent;
+import com.smartmes.repository.WorkOrderRepository;
+import com.smartmes.repository.WorkOrderRepository.WorkOrderLine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 产线进行中工单索引
+ * 按产线维护进行中工单的工单号集合，启动时及定期由 (line_id, status) 组合索引加载，
+ * 工单变更事务提交后按变更后的状态与产线增删；查询时无需读取产线的历史工单。
+ * 多实例部署时其他实例的变更只能由定期加载同步
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InProgressWorkOrderIndex {
+
+    private final WorkOrderRepository workOrderRepository;
+
+    /**
+     * 是否启用进行中工单索引
+     */
+    @Value("${smartmes.workorder.in-progress-index.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 产线ID -> 进行中工单号集合
+     */
+    private volatile Map<String, Set<String>> lines = new ConcurrentHashMap<>();
+
+    /**
+     * 加载期间到达的变更事件，加载完成后按顺序重放；不在加载中时为null（持有对象锁时访问）
+     */
+    private List<WorkOrderChangedEvent> pendingChanges;
+
+    /**
+     * 同一时间只有一个线程执行加载（启动时与定期加载可能重叠）
+     */
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private volatile boolean loaded;
+
+    /**
+     * 查询产线进行中的工单号
+     *
+     * @param lineId 产线ID
+     * @return 工单号列表，索引未启用或未加载时返回null
+     */
+    public List<String> getOrderIds(String lineId) {
+        if (!enabled || !loaded) {
+            return null;
+        }
+        Set<String> orderIds = lines.get(lineId);
+        return orderIds != null ? List.copyOf(orderIds) : List.of();
+    }
+
+    /**
+     * 应用启动完成后从数据库加载进行中工单
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    /**
+     * 定期从数据库重新加载，纠正其他实例提交的变更及漏处理的事件
+     */
+    @Scheduled(fixedDelayString = "${smartmes.workorder.in-progress-index.reload-interval-ms:60000}",
+               initialDelayString = "${smartmes.workorder.in-progress-index.reload-interval-ms:60000}")
+    public void scheduledReload() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    /**
+     * 从数据库重新加载进行中工单
+     * 查询期间到达的变更先暂存，替换完成后按顺序重放，避免丢失
+     */
+    public void reload() {
+        reloadLock.lock();
+        try {
+            doReload();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void doReload() {
+        synchronized (this) {
+            pendingChanges = new ArrayList<>();
+        }
+
+        List<WorkOrderLine> inProgress;
+        try {
+            inProgress = workOrderRepository.findLinesByStatus(WorkOrderStatus.IN_PROGRESS);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pendingChanges = null;
+            }
+            log.error("产线进行中工单索引加载失败", e);
+            return;
+        }
+
+        synchronized (this) {
+            Map<String, Set<String>> previous = lines;
+            Map<String, Set<String>> loadedLines = new ConcurrentHashMap<>();
+            for (WorkOrderLine workOrder : inProgress) {
+                loadedLines.computeIfAbsent(workOrder.getLineId(), lineId -> ConcurrentHashMap.newKeySet())
+                        .add(workOrder.getId());
+            }
+            lines = loadedLines;
+            for (WorkOrderChangedEvent event : pendingChanges) {
+                apply(event);
+            }
+            pendingChanges = null;
+
+            if (!loaded) {
+                loaded = true;
+                log.info("产线进行中工单索引加载完成，共{}个工单", inProgress.size());
+            } else if (!nonEmpty(previous).equals(nonEmpty(lines))) {
+                log.info("产线进行中工单索引与数据库存在偏差（其他实例的变更或漏处理的事件），已按数据库纠正");
+            }
+        }
+    }
+
+    private static Map<String, Set<String>> nonEmpty(Map<String, Set<String>> lines) {
+        Map<String, Set<String>> result = new HashMap<>();
+        lines.forEach((lineId, orderIds) -> {
+            if (!orderIds.isEmpty()) {
+                result.put(lineId, orderIds);
+            }
+        });
+        return result;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onWorkOrderChanged(WorkOrderChangedEvent event) {
+        if (enabled) {
+            record(event);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onWorkOrderBatchChanged(WorkOrderBatchChangedEvent event) {
+        if (enabled) {
+            event.getChanges().forEach(this::record);
+        }
+    }
+
+    private synchronized void record(WorkOrderChangedEvent event) {
+        // 仅产量变化不影响索引
+        if (event.getChangeType() == WorkOrderChangedEvent.ChangeType.PROGRESS) {
+            return;
+        }
+        if (pendingChanges != null) {
+            pendingChanges.add(event);
+        }
+        apply(event);
+    }
+
+    /**
+     * 按变更后的状态与产线更新索引；重复应用结果不变，便于加载完成后重放
+     */
+    private void apply(WorkOrderChangedEvent event) {
+        if (event.getPreviousLineId() != null && !event.getPreviousLineId().equals(event.getLineId())) {
+            remove(event.getPreviousLineId(), event.getOrderId());
+        }
+        if (event.getLineId() == null) {
+            return;
+        }
+        if (event.getCurrentStatus() == WorkOrderStatus.IN_PROGRESS) {
+            lines.computeIfAbsent(event.getLineId(), lineId -> ConcurrentHashMap.newKeySet()).add(event.getOrderId());
+        } else {
+            remove(event.getLineId(), event.getOrderId());
+        }
+    }
+
+    private void remove(String lineId, String orderId) {
+        Set<String> orderIds = lines.get(lineId);
+        if (orderIds != null) {
+            orderIds.remove(orderId);
+        }
+    }
+}
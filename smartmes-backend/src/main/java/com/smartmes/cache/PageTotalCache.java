@@ -0,0 +1,163 @@
+package com.smartmes.cache;
+
+import com.smartmes.common.TotalMode;
+import com.smartmes.event.DowntimeReportChangedEvent;
+import com.smartmes.event.WorkOrderBatchChangedEvent;
+import com.smartmes.event.WorkOrderChangedEvent;
+import com.smartmes.event.WorkOrderChangedEvent.ChangeType;
+import com.smartmes.repository.TableStatisticsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 分页总记录数缓存
+ * 按统计方式提供分页总数：精确统计、按查询条件短时缓存（数据变更提交后失效）、由表统计信息估算；
+ * 缓存按表分组，每组维护代次号，失效时递增代次，统计期间发生失效的结果不会被复用
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PageTotalCache {
+
+    /**
+     * 工单表
+     */
+    public static final String WORK_ORDER = "work_order";
+
+    /**
+     * 停机上报表
+     */
+    public static final String DOWNTIME_REPORT = "downtime_report";
+
+    private final TableStatisticsRepository tableStatisticsRepository;
+
+    /**
+     * 缓存有效期（毫秒）
+     */
+    @Value("${smartmes.page-total.cache-ttl-ms:30000}")
+    private long ttlMillis;
+
+    /**
+     * 每张表最多缓存的查询条件数，超出时清空重建
+     */
+    @Value("${smartmes.page-total.max-entries:1000}")
+    private int maxEntries;
+
+    private final Map<String, TableTotals> tables = new ConcurrentHashMap<>();
+
+    /**
+     * 按统计方式获取分页总数
+     * 估算仅在无查询条件且数据库提供表统计信息时可用，否则按缓存方式统计；返回结果标明实际使用的方式
+     *
+     * @param table 表名
+     * @param mode 统计方式（为空时精确统计）
+     * @param counter 精确统计
+     * @param filters 查询条件取值（作为缓存键，全部为空表示无条件）
+     * @return 总数及实际使用的统计方式
+     */
+    public PageTotal total(String table, TotalMode mode, LongSupplier counter, Object... filters) {
+        if (mode == null || mode == TotalMode.EXACT) {
+            return new PageTotal(counter.getAsLong(), TotalMode.EXACT);
+        }
+
+        boolean filtered = Arrays.stream(filters).anyMatch(Objects::nonNull);
+        if (mode == TotalMode.ESTIMATED && !filtered) {
+            Optional<Long> estimate = tableStatisticsRepository.estimateRowCount(table);
+            if (estimate.isPresent()) {
+                return new PageTotal(estimate.get(), TotalMode.ESTIMATED);
+            }
+        }
+        return new PageTotal(cached(table, Arrays.asList(filters), counter), TotalMode.CACHED);
+    }
+
+    /**
+     * 使表的缓存总数失效
+     *
+     * @param table 表名
+     */
+    public void invalidate(String table) {
+        TableTotals totals = tables.get(table);
+        if (totals != null) {
+            totals.generation.incrementAndGet();
+            totals.entries.clear();
+        }
+    }
+
+    /**
+     * 工单新建、删除、状态或归属变更影响工单计数；仅产量变化不影响
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onWorkOrderChanged(WorkOrderChangedEvent event) {
+        if (event.getChangeType() != ChangeType.PROGRESS) {
+            invalidate(WORK_ORDER);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onWorkOrderBatchChanged(WorkOrderBatchChangedEvent event) {
+        if (event.getChanges().stream().anyMatch(change -> change.getChangeType() != ChangeType.PROGRESS)) {
+            invalidate(WORK_ORDER);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDowntimeReportChanged(DowntimeReportChangedEvent event) {
+        invalidate(DOWNTIME_REPORT);
+    }
+
+    private long cached(String table, List<Object> key, LongSupplier counter) {
+        TableTotals totals = tables.computeIfAbsent(table, name -> new TableTotals());
+        long now = System.currentTimeMillis();
+        long generation = totals.generation.get();
+
+        CachedTotal cached = totals.entries.get(key);
+        if (cached != null && cached.generation == generation && cached.expiresAt > now) {
+            return cached.total;
+        }
+
+        long total = counter.getAsLong();
+        if (totals.entries.size() >= maxEntries) {
+            totals.entries.clear();
+        }
+        totals.entries.put(key, new CachedTotal(total, generation, now + ttlMillis));
+        return total;
+    }
+
+    /**
+     * 分页总数及其统计方式
+     *
+     * @param total 总数
+     * @param mode 实际使用的统计方式
+     */
+    public record PageTotal(long total, TotalMode mode) {
+    }
+
+    private record CachedTotal(long total, long generation, long expiresAt) {
+    }
+
+    /**
+     * 单张表的缓存总数
+     */
+    private static final class TableTotals {
+
+        private final AtomicLong generation = new AtomicLong();
+
+        private final Map<List<Object>, CachedTotal> entries = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,374 @@
+package com.smartmes.cache;
+
+import com.smartmes.entity.WorkOrder;
+import com.smartmes.event.WorkOrderBatchChangedEvent;
+import com.smartmes.event.WorkOrderChangedEvent;
+import com.smartmes.event.WorkOrderChangedEvent.ChangeType;
+import com.smartmes.event.WorkOrderChangedEvent.Snapshot;
+import com.smartmes.repository.WorkOrderBatchRepository;
+import com.smartmes.repository.WorkOrderRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 工单进度增量写后缓冲
+ * 终端上报的产量增量按工单号分段（条带）合并在内存中，按固定间隔或待写工单数达到上限时
+ * 一次事务内以JDBC批处理累加到工单表，并发布一次批量变更事件；
+ * 读取工单时叠加尚未写入的增量，写入失败的增量放回缓冲等待下次写入。
+ * 缓冲中的增量在进程异常退出时会丢失，正常停机时会先写入
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WorkOrderProgressBuffer {
+
+    /**
+     * 正在写入、尚未提交的增量的版本号，大于任何读取到的工单版本号
+     */
+    private static final long UNCOMMITTED = Long.MAX_VALUE;
+
+    private final WorkOrderRepository workOrderRepository;
+    private final WorkOrderBatchRepository workOrderBatchRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 是否启用写后缓冲，未启用时每次增量立即写入
+     */
+    @Value("${smartmes.workorder.progress-buffer.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 分段数
+     */
+    @Value("${smartmes.workorder.progress-buffer.stripes:16}")
+    private int stripeCount;
+
+    /**
+     * 待写工单数达到该值时立即写入
+     */
+    @Value("${smartmes.workorder.progress-buffer.max-pending-orders:1000}")
+    private int maxPendingOrders;
+
+    private Stripe[] stripes;
+
+    private final AtomicInteger pendingOrders = new AtomicInteger();
+
+    /**
+     * 同一时间只有一个线程执行写入
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @PostConstruct
+    public void init() {
+        if (stripeCount <= 0) {
+            throw new IllegalStateException("smartmes.workorder.progress-buffer.stripes must be positive: " + stripeCount);
+        }
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * 工单是否有尚未写入的增量
+     *
+     * @param orderId 工单ID
+     */
+    public boolean hasPending(String orderId) {
+        Stripe stripe = stripeOf(orderId);
+        synchronized (stripe) {
+            return stripe.increments.containsKey(orderId);
+        }
+    }
+
+    /**
+     * 尚未提交到数据库的增量（含正在写入的部分）
+     *
+     * @param orderId 工单ID
+     * @return 产量增量
+     */
+    public int pending(String orderId) {
+        Stripe stripe = stripeOf(orderId);
+        synchronized (stripe) {
+            int pending = stripe.increments.getOrDefault(orderId, 0);
+            InFlight inFlight = stripe.inFlight.get(orderId);
+            if (inFlight != null && inFlight.appliedVersion() == UNCOMMITTED) {
+                pending += inFlight.increment();
+            }
+            return pending;
+        }
+    }
+
+    /**
+     * 读取到的工单尚未包含的增量
+     * 最近一次写入已提交的增量按写入后的版本号判断：工单读取于提交之前（版本号更小）时仍需叠加，
+     * 读取工单与读取增量之间发生提交时不会遗漏或重复
+     *
+     * @param orderId 工单ID
+     * @param version 读取到的工单版本号
+     * @return 产量增量
+     */
+    public int pending(String orderId, long version) {
+        Stripe stripe = stripeOf(orderId);
+        synchronized (stripe) {
+            int pending = stripe.increments.getOrDefault(orderId, 0);
+            InFlight inFlight = stripe.inFlight.get(orderId);
+            if (inFlight != null && version < inFlight.appliedVersion()) {
+                pending += inFlight.increment();
+            }
+            return pending;
+        }
+    }
+
+    /**
+     * 合并一次产量增量，未启用缓冲时立即写入
+     *
+     * @param orderId 工单ID
+     * @param increment 产量增量
+     * @return 该工单尚未写入的增量
+     */
+    public int add(String orderId, int increment) {
+        if (!enabled) {
+            write(Map.of(orderId, increment), applied -> { });
+            return 0;
+        }
+
+        Stripe stripe = stripeOf(orderId);
+        int merged;
+        synchronized (stripe) {
+            Integer previous = stripe.increments.get(orderId);
+            merged = (previous != null ? previous : 0) + increment;
+            stripe.increments.put(orderId, merged);
+            if (previous == null) {
+                pendingOrders.incrementAndGet();
+            }
+        }
+
+        // 待写工单数达到上限时由当前线程写入，已有线程在写入时跳过
+        if (pendingOrders.get() >= maxPendingOrders && flushLock.tryLock()) {
+            try {
+                doFlush();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 丢弃工单尚未写入的增量（工单产量被直接设置时调用）
+     * 先等待正在进行的写入提交，正在写入的增量无法撤回，调用方应在此之后再读取工单
+     *
+     * @param orderId 工单ID
+     * @return 丢弃的增量
+     */
+    public int discard(String orderId) {
+        flushLock.lock();
+        try {
+            Stripe stripe = stripeOf(orderId);
+            synchronized (stripe) {
+                Integer removed = stripe.increments.remove(orderId);
+                if (removed == null) {
+                    return 0;
+                }
+                pendingOrders.decrementAndGet();
+                return removed;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 按固定间隔写入缓冲的增量
+     */
+    @Scheduled(fixedDelayString = "${smartmes.workorder.progress-buffer.flush-interval-ms:500}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            doFlush();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 停机前写入剩余增量
+     * 在容器关闭开始时（销毁单例之前）执行，保证写入时发布的变更事件仍有监听器处理
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        flush();
+    }
+
+    private void doFlush() {
+        // 逐段取出增量，按工单号排序写入，避免与其他批量更新交叉加锁
+        Map<String, Integer> drained = new TreeMap<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                // 上次写入的增量均已提交或放回，不再需要按版本号叠加
+                stripe.inFlight.clear();
+                if (stripe.increments.isEmpty()) {
+                    continue;
+                }
+                // 在同一分段锁内先登记为正在写入再从分段移除
+                stripe.increments.forEach((orderId, increment) ->
+                        stripe.inFlight.put(orderId, new InFlight(increment, UNCOMMITTED)));
+                drained.putAll(stripe.increments);
+                pendingOrders.addAndGet(-stripe.increments.size());
+                stripe.increments = new HashMap<>();
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        AtomicBoolean committed = new AtomicBoolean();
+        try {
+            write(drained, applied -> {
+                committed.set(true);
+                settleCommitted(drained, applied);
+            });
+        } catch (RuntimeException e) {
+            if (committed.get()) {
+                log.error("工单进度增量已写入，提交后处理失败", e);
+            } else {
+                log.error("工单进度增量写入失败，{}个工单的增量放回缓冲", drained.size(), e);
+                requeue(drained);
+            }
+        }
+    }
+
+    /**
+     * 在一个事务内累加产量并发布批量变更事件
+     * 累加后重新读取工单，以累加后的产量减去增量作为变更前产量；
+     * 使用独立事务，调用方事务回滚不影响已合并的增量
+     *
+     * @param increments 工单ID -> 产量增量
+     * @param onCommit 事务提交后、其他提交后处理之前执行，参数为已累加的工单ID -> 累加后的版本号
+     */
+    private void write(Map<String, Integer> increments, Consumer<Map<String, Long>> onCommit) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+            List<String> updated = workOrderBatchRepository.batchAddProgress(increments, now);
+            if (updated.size() < increments.size()) {
+                Map<String, Integer> dropped = new TreeMap<>(increments);
+                dropped.keySet().removeAll(updated);
+                log.warn("{}个工单已不存在或不在进行中，其进度增量被丢弃: {}", dropped.size(), dropped);
+            }
+
+            List<WorkOrderChangedEvent> changes = new ArrayList<>(updated.size());
+            Map<String, Long> applied = new HashMap<>();
+            for (WorkOrder workOrder : workOrderRepository.findAllById(updated)) {
+                applied.put(workOrder.getId(), workOrder.getVersion());
+                int increment = increments.get(workOrder.getId());
+                int actualQty = workOrder.getActualQty() != null ? workOrder.getActualQty() : 0;
+                Snapshot previous = new Snapshot(workOrder.getProductCode(), workOrder.getLineId(),
+                        workOrder.getStatus(), workOrder.getPlanQty() != null ? workOrder.getPlanQty() : 0,
+                        actualQty - increment);
+                changes.add(WorkOrderChangedEvent.of(ChangeType.PROGRESS, previous, workOrder));
+            }
+
+            // 先于变更事件的监听器登记，提交后首先标记增量已写入
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    onCommit.accept(applied);
+                }
+            });
+            if (!changes.isEmpty()) {
+                eventPublisher.publishEvent(new WorkOrderBatchChangedEvent(changes));
+            }
+            log.debug("工单进度增量写入完成，{}个工单", updated.size());
+        });
+    }
+
+    /**
+     * 写入提交后记录各工单累加后的版本号，此后只对版本号更小的读取结果叠加；
+     * 工单已不在进行中而未累加的增量直接移除
+     */
+    private void settleCommitted(Map<String, Integer> drained, Map<String, Long> applied) {
+        drained.forEach((orderId, increment) -> {
+            Stripe stripe = stripeOf(orderId);
+            synchronized (stripe) {
+                Long version = applied.get(orderId);
+                if (version != null) {
+                    stripe.inFlight.put(orderId, new InFlight(increment, version));
+                } else {
+                    stripe.inFlight.remove(orderId);
+                }
+            }
+        });
+    }
+
+    /**
+     * 写入失败时把正在写入的增量放回分段
+     */
+    private void requeue(Map<String, Integer> drained) {
+        drained.forEach((orderId, increment) -> {
+            Stripe stripe = stripeOf(orderId);
+            synchronized (stripe) {
+                stripe.inFlight.remove(orderId);
+                if (stripe.increments.merge(orderId, increment, Integer::sum).equals(increment)) {
+                    pendingOrders.incrementAndGet();
+                }
+            }
+        });
+    }
+
+    private Stripe stripeOf(String orderId) {
+        return stripes[Math.floorMod(orderId.hashCode(), stripes.length)];
+    }
+
+    /**
+     * 单个分段，分段内的增量表只在持有分段锁时访问
+     */
+    private static final class Stripe {
+
+        private Map<String, Integer> increments = new HashMap<>();
+
+        /**
+         * 最近一次写入中从本分段取出的增量，与增量表在同一把锁内交接，读取时不会重复或遗漏
+         */
+        private final Map<String, InFlight> inFlight = new HashMap<>();
+    }
+
+    /**
+     * 正在写入或最近一次已写入的增量
+     *
+     * @param increment 产量增量
+     * @param appliedVersion 累加后的工单版本号，尚未提交时为 {@link #UNCOMMITTED}
+     */
+    private record InFlight(int increment, long appliedVersion) {
+    }
+}
@@ -0,0 +1,176 @@
+package com.smartmes.cache;
+
+import com.smartmes.entity.WorkOrder;
+import com.smartmes.entity.WorkOrder.WorkOrderStatus;
+import com.smartmes.event.WorkOrderChangedEvent;
+import com.smartmes.event.WorkOrderChangedEvent.ChangeType;
+import com.smartmes.repository.WorkOrderRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * 工单内存统计重建的变更记录
+ * 与停机记录的 {@link DowntimeRebuildLog} 相同：重建期间按工单ID保留最后一次提交后的状态（删除为null），
+ * 在同一可重复读事务内查询这些工单在快照中的状态，以“快照中的状态 -> 最后状态”修正重建结果；
+ * 重建完成时仍在提交中的工单，其提交后事件改为以“重建结果中的状态 -> 最后状态”计入。
+ * 只在持有所属统计对象的锁时访问
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+public final class WorkOrderRebuildLog {
+
+    /**
+     * 按ID批量查询快照状态时每批的ID数
+     */
+    private static final int QUERY_BATCH_SIZE = 1000;
+
+    /**
+     * 已进入提交、尚未收到提交后事件的工单ID -> 提交中的事务数
+     */
+    private final Map<String, Integer> committing = new HashMap<>();
+
+    /**
+     * 上次重建完成时仍在提交中的工单ID -> 重建结果中该工单的状态（不存在时为null）
+     */
+    private Map<String, State> deferred = new HashMap<>();
+
+    /**
+     * 重建期间提交的工单ID -> 最后状态，不在重建时为null
+     */
+    private Map<String, State> latest;
+
+    /**
+     * 工单所在事务提交前登记
+     *
+     * @param event 工单变更事件
+     */
+    public void beforeCommit(WorkOrderChangedEvent event) {
+        committing.merge(event.getOrderId(), 1, Integer::sum);
+    }
+
+    /**
+     * 工单所在事务回滚后注销
+     *
+     * @param event 工单变更事件
+     */
+    public void afterRollback(WorkOrderChangedEvent event) {
+        committing.computeIfPresent(event.getOrderId(), (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * 工单所在事务提交后登记变更
+     * 该工单在上次重建完成时仍在提交中时，把“重建结果中的状态 -> 最后状态”交给调用方替换，调用方不再按增量计入
+     *
+     * @param event 工单变更事件
+     * @param replace (重建结果中的状态，不存在时为null; 最后状态，已删除时为null)
+     * @return true-已交给调用方按状态替换，false-调用方按增量计入
+     */
+    public boolean afterCommit(WorkOrderChangedEvent event, BiConsumer<State, State> replace) {
+        String orderId = event.getOrderId();
+        committing.computeIfPresent(orderId, (key, count) -> count > 1 ? count - 1 : null);
+
+        State after = event.getChangeType() == ChangeType.DELETED ? null : State.of(event);
+        if (latest != null) {
+            latest.put(orderId, after);
+        }
+        if (!deferred.containsKey(orderId)) {
+            return false;
+        }
+        replace.accept(deferred.remove(orderId), after);
+        return true;
+    }
+
+    /**
+     * 开始重建，须在重建的首次读取之前调用
+     */
+    public void start() {
+        latest = new LinkedHashMap<>();
+    }
+
+    /**
+     * 完成重建，须在重建查询所在的事务内调用，之后以重建结果替换原有统计
+     * 逐条给出重建期间提交的变更在快照中的状态与最后状态，并登记仍在提交中的工单在重建结果中的状态
+     *
+     * @param workOrderRepository 工单Repository
+     * @param replay (快照中的状态，不存在时为null; 最后状态，已删除时为null)
+     */
+    public void finish(WorkOrderRepository workOrderRepository, BiConsumer<State, State> replay) {
+        Set<String> orderIds = new LinkedHashSet<>(latest.keySet());
+        orderIds.addAll(committing.keySet());
+        Map<String, State> seen = findByIds(workOrderRepository, orderIds);
+
+        latest.forEach((orderId, after) -> replay.accept(seen.get(orderId), after));
+
+        Map<String, State> rebuilt = new HashMap<>();
+        for (String orderId : committing.keySet()) {
+            rebuilt.put(orderId, latest.containsKey(orderId) ? latest.get(orderId) : seen.get(orderId));
+        }
+        deferred = rebuilt;
+        latest = null;
+    }
+
+    /**
+     * 放弃重建，原有统计保持不变
+     */
+    public void abort() {
+        latest = null;
+    }
+
+    /**
+     * 上次重建完成时是否有仍在提交中的工单
+     * 此时原有统计尚未计入这些提交，与重建结果的差异不代表偏差
+     */
+    public boolean hasDeferred() {
+        return !deferred.isEmpty();
+    }
+
+    /**
+     * 本次重建期间记录的变更数
+     */
+    public int size() {
+        return latest != null ? latest.size() : 0;
+    }
+
+    private static Map<String, State> findByIds(WorkOrderRepository workOrderRepository, Set<String> orderIds) {
+        Map<String, State> seen = new HashMap<>();
+        List<String> ids = new ArrayList<>(orderIds);
+        for (int from = 0; from < ids.size(); from += QUERY_BATCH_SIZE) {
+            for (WorkOrder workOrder : workOrderRepository.findAllById(
+                    ids.subList(from, Math.min(from + QUERY_BATCH_SIZE, ids.size())))) {
+                seen.put(workOrder.getId(), State.of(workOrder));
+            }
+        }
+        return seen;
+    }
+
+    /**
+     * 工单参与统计的状态
+     *
+     * @param createdAt 创建时间
+     * @param status 工单状态
+     * @param planQty 计划产量
+     * @param actualQty 实际产量
+     */
+    public record State(LocalDateTime createdAt, WorkOrderStatus status, int planQty, int actualQty) {
+
+        private static State of(WorkOrder workOrder) {
+            return new State(workOrder.getCreatedAt(), workOrder.getStatus(),
+                    workOrder.getPlanQty() != null ? workOrder.getPlanQty() : 0,
+                    workOrder.getActualQty() != null ? workOrder.getActualQty() : 0);
+        }
+
+        private static State of(WorkOrderChangedEvent event) {
+            return new State(event.getCreatedAt(), event.getCurrentStatus(),
+                    event.getCurrentPlanQty(), event.getCurrentActualQty());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.smartmes.common;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 游标分页（键集分页）的续页游标
+ * 记录上一页最后一条记录的排序时间与主键，下一页从该位置之后继续查询，
+ * 查询代价与页码无关；对外以不透明的字符串传递
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ * @param time 排序时间
+ * @param key 主键（同一时间内的次序）
+ */
+public record KeysetCursor(LocalDateTime time, String key) {
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * 编码为不透明的游标字符串
+     *
+     * @return 游标字符串
+     */
+    public String encode() {
+        String raw = time.toString() + SEPARATOR + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标字符串
+     *
+     * @param token 游标字符串
+     * @return 游标
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    public static KeysetCursor decode(String token) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+        try {
+            String raw = new String(bytes, StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
@@ -45,6 +45,16 @@ public class PageResult<T> implements Serializable {
      */
     private Integer totalPages;
 
+    /**
+     * 总记录数的统计方式（未统计总数时为null）
+     */
+    private TotalMode totalMode;
+
+    /**
+     * 下一页游标（游标分页时返回，没有下一页时为null）
+     */
+    private String nextCursor;
+
     /**
      * 构造分页结果
      *
@@ -59,6 +69,33 @@ public class PageResult<T> implements Serializable {
         this.pageNum = pageNum;
         this.pageSize = pageSize;
         this.totalPages = (int) Math.ceil((double) total / pageSize);
+        this.totalMode = TotalMode.EXACT;
+    }
+
+    /**
+     * 构造游标分页结果
+     * 游标分页没有页码；未统计总数时总记录数与总页数为null
+     *
+     * @param records 数据列表
+     * @param pageSize 每页记录数
+     * @param nextCursor 下一页游标
+     * @param total 总记录数（可选）
+     * @param totalMode 总记录数的统计方式（未统计总数时为null）
+     * @param <T> 数据类型
+     * @return 分页结果
+     */
+    public static <T> PageResult<T> ofCursor(List<T> records, Integer pageSize, String nextCursor,
+                                             Long total, TotalMode totalMode) {
+        PageResult<T> result = new PageResult<>();
+        result.setRecords(records);
+        result.setPageSize(pageSize);
+        result.setNextCursor(nextCursor);
+        if (total != null) {
+            result.setTotal(total);
+            result.setTotalPages((int) Math.ceil((double) total / pageSize));
+            result.setTotalMode(totalMode);
+        }
+        return result;
     }
 
     /**
@@ -70,7 +107,7 @@ public class PageResult<T> implements Serializable {
      * @return 空分页结果
      */
     public static <T> PageResult<T> empty(Integer pageNum, Integer pageSize) {
-        return new PageResult<>(List.of(), 0L, pageNum, pageSize, 0);
+        return new PageResult<>(List.of(), 0L, pageNum, pageSize, 0, TotalMode.EXACT, null);
     }
 
     /**
@@ -87,13 +124,31 @@ public class PageResult<T> implements Serializable {
         return new PageResult<>(records, total, pageNum, pageSize);
     }
 
+    /**
+     * 创建分页结果，并标明总记录数的统计方式
+     *
+     * @param records 数据列表
+     * @param total 总记录数
+     * @param pageNum 当前页码
+     * @param pageSize 每页记录数
+     * @param totalMode 总记录数的统计方式
+     * @param <T> 数据类型
+     * @return 分页结果
+     */
+    public static <T> PageResult<T> of(List<T> records, Long total, Integer pageNum, Integer pageSize,
+                                       TotalMode totalMode) {
+        PageResult<T> result = new PageResult<>(records, total, pageNum, pageSize);
+        result.setTotalMode(totalMode);
+        return result;
+    }
+
     /**
      * 判断是否有上一页
      *
      * @return true-有上一页，false-无上一页
      */
     public boolean hasPrevious() {
-        return this.pageNum > 1;
+        return this.pageNum != null && this.pageNum > 1;
     }
 
     /**
@@ -102,6 +157,9 @@ public class PageResult<T> implements Serializable {
      * @return true-有下一页，false-无下一页
      */
     public boolean hasNext() {
+        if (this.pageNum == null) {
+            return this.nextCursor != null;
+        }
         return this.pageNum < this.totalPages;
     }
 
@@ -111,7 +169,7 @@ public class PageResult<T> implements Serializable {
      * @return true-是第一页，false-不是第一页
      */
     public boolean isFirst() {
-        return this.pageNum == 1;
+        return this.pageNum != null && this.pageNum == 1;
     }
 
     /**
@@ -120,6 +178,9 @@ public class PageResult<T> implements Serializable {
      * @return true-是最后一页，false-不是最后一页
      */
     public boolean isLast() {
+        if (this.pageNum == null) {
+            return this.nextCursor == null;
+        }
         return this.pageNum.equals(this.totalPages);
     }
 }
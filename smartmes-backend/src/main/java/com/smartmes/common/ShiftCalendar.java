@@ -0,0 +1,71 @@
+package com.smartmes.common;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 班次日历
+ * 按配置的首班开始时间和班次时长划分班次，计算任意时间所属班次的起止时间
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Component
+public class ShiftCalendar {
+
+    /**
+     * 首班开始小时（0-23）
+     */
+    @Value("${smartmes.shift.start-hour:8}")
+    private int startHour;
+
+    /**
+     * 每班时长（小时），需能整除24
+     */
+    @Value("${smartmes.shift.hours:8}")
+    private int shiftHours;
+
+    @PostConstruct
+    public void validate() {
+        if (startHour < 0 || startHour > 23) {
+            throw new IllegalStateException("smartmes.shift.start-hour must be between 0 and 23: " + startHour);
+        }
+        if (shiftHours <= 0 || 24 % shiftHours != 0) {
+            throw new IllegalStateException("smartmes.shift.hours must divide 24: " + shiftHours);
+        }
+    }
+
+    /**
+     * 获取时间所属班次的开始时间
+     *
+     * @param time 时间
+     * @return 班次开始时间
+     */
+    public LocalDateTime shiftStart(LocalDateTime time) {
+        LocalDateTime shifted = time.minusHours(startHour);
+        return shifted.truncatedTo(ChronoUnit.DAYS)
+                .plusHours((long) (shifted.getHour() / shiftHours) * shiftHours)
+                .plusHours(startHour);
+    }
+
+    /**
+     * 获取时间所属班次的结束时间（不含）
+     *
+     * @param time 时间
+     * @return 班次结束时间
+     */
+    public LocalDateTime shiftEnd(LocalDateTime time) {
+        return shiftStart(time).plusHours(shiftHours);
+    }
+
+    /**
+     * 每班时长（小时）
+     */
+    public int getShiftHours() {
+        return shiftHours;
+    }
+}
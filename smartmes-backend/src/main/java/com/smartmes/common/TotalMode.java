@@ -0,0 +1,25 @@
+package com.smartmes.common;
+
+/**
+ * 分页总记录数的统计方式
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+public enum TotalMode {
+
+    /**
+     * 精确统计，每次执行COUNT查询
+     */
+    EXACT,
+
+    /**
+     * 相同查询条件的总数短时间内复用，数据变更后失效
+     */
+    CACHED,
+
+    /**
+     * 由表统计信息估算（仅无查询条件时可用）
+     */
+    ESTIMATED
+}
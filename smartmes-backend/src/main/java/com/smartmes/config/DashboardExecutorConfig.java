@@ -0,0 +1,53 @@
+package com.smartmes.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 看板线程池配置类
+ * 为完整看板数据的并行分段查询提供有界线程池，为看板推送的连接发送提供独立线程池
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Configuration
+public class DashboardExecutorConfig {
+
+    /**
+     * 看板分段查询线程池
+     * 线程数应小于数据库连接池大小，避免看板查询占满连接
+     */
+    @Bean
+    public ThreadPoolTaskExecutor dashboardExecutor(
+            @Value("${smartmes.dashboard.fan-out.pool-size:8}") int poolSize,
+            @Value("${smartmes.dashboard.fan-out.queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("dashboard-");
+        // 队列已满时直接拒绝，由调用方将该分段标记为失败
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 看板推送发送线程池
+     * 各连接的待发送事件由连接自身的队列限长，单个连接写阻塞只占用一个线程，不影响定时推送
+     */
+    @Bean
+    public ThreadPoolTaskExecutor dashboardStreamExecutor(
+            @Value("${smartmes.dashboard.stream.send-pool-size:4}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("dashboard-stream-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,36 @@
+package com.smartmes.config;
+
+import org.hibernate.Interceptor;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * JPA配置类
+ * 编号由调用方指定的实体实现 Persistable，由实体自身标明是否为新建；
+ * Hibernate 据此判断新建实例，不再查询二级缓存或数据库，编号重复由主键约束判定
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Configuration
+public class JpaConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer persistableInterceptorCustomizer() {
+        return properties -> properties.put(AvailableSettings.INTERCEPTOR, new PersistableInterceptor());
+    }
+
+    /**
+     * 按 Persistable.isNew() 判断实例是否为新建，其他实体沿用 Hibernate 的默认判断
+     */
+    static class PersistableInterceptor implements Interceptor {
+
+        @Override
+        public Boolean isTransient(Object entity) {
+            return entity instanceof Persistable<?> persistable ? persistable.isNew() : null;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.smartmes.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 定时任务配置类
+ * 开启内存统计对账等定时任务，线程池大小见 spring.task.scheduling.pool.size
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
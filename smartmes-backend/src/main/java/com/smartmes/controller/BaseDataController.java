@@ -1,6 +1,8 @@
 package com.smartmes.controller;
 
+import com.smartmes.cache.EntityCacheManager;
 import com.smartmes.dto.ApiResponse;
+import com.smartmes.dto.CacheStatistics;
 import com.smartmes.entity.Equipment;
 import com.smartmes.entity.Product;
 import com.smartmes.service.EquipmentService;
@@ -26,6 +28,7 @@ public class BaseDataController {
 
     private final EquipmentService equipmentService;
     private final ProductService productService;
+    private final EntityCacheManager entityCacheManager;
 
     // ==================== 设备管理 API ====================
 
@@ -258,4 +261,42 @@ public class BaseDataController {
             return ApiResponse.error("Failed to search products: " + e.getMessage());
         }
     }
+
+    // ==================== 主数据缓存 API ====================
+
+    /**
+     * 获取二级缓存命中统计
+     * GET /api/base-data/cache/stats
+     *
+     * @return 缓存统计
+     */
+    @GetMapping("/cache/stats")
+    public ApiResponse<CacheStatistics> getCacheStatistics() {
+        log.info("接收请求: 获取二级缓存统计");
+        try {
+            CacheStatistics statistics = entityCacheManager.getStatistics();
+            return ApiResponse.success(statistics);
+        } catch (Exception e) {
+            log.error("获取二级缓存统计失败", e);
+            return ApiResponse.error("Failed to get cache statistics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 清空二级缓存（直接修改数据库中的主数据后调用）
+     * DELETE /api/base-data/cache
+     *
+     * @return 操作结果
+     */
+    @DeleteMapping("/cache")
+    public ApiResponse<Void> evictCache() {
+        log.info("接收请求: 清空二级缓存");
+        try {
+            entityCacheManager.evictAll();
+            return ApiResponse.success("Cache evicted successfully", null);
+        } catch (Exception e) {
+            log.error("清空二级缓存失败", e);
+            return ApiResponse.error("Failed to evict cache: " + e.getMessage());
+        }
+    }
 }
@@ -1,14 +1,41 @@
 package com.smartmes.controller;
 
+import com.smartmes.cache.DashboardVersionTracker;
+import com.smartmes.cache.EquipmentDowntimeTracker.RankBy;
+import com.smartmes.cache.EquipmentDowntimeTracker.Window;
 import com.smartmes.dto.*;
+import com.smartmes.dto.DashboardData.SectionStatus;
 import com.smartmes.service.DashboardService;
+import com.smartmes.service.DashboardStreamService;
+import com.smartmes.service.OeeService;
+import com.smartmes.service.ProductionTrendService;
+import com.smartmes.service.ProductionTrendService.BucketSize;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static com.smartmes.dto.DashboardData.SECTION_DOWNTIME_STATISTICS;
+import static com.smartmes.dto.DashboardData.SECTION_EQUIPMENT_STATUS;
+import static com.smartmes.dto.DashboardData.SECTION_PRODUCTION_OVERVIEW;
+import static com.smartmes.dto.DashboardData.SECTION_WORK_ORDER_PROGRESS;
 
 /**
  * 数据看板控制器
  * 提供看板数据的REST API接口
+ * 所有查询接口均支持 If-None-Match 条件请求，数据版本未变化时返回304
  *
  * @author SmartMES Team
  * @version 1.0.0
@@ -20,94 +47,314 @@ import org.springframework.web.bind.annotation.*;
 public class DashboardController {
 
     private final DashboardService dashboardService;
+    private final DashboardStreamService dashboardStreamService;
+    private final DashboardVersionTracker dashboardVersionTracker;
+    private final ProductionTrendService productionTrendService;
+    private final OeeService oeeService;
 
     /**
      * 获取生产概览数据
      * GET /api/dashboard/overview
      *
+     * @param ifNoneMatch 客户端缓存的ETag
      * @return 生产概览数据
      */
     @GetMapping("/overview")
-    public ApiResponse<ProductionOverview> getProductionOverview() {
+    public ResponseEntity<ApiResponse<ProductionOverview>> getProductionOverview(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("接收请求: 获取生产概览数据");
-        try {
-            ProductionOverview overview = dashboardService.getProductionOverview();
-            return ApiResponse.success(overview);
-        } catch (Exception e) {
-            log.error("获取生产概览数据失败", e);
-            return ApiResponse.error("Failed to get production overview: " + e.getMessage());
-        }
+        String etag = dashboardVersionTracker.etag(SECTION_PRODUCTION_OVERVIEW);
+        return conditional(ifNoneMatch, etag, () -> {
+            try {
+                ProductionOverview overview = dashboardService.getProductionOverview();
+                return ApiResponse.success(overview);
+            } catch (Exception e) {
+                log.error("获取生产概览数据失败", e);
+                return ApiResponse.error("Failed to get production overview: " + e.getMessage());
+            }
+        });
     }
 
     /**
      * 获取异常统计数据
      * GET /api/dashboard/downtime-stats
      *
+     * @param ifNoneMatch 客户端缓存的ETag
      * @return 异常统计数据
      */
     @GetMapping("/downtime-stats")
-    public ApiResponse<DowntimeStatistics> getDowntimeStatistics() {
+    public ResponseEntity<ApiResponse<DowntimeStatistics>> getDowntimeStatistics(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("接收请求: 获取异常统计数据");
-        try {
-            DowntimeStatistics statistics = dashboardService.getDowntimeStatistics();
-            return ApiResponse.success(statistics);
-        } catch (Exception e) {
-            log.error("获取异常统计数据失败", e);
-            return ApiResponse.error("Failed to get downtime statistics: " + e.getMessage());
-        }
+        String etag = dashboardVersionTracker.etag(SECTION_DOWNTIME_STATISTICS);
+        return conditional(ifNoneMatch, etag, () -> {
+            try {
+                DowntimeStatistics statistics = dashboardService.getDowntimeStatistics();
+                return ApiResponse.success(statistics);
+            } catch (Exception e) {
+                log.error("获取异常统计数据失败", e);
+                return ApiResponse.error("Failed to get downtime statistics: " + e.getMessage());
+            }
+        });
     }
 
     /**
      * 获取工单进度数据
      * GET /api/dashboard/workorder-progress
      *
+     * @param ifNoneMatch 客户端缓存的ETag
      * @return 工单进度数据
      */
     @GetMapping("/workorder-progress")
-    public ApiResponse<WorkOrderProgress> getWorkOrderProgress() {
+    public ResponseEntity<ApiResponse<WorkOrderProgress>> getWorkOrderProgress(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("接收请求: 获取工单进度数据");
-        try {
-            WorkOrderProgress progress = dashboardService.getWorkOrderProgress();
-            return ApiResponse.success(progress);
-        } catch (Exception e) {
-            log.error("获取工单进度数据失败", e);
-            return ApiResponse.error("Failed to get work order progress: " + e.getMessage());
-        }
+        String etag = dashboardVersionTracker.etag(SECTION_WORK_ORDER_PROGRESS);
+        return conditional(ifNoneMatch, etag, () -> {
+            try {
+                WorkOrderProgress progress = dashboardService.getWorkOrderProgress();
+                return ApiResponse.success(progress);
+            } catch (Exception e) {
+                log.error("获取工单进度数据失败", e);
+                return ApiResponse.error("Failed to get work order progress: " + e.getMessage());
+            }
+        });
     }
 
     /**
      * 获取设备状态数据
      * GET /api/dashboard/equipment-status
      *
+     * @param ifNoneMatch 客户端缓存的ETag
      * @return 设备状态数据
      */
     @GetMapping("/equipment-status")
-    public ApiResponse<EquipmentStatusData> getEquipmentStatus() {
+    public ResponseEntity<ApiResponse<EquipmentStatusData>> getEquipmentStatus(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("接收请求: 获取设备状态数据");
-        try {
-            EquipmentStatusData statusData = dashboardService.getEquipmentStatus();
-            return ApiResponse.success(statusData);
-        } catch (Exception e) {
-            log.error("获取设备状态数据失败", e);
-            return ApiResponse.error("Failed to get equipment status: " + e.getMessage());
-        }
+        String etag = dashboardVersionTracker.etag(SECTION_EQUIPMENT_STATUS);
+        return conditional(ifNoneMatch, etag, () -> {
+            try {
+                EquipmentStatusData statusData = dashboardService.getEquipmentStatus();
+                return ApiResponse.success(statusData);
+            } catch (Exception e) {
+                log.error("获取设备状态数据失败", e);
+                return ApiResponse.error("Failed to get equipment status: " + e.getMessage());
+            }
+        });
     }
 
     /**
      * 获取完整看板数据
      * GET /api/dashboard/complete
+     * 存在超时或失败的分段时不返回ETag，避免客户端缓存不完整的数据
      *
+     * @param ifNoneMatch 客户端缓存的ETag
      * @return 完整看板数据
      */
     @GetMapping("/complete")
-    public ApiResponse<DashboardData> getCompleteDashboard() {
+    public ResponseEntity<ApiResponse<DashboardData>> getCompleteDashboard(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("接收请求: 获取完整看板数据");
+        String etag = dashboardVersionTracker.etag(SECTION_PRODUCTION_OVERVIEW, SECTION_DOWNTIME_STATISTICS,
+                SECTION_WORK_ORDER_PROGRESS, SECTION_EQUIPMENT_STATUS);
+        return conditional(ifNoneMatch, etag, () -> {
+            try {
+                DashboardData dashboardData = dashboardService.getCompleteDashboardData();
+                return ApiResponse.success(dashboardData);
+            } catch (Exception e) {
+                log.error("获取完整看板数据失败", e);
+                return ApiResponse.error("Failed to get complete dashboard data: " + e.getMessage());
+            }
+        }, data -> data.getSectionStatus() == null
+                || data.getSectionStatus().values().stream().allMatch(status -> status == SectionStatus.OK));
+    }
+
+    /**
+     * 获取生产趋势数据
+     * GET /api/dashboard/trends?bucket=HOUR&startTime=...&endTime=...&lineId=...
+     * 未指定开始时间时按时间桶大小取默认范围：小时-24小时，班次-7天，天-30天，周-12周
+     *
+     * @param bucket 时间桶大小（HOUR/SHIFT/DAY/WEEK）
+     * @param startTime 开始时间
+     * @param endTime 结束时间（默认当前时间）
+     * @param lineId 产线ID（可选）
+     * @return 生产趋势数据点
+     */
+    @GetMapping("/trends")
+    public ApiResponse<List<ProductionTrendPoint>> getProductionTrends(
+            @RequestParam(defaultValue = "HOUR") String bucket,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime,
+            @RequestParam(required = false) String lineId) {
+        log.info("接收请求: 获取生产趋势数据, bucket: {}", bucket);
+        try {
+            BucketSize bucketSize = BucketSize.valueOf(bucket.toUpperCase());
+            LocalDateTime end = endTime != null ? endTime : LocalDateTime.now();
+            LocalDateTime start = startTime != null ? startTime : switch (bucketSize) {
+                case HOUR -> end.minusHours(24);
+                case SHIFT -> end.minusDays(7);
+                case DAY -> end.minusDays(30);
+                case WEEK -> end.minusWeeks(12);
+            };
+            List<ProductionTrendPoint> trend = productionTrendService.getTrend(bucketSize, start, end, lineId);
+            return ApiResponse.success(trend);
+        } catch (IllegalArgumentException e) {
+            log.error("生产趋势查询参数错误: {}", e.getMessage());
+            return ApiResponse.error(400, e.getMessage());
+        } catch (Exception e) {
+            log.error("获取生产趋势数据失败", e);
+            return ApiResponse.error("Failed to get production trends: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 从工单与停机数据重建生产趋势汇总（历史数据回填）
+     * POST /api/dashboard/trends/rebuild?startDate=2024-01-01&endDate=2024-01-31
+     *
+     * @param startDate 开始日期
+     * @param endDate 结束日期
+     * @return 重建后的汇总行数
+     */
+    @PostMapping("/trends/rebuild")
+    public ApiResponse<Integer> rebuildProductionTrends(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate) {
+        log.info("接收请求: 重建生产趋势汇总, {} ~ {}", startDate, endDate);
+        try {
+            int rows = productionTrendService.rebuild(startDate, endDate);
+            return ApiResponse.success("Production trend rollup rebuilt successfully", rows);
+        } catch (IllegalArgumentException e) {
+            log.error("生产趋势重建参数错误: {}", e.getMessage());
+            return ApiResponse.error(400, e.getMessage());
+        } catch (Exception e) {
+            log.error("重建生产趋势汇总失败", e);
+            return ApiResponse.error("Failed to rebuild production trends: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取故障设备排行
+     * GET /api/dashboard/top-faulty-equipment?window=DAY&by=INCIDENTS&limit=5
+     * 排行由内存滑动窗口维护，不执行聚合查询
+     *
+     * @param window 统计窗口（HOUR/SHIFT/DAY/MONTH/ALL）
+     * @param by 排序依据（INCIDENTS/MINUTES）
+     * @param limit 返回数量（1-100）
+     * @return 故障设备排行
+     */
+    @GetMapping("/top-faulty-equipment")
+    public ApiResponse<List<DowntimeStatistics.EquipmentFaultDTO>> getTopFaultyEquipment(
+            @RequestParam(defaultValue = "DAY") String window,
+            @RequestParam(defaultValue = "INCIDENTS") String by,
+            @RequestParam(defaultValue = "5") int limit) {
+        log.info("接收请求: 获取故障设备排行, window: {}, by: {}, limit: {}", window, by, limit);
+        try {
+            if (limit < 1 || limit > 100) {
+                return ApiResponse.error(400, "Limit must be between 1 and 100");
+            }
+            List<DowntimeStatistics.EquipmentFaultDTO> ranking = dashboardService.getTopFaultyEquipment(
+                    Window.valueOf(window.toUpperCase()), RankBy.valueOf(by.toUpperCase()), limit);
+            if (ranking == null) {
+                return ApiResponse.error(503, "Downtime ranking is not available");
+            }
+            return ApiResponse.success(ranking);
+        } catch (IllegalArgumentException e) {
+            log.error("故障设备排行查询参数错误: {}", e.getMessage());
+            return ApiResponse.error(400, e.getMessage());
+        } catch (Exception e) {
+            log.error("获取故障设备排行失败", e);
+            return ApiResponse.error("Failed to get top faulty equipment: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取设备班次OEE
+     * GET /api/dashboard/oee?time=...&equipmentId=...
+     * 数据来自内存中的班次累加量，未指定时间时返回当前班次（计划时间为班次已过去的时间）
+     *
+     * @param time 班次内任一时间（默认当前时间）
+     * @param equipmentId 设备ID（可选）
+     * @return 各设备OEE
+     */
+    @GetMapping("/oee")
+    public ApiResponse<List<EquipmentOee>> getShiftOee(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime time,
+            @RequestParam(required = false) String equipmentId) {
+        log.info("接收请求: 获取设备班次OEE, time: {}, equipmentId: {}", time, equipmentId);
         try {
-            DashboardData dashboardData = dashboardService.getCompleteDashboardData();
-            return ApiResponse.success(dashboardData);
+            List<EquipmentOee> oee = oeeService.getShiftOee(time, equipmentId);
+            if (oee == null) {
+                return ApiResponse.error(503, "OEE is not available");
+            }
+            return ApiResponse.success(oee);
         } catch (Exception e) {
-            log.error("获取完整看板数据失败", e);
-            return ApiResponse.error("Failed to get complete dashboard data: " + e.getMessage());
+            log.error("获取设备班次OEE失败", e);
+            return ApiResponse.error("Failed to get OEE: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 订阅看板数据推送（Server-Sent Events）
+     * GET /api/dashboard/stream
+     * 连接后推送 snapshot 事件（完整看板数据），之后数据变化时推送 delta 事件（仅包含变化的分段）
+     *
+     * @return SSE连接
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDashboard() {
+        log.info("接收请求: 订阅看板数据推送");
+        return dashboardStreamService.subscribe();
+    }
+
+    private <T> ResponseEntity<ApiResponse<T>> conditional(String ifNoneMatch, String etag,
+                                                           Supplier<ApiResponse<T>> loader) {
+        return conditional(ifNoneMatch, etag, loader, data -> true);
+    }
+
+    /**
+     * 处理条件请求
+     * ETag在加载数据之前生成，加载期间提交的写操作会使下一次请求的ETag失配
+     *
+     * @param ifNoneMatch 客户端缓存的ETag
+     * @param etag 当前数据版本对应的ETag
+     * @param loader 数据加载逻辑
+     * @param cacheable 判断结果是否可缓存
+     * @return 304响应或带ETag的数据响应
+     */
+    private <T> ResponseEntity<ApiResponse<T>> conditional(String ifNoneMatch, String etag,
+                                                           Supplier<ApiResponse<T>> loader,
+                                                           Predicate<T> cacheable) {
+        if (etagMatches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+
+        ApiResponse<T> response = loader.get();
+        if (!Integer.valueOf(200).equals(response.getCode()) || !cacheable.test(response.getData())) {
+            return ResponseEntity.ok(response);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(response);
+    }
+
+    private boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag) || tag.equals("*")) {
+                return true;
+            }
         }
+        return false;
     }
 }
@@ -4,6 +4,7 @@ import com.smartmes.common.ApiResponse;
 import com.smartmes.common.PageResult;
 import com.smartmes.dto.*;
 import com.smartmes.entity.DowntimeReport;
+import com.smartmes.service.DowntimeIngestionService;
 import com.smartmes.service.DowntimeService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,6 +27,9 @@ public class DowntimeController {
     @Autowired
     private DowntimeService downtimeService;
 
+    @Autowired
+    private DowntimeIngestionService downtimeIngestionService;
+
     /**
      * Report downtime incident
      * POST /api/downtime/report
@@ -48,21 +52,66 @@ public class DowntimeController {
         }
     }
 
+    /**
+     * Ingest downtime reports asynchronously (automatic reporting by equipment controllers)
+     * POST /api/downtime/ingest
+     * 异步批量接入异常上报：受理后立即返回，由后台按批次写入；队列已满时返回429，调用方稍后重试
+     *
+     * @param request Downtime reports
+     * @return API response with the number of accepted reports
+     */
+    @PostMapping("/ingest")
+    public ApiResponse<Integer> ingest(@Valid @RequestBody DowntimeIngestRequest request) {
+        log.debug("API: Ingest {} downtime reports", request.getReports().size());
+
+        try {
+            if (!downtimeIngestionService.offer(request.getReports())) {
+                return ApiResponse.error(429, "Ingestion queue is full, retry later");
+            }
+            return ApiResponse.success("Downtime reports accepted", request.getReports().size());
+        } catch (Exception e) {
+            log.error("Failed to ingest downtime reports", e);
+            return ApiResponse.error("Failed to ingest reports: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get ingestion queue depth and batch write metrics
+     * GET /api/downtime/ingest/stats
+     * 获取异步接入队列深度与批量写入统计
+     *
+     * @return API response with ingestion statistics
+     */
+    @GetMapping("/ingest/stats")
+    public ApiResponse<DowntimeIngestionStats> getIngestionStats() {
+        log.info("API: Get downtime ingestion statistics");
+
+        try {
+            return ApiResponse.success(downtimeIngestionService.getStats());
+        } catch (Exception e) {
+            log.error("Failed to get downtime ingestion statistics", e);
+            return ApiResponse.error("Failed to get ingestion statistics: " + e.getMessage());
+        }
+    }
+
     /**
      * Query downtime reports with pagination and filters
      * GET /api/downtime/reports
-     * 查询异常停机列表
+     * GET /api/downtime/reports?cursor=&pageSize=20 (keyset pagination, pass nextCursor for the next page)
+     * 查询异常停机列表（传入cursor时使用游标分页，首页传空字符串）
      *
      * @param queryDTO Query parameters
      * @return API response with paginated reports
      */
     @GetMapping("/reports")
     public ApiResponse<PageResult<DowntimeReport>> queryReports(DowntimeQueryDTO queryDTO) {
-        log.info("API: Query downtime reports - Page: {}, Size: {}",
-                queryDTO.getPageNum(), queryDTO.getPageSize());
+        log.info("API: Query downtime reports - Page: {}, Size: {}, Cursor: {}",
+                queryDTO.getPageNum(), queryDTO.getPageSize(), queryDTO.getCursor());
 
         try {
-            PageResult<DowntimeReport> result = downtimeService.queryReports(queryDTO);
+            PageResult<DowntimeReport> result = queryDTO.getCursor() != null
+                    ? downtimeService.queryReportsByCursor(queryDTO)
+                    : downtimeService.queryReports(queryDTO);
             return ApiResponse.success(result);
         } catch (Exception e) {
             log.error("Failed to query downtime reports", e);
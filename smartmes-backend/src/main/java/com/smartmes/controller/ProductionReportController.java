@@ -0,0 +1,80 @@
+package com.smartmes.controller;
+
+import com.smartmes.common.Result;
+import com.smartmes.dto.DailyProductionStats;
+import com.smartmes.service.ProductionRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 生产报表控制器
+ * 历史生产统计从每日生产汇总表读取
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Slf4j
+@RestController
+@RequestMapping("/reports/production")
+@RequiredArgsConstructor
+public class ProductionReportController {
+
+    private final ProductionRollupService productionRollupService;
+
+    /**
+     * 查询每日生产统计
+     *
+     * @param startDate 开始日期
+     * @param endDate 结束日期
+     * @param lineId 产线ID（可选）
+     * @param productCode 产品编号（可选）
+     * @return 每日生产统计列表
+     */
+    @GetMapping("/daily")
+    public Result<List<DailyProductionStats>> getDailyStats(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @RequestParam(required = false) String lineId,
+            @RequestParam(required = false) String productCode) {
+        log.info("REST request to get daily production stats from {} to {}", startDate, endDate);
+        try {
+            List<DailyProductionStats> stats = productionRollupService.getDailyStats(startDate, endDate, lineId, productCode);
+            return Result.success(stats);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid daily production stats request: {}", e.getMessage());
+            return Result.error(400, e.getMessage());
+        } catch (Exception e) {
+            log.error("Failed to get daily production stats", e);
+            return Result.error("Failed to get daily production stats: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 从工单数据重建每日生产汇总（历史数据回填）
+     *
+     * @param startDate 开始日期
+     * @param endDate 结束日期
+     * @return 重建后的汇总行数
+     */
+    @PostMapping("/daily/rebuild")
+    public Result<Integer> rebuildDailyStats(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate) {
+        log.info("REST request to rebuild daily production rollup from {} to {}", startDate, endDate);
+        try {
+            int rows = productionRollupService.rebuild(startDate, endDate);
+            return Result.success("Daily production rollup rebuilt successfully", rows);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid rollup rebuild request: {}", e.getMessage());
+            return Result.error(400, e.getMessage());
+        } catch (Exception e) {
+            log.error("Failed to rebuild daily production rollup", e);
+            return Result.error("Failed to rebuild daily production rollup: " + e.getMessage());
+        }
+    }
+}
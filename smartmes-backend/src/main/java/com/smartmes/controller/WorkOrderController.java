@@ -2,22 +2,40 @@ package com.smartmes.controller;
 
 import com.smartmes.common.PageResult;
 import com.smartmes.common.Result;
+import com.smartmes.common.TotalMode;
+import com.smartmes.dto.BatchTransitionRequest;
+import com.smartmes.dto.BatchTransitionResult;
+import com.smartmes.dto.WorkOrderImportResult;
 import com.smartmes.entity.WorkOrder;
 import com.smartmes.entity.WorkOrder.WorkOrderStatus;
+import com.smartmes.service.WorkOrderExportService;
+import com.smartmes.service.WorkOrderExportService.ExportFormat;
+import com.smartmes.service.WorkOrderImportService;
+import com.smartmes.service.WorkOrderImportService.ImportFormat;
 import com.smartmes.service.WorkOrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * 工单管理控制器
@@ -31,7 +49,14 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class WorkOrderController {
 
+    /**
+     * 导出压缩缓冲区大小
+     */
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
     private final WorkOrderService workOrderService;
+    private final WorkOrderImportService workOrderImportService;
+    private final WorkOrderExportService workOrderExportService;
 
     /**
      * 创建工单
@@ -55,6 +80,108 @@ public class WorkOrderController {
         }
     }
 
+    /**
+     * 批量导入工单
+     * 请求体为CSV（text/csv，首行为表头）或NDJSON（application/x-ndjson，每行一个工单），
+     * 服务端逐行读取校验并按批写入，返回逐行的失败原因
+     *
+     * @param body 请求体
+     * @param contentType 请求体类型
+     * @param createdBy 行内未指定创建人时使用的创建人（可选）
+     * @return 导入结果
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public Result<WorkOrderImportResult> importWorkOrders(
+            InputStream body,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestParam(required = false) String createdBy) {
+        log.info("REST request to import work orders, content type: {}", contentType);
+        try {
+            ImportFormat format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.valueOf("text/csv"))
+                    ? ImportFormat.CSV : ImportFormat.NDJSON;
+            WorkOrderImportResult result = workOrderImportService.importWorkOrders(body, format, createdBy);
+            return Result.success("Imported " + result.getImportedRows() + " of " + result.getTotalRows()
+                    + " work orders", result);
+        } catch (IllegalArgumentException e) {
+            log.error("Failed to import work orders: {}", e.getMessage());
+            return Result.error(400, e.getMessage());
+        } catch (Exception e) {
+            log.error("Failed to import work orders", e);
+            return Result.error("Failed to import work orders: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 流式导出工单
+     * 筛选条件与条件查询一致，边查询边写出；客户端支持gzip时压缩传输；同时进行的导出数达到上限时返回429
+     *
+     * @param productCode 产品编号（可选）
+     * @param status 工单状态（可选）
+     * @param lineId 产线ID（可选）
+     * @param startTime 开始时间（可选）
+     * @param endTime 结束时间（可选）
+     * @param format 导出格式（csv/ndjson）
+     * @param acceptEncoding 客户端可接受的编码
+     * @return 导出文件流
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportWorkOrders(
+            @RequestParam(required = false) String productCode,
+            @RequestParam(required = false) WorkOrderStatus status,
+            @RequestParam(required = false) String lineId,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        log.info("REST request to export work orders - format: {}, productCode: {}, status: {}, lineId: {}",
+                 format, productCode, status, lineId);
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            log.error("Unsupported export format: {}", format);
+            return ResponseEntity.badRequest().build();
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+        if (!workOrderExportService.tryAcquireExport()) {
+            log.warn("Too many concurrent work order exports, rejecting request");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                if (gzip) {
+                    try (GZIPOutputStream gzipOut = new GZIPOutputStream(out, EXPORT_BUFFER_SIZE)) {
+                        workOrderExportService.exportWorkOrders(productCode, status, lineId, startTime, endTime,
+                                exportFormat, gzipOut);
+                    }
+                } else {
+                    workOrderExportService.exportWorkOrders(productCode, status, lineId, startTime, endTime,
+                            exportFormat, out);
+                }
+            } catch (IOException e) {
+                log.warn("Work order export aborted: {}", e.getMessage());
+                throw e;
+            } catch (Exception e) {
+                log.error("Failed to export work orders", e);
+                throw e;
+            } finally {
+                workOrderExportService.releaseExport();
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("work-orders." + exportFormat.getExtension()).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     /**
      * 查询工单详情
      *
@@ -104,6 +231,9 @@ public class WorkOrderController {
      * @param pageSize 每页记录数
      * @param sortBy 排序字段
      * @param sortDir 排序方向（ASC/DESC）
+     * @param cursor 游标（传入时使用游标分页，首页传空字符串；忽略pageNum）
+     * @param withTotal 游标分页时是否统计总记录数
+     * @param totalMode 总记录数的统计方式（EXACT/CACHED/ESTIMATED）
      * @return 工单分页列表
      */
     @GetMapping
@@ -111,14 +241,25 @@ public class WorkOrderController {
             @RequestParam(defaultValue = "1") Integer pageNum,
             @RequestParam(defaultValue = "10") Integer pageSize,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDir) {
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            @RequestParam(defaultValue = "EXACT") TotalMode totalMode) {
 
         log.info("REST request to list work orders - page: {}, size: {}", pageNum, pageSize);
         try {
             Sort.Direction direction = "ASC".equalsIgnoreCase(sortDir) ? Sort.Direction.ASC : Sort.Direction.DESC;
+            if (cursor != null) {
+                requireCreatedAtSort(sortBy);
+                return Result.success(workOrderService.searchWorkOrdersByCursor(
+                        null, null, null, null, null, cursor, pageSize, direction, withTotal ? totalMode : null));
+            }
             Pageable pageable = PageRequest.of(pageNum - 1, pageSize, Sort.by(direction, sortBy));
-            PageResult<WorkOrder> result = workOrderService.listWorkOrders(pageable);
+            PageResult<WorkOrder> result = workOrderService.listWorkOrders(pageable, totalMode);
             return Result.success(result);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid work order list request: {}", e.getMessage());
+            return Result.error(400, e.getMessage());
         } catch (Exception e) {
             log.error("Failed to list work orders", e);
             return Result.error("Failed to list work orders: " + e.getMessage());
@@ -137,6 +278,9 @@ public class WorkOrderController {
      * @param pageSize 每页记录数
      * @param sortBy 排序字段
      * @param sortDir 排序方向
+     * @param cursor 游标（传入时使用游标分页，首页传空字符串；忽略pageNum）
+     * @param withTotal 游标分页时是否统计总记录数
+     * @param totalMode 总记录数的统计方式（EXACT/CACHED/ESTIMATED）
      * @return 工单分页列表
      */
     @GetMapping("/search")
@@ -149,16 +293,28 @@ public class WorkOrderController {
             @RequestParam(defaultValue = "1") Integer pageNum,
             @RequestParam(defaultValue = "10") Integer pageSize,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDir) {
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            @RequestParam(defaultValue = "EXACT") TotalMode totalMode) {
 
         log.info("REST request to search work orders - productCode: {}, status: {}, lineId: {}",
                  productCode, status, lineId);
         try {
             Sort.Direction direction = "ASC".equalsIgnoreCase(sortDir) ? Sort.Direction.ASC : Sort.Direction.DESC;
+            if (cursor != null) {
+                requireCreatedAtSort(sortBy);
+                return Result.success(workOrderService.searchWorkOrdersByCursor(
+                        productCode, status, lineId, startTime, endTime, cursor, pageSize, direction,
+                        withTotal ? totalMode : null));
+            }
             Pageable pageable = PageRequest.of(pageNum - 1, pageSize, Sort.by(direction, sortBy));
             PageResult<WorkOrder> result = workOrderService.searchWorkOrders(
-                    productCode, status, lineId, startTime, endTime, pageable);
+                    productCode, status, lineId, startTime, endTime, pageable, totalMode);
             return Result.success(result);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid work order search request: {}", e.getMessage());
+            return Result.error(400, e.getMessage());
         } catch (Exception e) {
             log.error("Failed to search work orders", e);
             return Result.error("Failed to search work orders: " + e.getMessage());
@@ -181,6 +337,9 @@ public class WorkOrderController {
         } catch (IllegalArgumentException e) {
             log.error("Work order not found: {}", id);
             return Result.error(404, e.getMessage());
+        } catch (IllegalStateException | OptimisticLockingFailureException e) {
+            log.error("Work order update conflict: {}", e.getMessage());
+            return Result.error(409, e.getMessage());
         } catch (Exception e) {
             log.error("Failed to update work order", e);
             return Result.error("Failed to update work order: " + e.getMessage());
@@ -309,6 +468,27 @@ public class WorkOrderController {
         }
     }
 
+    /**
+     * 批量流转工单状态
+     * 不满足流转条件的工单逐个返回拒绝原因，其余工单正常流转
+     *
+     * @param request 批量流转请求（orderIds、transition）
+     * @return 流转结果
+     */
+    @PostMapping("/batch/transition")
+    public Result<BatchTransitionResult> transitionWorkOrders(@Valid @RequestBody BatchTransitionRequest request) {
+        log.info("REST request to batch {} {} work orders", request.getTransition(), request.getOrderIds().size());
+        try {
+            BatchTransitionResult result = workOrderService.transitionWorkOrders(
+                    request.getOrderIds(), request.getTransition());
+            return Result.success("Moved " + result.getMoved().size() + " of "
+                    + (result.getMoved().size() + result.getRejected().size()) + " work orders", result);
+        } catch (Exception e) {
+            log.error("Failed to batch transition work orders", e);
+            return Result.error("Failed to batch transition work orders: " + e.getMessage());
+        }
+    }
+
     /**
      * 更新工单进度
      *
@@ -335,6 +515,36 @@ public class WorkOrderController {
         }
     }
 
+    /**
+     * 累加工单产量增量
+     * 增量合并后批量写入，返回该工单尚未写入的增量
+     *
+     * @param id 工单ID
+     * @param request 增量请求参数（increment）
+     * @return 尚未写入的增量
+     */
+    @PutMapping("/{id}/progress/increment")
+    public Result<Integer> addProgress(@PathVariable String id, @RequestBody Map<String, Integer> request) {
+        log.debug("REST request to add work order progress: {}", id);
+        Integer increment = request.get("increment");
+        if (increment == null || increment <= 0) {
+            return Result.error(400, "Increment must be a positive integer");
+        }
+        try {
+            int pending = workOrderService.addProgress(id, increment);
+            return Result.success("Work order progress accepted", pending);
+        } catch (IllegalArgumentException e) {
+            log.error("Work order not found: {}", id);
+            return Result.error(404, e.getMessage());
+        } catch (IllegalStateException e) {
+            log.error("Cannot add work order progress: {}", e.getMessage());
+            return Result.error(400, e.getMessage());
+        } catch (Exception e) {
+            log.error("Failed to add work order progress", e);
+            return Result.error("Failed to add work order progress: " + e.getMessage());
+        }
+    }
+
     /**
      * 统计指定状态的工单数量
      *
@@ -388,4 +598,13 @@ public class WorkOrderController {
             return Result.error("Failed to check work order number existence: " + e.getMessage());
         }
     }
+
+    /**
+     * 游标分页固定按创建时间（及工单号）排序
+     */
+    private void requireCreatedAtSort(String sortBy) {
+        if (!"createdAt".equals(sortBy)) {
+            throw new IllegalArgumentException("Cursor pagination only supports sortBy=createdAt");
+        }
+    }
 }
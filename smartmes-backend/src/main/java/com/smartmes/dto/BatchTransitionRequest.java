@@ -0,0 +1,34 @@
+package com.smartmes.dto;
+
+import com.smartmes.service.WorkOrderService.Transition;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 工单批量状态流转请求DTO
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+public class BatchTransitionRequest {
+
+    /**
+     * 工单ID列表（重复的ID只处理一次）
+     */
+    @NotEmpty(message = "Order IDs are required")
+    @Size(max = 1000, message = "At most 1000 orders per request")
+    private List<String> orderIds;
+
+    /**
+     * 状态流转（START/COMPLETE/CANCEL/ABNORMAL）
+     */
+    @NotNull(message = "Transition is required")
+    private Transition transition;
+}
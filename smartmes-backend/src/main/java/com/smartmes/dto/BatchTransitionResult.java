@@ -0,0 +1,60 @@
+package com.smartmes.dto;
+
+import com.smartmes.entity.WorkOrder.WorkOrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 工单批量状态流转结果DTO
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransitionResult {
+
+    /**
+     * 流转后的状态
+     */
+    private WorkOrderStatus targetStatus;
+
+    /**
+     * 已流转的工单ID
+     */
+    private List<String> moved = new ArrayList<>();
+
+    /**
+     * 被拒绝的工单及原因
+     */
+    private List<Rejection> rejected = new ArrayList<>();
+
+    /**
+     * 被拒绝的工单
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Rejection {
+
+        /**
+         * 工单ID
+         */
+        private String orderId;
+
+        /**
+         * 当前状态（工单不存在时为null）
+         */
+        private WorkOrderStatus currentStatus;
+
+        /**
+         * 拒绝原因
+         */
+        private String reason;
+    }
+}
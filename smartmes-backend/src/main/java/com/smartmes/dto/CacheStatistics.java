@@ -0,0 +1,97 @@
+package com.smartmes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 二级缓存统计DTO
+ * 用于展示主数据实体缓存与查询缓存的命中情况
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheStatistics {
+
+    /**
+     * 实体缓存命中次数
+     */
+    private Long hitCount;
+
+    /**
+     * 实体缓存未命中次数
+     */
+    private Long missCount;
+
+    /**
+     * 实体缓存写入次数
+     */
+    private Long putCount;
+
+    /**
+     * 查询缓存命中次数
+     */
+    private Long queryHitCount;
+
+    /**
+     * 查询缓存未命中次数
+     */
+    private Long queryMissCount;
+
+    /**
+     * 查询缓存写入次数
+     */
+    private Long queryPutCount;
+
+    /**
+     * 各缓存区域统计
+     */
+    private List<RegionStatistics> regions;
+
+    /**
+     * 缓存区域统计DTO
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class RegionStatistics {
+
+        /**
+         * 区域名称
+         */
+        private String regionName;
+
+        /**
+         * 命中次数
+         */
+        private Long hitCount;
+
+        /**
+         * 未命中次数
+         */
+        private Long missCount;
+
+        /**
+         * 写入次数
+         */
+        private Long putCount;
+
+        /**
+         * 命中率（%），无访问时为0
+         */
+        private Double hitRate;
+
+        /**
+         * 堆内条目数（缓存实现不提供时为空）
+         */
+        private Long elementCountInMemory;
+    }
+}
@@ -0,0 +1,62 @@
+package com.smartmes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * 每日生产统计DTO
+ * 用于历史生产报表，数据来自每日生产汇总表
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyProductionStats {
+
+    /**
+     * 生产日期
+     */
+    private LocalDate productionDate;
+
+    /**
+     * 工单总数
+     */
+    private Long totalOrders;
+
+    /**
+     * 已完成工单数
+     */
+    private Long completedOrders;
+
+    /**
+     * 进行中工单数
+     */
+    private Long inProgressOrders;
+
+    /**
+     * 异常工单数
+     */
+    private Long abnormalOrders;
+
+    /**
+     * 计划产量合计
+     */
+    private Long totalPlanQty;
+
+    /**
+     * 实际产量合计
+     */
+    private Long totalActualQty;
+
+    /**
+     * 整体完成率（百分比，保留一位小数）
+     */
+    private Double overallCompletionRate;
+}
@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 /**
  * 数据看板整体数据DTO
  * 用于封装整个看板页面的所有数据
@@ -16,6 +18,26 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class DashboardData {
 
+    /**
+     * 分段名称：生产概览
+     */
+    public static final String SECTION_PRODUCTION_OVERVIEW = "productionOverview";
+
+    /**
+     * 分段名称：异常统计
+     */
+    public static final String SECTION_DOWNTIME_STATISTICS = "downtimeStatistics";
+
+    /**
+     * 分段名称：工单进度
+     */
+    public static final String SECTION_WORK_ORDER_PROGRESS = "workOrderProgress";
+
+    /**
+     * 分段名称：设备状态
+     */
+    public static final String SECTION_EQUIPMENT_STATUS = "equipmentStatus";
+
     /**
      * 生产概览数据
      */
@@ -35,4 +57,20 @@ public class DashboardData {
      * 设备状态数据
      */
     private EquipmentStatusData equipmentStatus;
+
+    /**
+     * 各分段数据状态
+     * Key: 分段名称（productionOverview/downtimeStatistics/workOrderProgress/equipmentStatus）
+     * Value: 分段状态
+     */
+    private Map<String, SectionStatus> sectionStatus;
+
+    /**
+     * 分段数据状态枚举
+     */
+    public enum SectionStatus {
+        OK,      // 本次查询成功
+        STALE,   // 本次查询超时或失败，返回上一次成功的数据
+        FAILED   // 本次查询超时或失败，且无可用的历史数据
+    }
 }
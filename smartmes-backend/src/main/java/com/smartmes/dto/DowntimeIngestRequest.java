@@ -0,0 +1,27 @@
+package com.smartmes.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Downtime Ingest Request
+ * Batch of automatically reported downtime incidents
+ * 异常停机批量接入请求
+ */
+@Data
+@NoArgsConstructor
+public class DowntimeIngestRequest {
+    /**
+     * Downtime reports
+     * 异常上报列表
+     */
+    @Valid
+    @NotEmpty(message = "Reports are required")
+    @Size(max = 1000, message = "At most 1000 reports per request")
+    private List<DowntimeReportDTO> reports;
+}
@@ -0,0 +1,95 @@
+package com.smartmes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Downtime Ingestion Statistics
+ * Queue depth and batch write metrics of the asynchronous ingestion pipeline
+ * 异常停机异步接入队列深度与批量写入统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DowntimeIngestionStats {
+    /**
+     * Whether asynchronous ingestion is enabled
+     * 是否启用异步接入
+     */
+    private Boolean enabled;
+
+    /**
+     * Reports accepted but not yet written (queued and in-flight)
+     * 已受理尚未写入的记录数（含正在写入的批次）
+     */
+    private Integer queueDepth;
+
+    /**
+     * Queue capacity
+     * 队列容量
+     */
+    private Integer queueCapacity;
+
+    /**
+     * Reports accepted since startup
+     * 启动以来受理的记录数
+     */
+    private Long acceptedCount;
+
+    /**
+     * Reports rejected because the queue was full
+     * 因队列已满被拒绝的记录数
+     */
+    private Long rejectedCount;
+
+    /**
+     * Reports written to the database
+     * 已写入的记录数
+     */
+    private Long writtenCount;
+
+    /**
+     * Reports that could not be written
+     * 写入失败的记录数
+     */
+    private Long failedCount;
+
+    /**
+     * Number of batches written
+     * 已写入批次数
+     */
+    private Long batchCount;
+
+    /**
+     * Size of the last batch
+     * 最近一批记录数
+     */
+    private Integer lastBatchSize;
+
+    /**
+     * Write latency of the last batch in milliseconds
+     * 最近一批写入耗时（毫秒）
+     */
+    private Long lastFlushMillis;
+
+    /**
+     * Average batch write latency in milliseconds
+     * 平均每批写入耗时（毫秒）
+     */
+    private Double avgFlushMillis;
+
+    /**
+     * Maximum batch write latency in milliseconds
+     * 最大每批写入耗时（毫秒）
+     */
+    private Long maxFlushMillis;
+
+    /**
+     * Time from acceptance to commit of the oldest report in the last batch, in milliseconds
+     * 最近一批中最早受理的记录从受理到提交的耗时（毫秒）
+     */
+    private Long lastQueueLatencyMillis;
+}
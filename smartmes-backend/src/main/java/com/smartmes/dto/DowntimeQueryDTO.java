@@ -1,24 +1,47 @@
 package com.smartmes.dto;
 
+import com.smartmes.common.TotalMode;
 import com.smartmes.enums.DowntimeStatus;
 import com.smartmes.enums.DowntimeType;
+import com.smartmes.common.KeysetCursor;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
 
 /**
  * Downtime Query DTO
  * Data transfer object for querying downtime reports with filters
  * 异常停机查询数据传输对象
+ *
+ * All start-time filters are folded into one half-open range on the raw
+ * start_time column, so the composite (filter, start_time) indexes apply.
+ * 所有开始时间条件合并为 start_time 原始列上的一个左闭右开区间，可使用 (筛选列, start_time) 组合索引
  */
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class DowntimeQueryDTO {
+
+    /**
+     * Sortable fields and their columns
+     * 可排序字段及对应列
+     */
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "createdAt", "created_at",
+            "startTime", "start_time",
+            "durationMinutes", "duration_minutes",
+            "reportId", "report_id");
+
     /**
      * Order ID filter
      * 工单号筛选
@@ -47,14 +70,30 @@ public class DowntimeQueryDTO {
      * Start time range - from
      * 开始时间范围-起始
      */
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime startTimeFrom;
 
     /**
      * Start time range - to
      * 开始时间范围-结束
      */
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime startTimeTo;
 
+    /**
+     * Start date range - from (inclusive)
+     * 开始日期范围-起始（含当天）
+     */
+    @DateTimeFormat(pattern = "yyyy-MM-dd")
+    private LocalDate startDate;
+
+    /**
+     * Start date range - to (inclusive)
+     * 开始日期范围-结束（含当天）
+     */
+    @DateTimeFormat(pattern = "yyyy-MM-dd")
+    private LocalDate endDate;
+
     /**
      * Reporter ID filter
      * 上报人筛选
@@ -84,4 +123,97 @@ public class DowntimeQueryDTO {
      * 排序方向（默认降序）
      */
     private String sortOrder = "DESC";
+
+    /**
+     * Total count mode (default: EXACT)
+     * 总记录数统计方式（默认精确统计）
+     */
+    @Builder.Default
+    private TotalMode totalMode = TotalMode.EXACT;
+
+    /**
+     * Keyset cursor; when present (empty for the first page) pages by (start_time DESC, report_id DESC)
+     * and ignores pageNum/sortBy/sortOrder
+     * 游标（传入时使用游标分页，首页传空字符串），按 (start_time DESC, report_id DESC) 翻页，忽略页码与排序参数
+     */
+    private String cursor;
+
+    /**
+     * Whether to count the total in cursor mode (default: false)
+     * 游标分页时是否统计总记录数（默认不统计）
+     */
+    @Builder.Default
+    private Boolean withTotal = false;
+
+    /**
+     * Start time of the last row of the previous page, set from the decoded cursor
+     * 上一页最后一条的开始时间（由解析后的游标设置，不从请求参数绑定）
+     */
+    @Setter(AccessLevel.NONE)
+    private LocalDateTime seekStartTime;
+
+    /**
+     * Report ID of the last row of the previous page, set from the decoded cursor
+     * 上一页最后一条的记录ID（由解析后的游标设置，不从请求参数绑定）
+     */
+    @Setter(AccessLevel.NONE)
+    private Long seekReportId;
+
+    /**
+     * Lower bound of start_time (inclusive): the later of startTimeFrom and the start of startDate
+     * 开始时间下界（含）：startTimeFrom 与 startDate 零点中较晚者，均未指定时为null
+     */
+    public LocalDateTime getStartTimeLowerBound() {
+        LocalDateTime fromDate = startDate != null ? startDate.atStartOfDay() : null;
+        if (startTimeFrom == null || fromDate == null) {
+            return startTimeFrom != null ? startTimeFrom : fromDate;
+        }
+        return startTimeFrom.isAfter(fromDate) ? startTimeFrom : fromDate;
+    }
+
+    /**
+     * Upper bound of start_time (exclusive): the earlier of the second after startTimeTo
+     * (start_time is stored to the second) and the start of the day after endDate
+     * 开始时间上界（不含）：startTimeTo 的下一秒（start_time 精确到秒）与 endDate 次日零点中较早者，均未指定时为null
+     */
+    public LocalDateTime getStartTimeUpperBound() {
+        LocalDateTime toTime = startTimeTo != null ? startTimeTo.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1) : null;
+        LocalDateTime toDate = endDate != null ? endDate.plusDays(1).atStartOfDay() : null;
+        if (toTime == null || toDate == null) {
+            return toTime != null ? toTime : toDate;
+        }
+        return toTime.isBefore(toDate) ? toTime : toDate;
+    }
+
+    /**
+     * Continue after the given cursor position
+     * 从游标位置之后继续查询
+     *
+     * @param after Decoded cursor (key is the report ID)
+     * @throws IllegalArgumentException if the cursor key is not a report ID
+     */
+    public void seekAfter(KeysetCursor after) {
+        try {
+            this.seekReportId = Long.valueOf(after.key());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+        this.seekStartTime = after.time();
+    }
+
+    /**
+     * Column for the requested sort field, null if the field is not sortable
+     * 排序字段对应的列，不支持的字段返回null
+     */
+    public String getSortColumn() {
+        return sortBy == null || sortBy.isEmpty() ? SORT_COLUMNS.get("createdAt") : SORT_COLUMNS.get(sortBy);
+    }
+
+    /**
+     * Sort direction, DESC unless ASC is requested
+     * 排序方向，未指定为ASC时降序
+     */
+    public String getSortDirection() {
+        return "ASC".equalsIgnoreCase(sortOrder) ? "ASC" : "DESC";
+    }
 }
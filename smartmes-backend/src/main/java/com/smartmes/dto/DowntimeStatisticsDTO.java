@@ -1,5 +1,7 @@
 package com.smartmes.dto;
 
+import com.smartmes.enums.DowntimeStatus;
+import com.smartmes.enums.DowntimeType;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -94,4 +96,37 @@ public class DowntimeStatisticsDTO {
          */
         private Long totalDurationMinutes;
     }
+
+    /**
+     * Report totals per status and type
+     * 按状态、类型分组的异常数量与停机时长
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StatusTypeTotals {
+        /**
+         * Status
+         * 状态
+         */
+        private DowntimeStatus status;
+
+        /**
+         * Downtime type
+         * 异常类型
+         */
+        private DowntimeType downtimeType;
+
+        /**
+         * Number of reports
+         * 异常数量
+         */
+        private Long reportCount;
+
+        /**
+         * Total duration in minutes
+         * 总停机时长（分钟）
+         */
+        private Long totalDurationMinutes;
+    }
 }
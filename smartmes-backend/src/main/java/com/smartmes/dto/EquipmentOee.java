@@ -0,0 +1,87 @@
+package com.smartmes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 设备班次OEE（设备综合效率）DTO
+ * OEE = 时间开动率 × 性能开动率 × 合格品率；计划时间为0时各比率为null
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EquipmentOee {
+
+    /**
+     * 设备ID
+     */
+    private String equipmentId;
+
+    /**
+     * 班次开始时间
+     */
+    private LocalDateTime shiftStart;
+
+    /**
+     * 班次结束时间（不含）
+     */
+    private LocalDateTime shiftEnd;
+
+    /**
+     * 计划时间（分钟），当前班次为已过去的时间
+     */
+    private Double plannedMinutes;
+
+    /**
+     * 停机时间（分钟）
+     */
+    private Double downtimeMinutes;
+
+    /**
+     * 开动时间（分钟）= 计划时间 - 停机时间
+     */
+    private Double runMinutes;
+
+    /**
+     * 理论加工时间（分钟）= 产量 × 标准工时
+     */
+    private Long idealMinutes;
+
+    /**
+     * 总产量
+     */
+    private Long totalQty;
+
+    /**
+     * 合格品数量
+     */
+    private Long goodQty;
+
+    /**
+     * 时间开动率 = 开动时间 / 计划时间
+     */
+    private Double availability;
+
+    /**
+     * 性能开动率 = 理论加工时间 / 开动时间
+     */
+    private Double performance;
+
+    /**
+     * 合格品率 = 合格品数量 / 总产量
+     */
+    private Double quality;
+
+    /**
+     * 设备综合效率
+     */
+    private Double oee;
+}
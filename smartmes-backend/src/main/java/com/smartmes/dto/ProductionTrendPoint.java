@@ -0,0 +1,52 @@
+package com.smartmes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 生产趋势数据点DTO
+ * 表示一个时间桶（小时/班次/天/周）内的计划与实际产量、完工数和停机时长
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductionTrendPoint {
+
+    /**
+     * 时间桶开始时间
+     */
+    private LocalDateTime bucketStart;
+
+    /**
+     * 时间桶结束时间（不含）
+     */
+    private LocalDateTime bucketEnd;
+
+    /**
+     * 计划产量
+     */
+    private Long planQty;
+
+    /**
+     * 实际产量
+     */
+    private Long actualQty;
+
+    /**
+     * 完工工单数
+     */
+    private Long completedOrders;
+
+    /**
+     * 停机时长（分钟）
+     */
+    private Long downtimeMinutes;
+}
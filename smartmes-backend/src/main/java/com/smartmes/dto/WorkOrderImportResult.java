@@ -0,0 +1,75 @@
+package com.smartmes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 工单批量导入结果DTO
+ * 汇总导入行数与成功/失败数量，并逐行列出失败原因（超过上限的错误只计数不列出）
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkOrderImportResult {
+
+    /**
+     * 数据行总数（不含表头和空行）
+     */
+    private long totalRows;
+
+    /**
+     * 导入成功行数
+     */
+    private long importedRows;
+
+    /**
+     * 导入失败行数
+     */
+    private long failedRows;
+
+    /**
+     * 失败行明细
+     */
+    private List<RowError> errors = new ArrayList<>();
+
+    /**
+     * 失败行明细是否因超过上限被截断
+     */
+    private boolean errorsTruncated;
+
+    /**
+     * 导入耗时（毫秒）
+     */
+    private long elapsedMs;
+
+    /**
+     * 失败行明细
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+
+        /**
+         * 行号（从1开始，CSV含表头行）
+         */
+        private long line;
+
+        /**
+         * 工单号（无法解析时为null）
+         */
+        private String orderId;
+
+        /**
+         * 失败原因
+         */
+        private String message;
+    }
+}
@@ -0,0 +1,131 @@
+package com.smartmes.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 每日生产汇总实体类
+ * 按 日期 + 产线 + 产品 预聚合的工单统计，由工单变更增量维护，
+ * 替代按日期分组扫描全部工单的 v_daily_production_stats 视图
+ * 注意：字段与数据库表 daily_production_rollup 完全匹配
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Entity
+@Table(name = "daily_production_rollup")
+@IdClass(DailyProductionRollup.RollupKey.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyProductionRollup {
+
+    /**
+     * 未分配产线的工单使用的产线ID（主键列不允许为NULL）
+     */
+    public static final String UNASSIGNED_LINE = "";
+
+    /**
+     * 生产日期（工单创建日期）
+     */
+    @Id
+    @Column(name = "production_date", nullable = false)
+    private LocalDate productionDate;
+
+    /**
+     * 产线ID
+     */
+    @Id
+    @Column(name = "line_id", nullable = false, length = 50)
+    private String lineId;
+
+    /**
+     * 产品编号
+     */
+    @Id
+    @Column(name = "product_code", nullable = false, length = 50)
+    private String productCode;
+
+    /**
+     * 工单总数
+     */
+    @Column(name = "total_orders", nullable = false)
+    private Integer totalOrders;
+
+    /**
+     * 待开始工单数
+     */
+    @Column(name = "pending_orders", nullable = false)
+    private Integer pendingOrders;
+
+    /**
+     * 进行中工单数
+     */
+    @Column(name = "in_progress_orders", nullable = false)
+    private Integer inProgressOrders;
+
+    /**
+     * 已完成工单数
+     */
+    @Column(name = "completed_orders", nullable = false)
+    private Integer completedOrders;
+
+    /**
+     * 异常工单数
+     */
+    @Column(name = "abnormal_orders", nullable = false)
+    private Integer abnormalOrders;
+
+    /**
+     * 已取消工单数
+     */
+    @Column(name = "cancelled_orders", nullable = false)
+    private Integer cancelledOrders;
+
+    /**
+     * 已关闭工单数
+     */
+    @Column(name = "closed_orders", nullable = false)
+    private Integer closedOrders;
+
+    /**
+     * 计划产量合计
+     */
+    @Column(name = "total_plan_qty", nullable = false)
+    private Long totalPlanQty;
+
+    /**
+     * 实际产量合计
+     */
+    @Column(name = "total_actual_qty", nullable = false)
+    private Long totalActualQty;
+
+    /**
+     * 更新时间
+     */
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    /**
+     * 复合主键
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RollupKey implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private LocalDate productionDate;
+
+        private String lineId;
+
+        private String productCode;
+    }
+}
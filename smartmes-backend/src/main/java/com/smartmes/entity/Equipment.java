@@ -1,25 +1,36 @@
 package com.smartmes.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDateTime;
 
 /**
  * 设备实体类
  * 用于管理生产设备的基本信息和状态
+ * 读多写少的主数据，启用 Hibernate 二级缓存（读写策略，更新/删除提交时失效）
+ * 编号由调用方指定，未经加载的实例按新建处理，保存时直接插入而不先查询
  *
  * @author SmartMES Team
  * @version 1.0.0
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "equipment")
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
-public class Equipment {
+public class Equipment implements Persistable<String> {
 
     /**
      * 设备编号（主键）
@@ -103,6 +114,57 @@ public class Equipment {
         FAULT         // 故障
     }
 
+    /**
+     * 是否为新建实体（未从数据库加载且尚未插入）
+     */
+    @Transient
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean newEntity = true;
+
+    /**
+     * 全字段构造（不含新建标识，构造的实例按新建处理）
+     */
+    public Equipment(String equipmentId, String equipmentName, String equipmentType, String lineId,
+                     EquipmentStatus status, LocalDateTime lastMaintenanceTime, LocalDateTime nextMaintenanceTime,
+                     String location, LocalDateTime createTime, LocalDateTime updateTime, String remarks) {
+        this.equipmentId = equipmentId;
+        this.equipmentName = equipmentName;
+        this.equipmentType = equipmentType;
+        this.lineId = lineId;
+        this.status = status;
+        this.lastMaintenanceTime = lastMaintenanceTime;
+        this.nextMaintenanceTime = nextMaintenanceTime;
+        this.location = location;
+        this.createTime = createTime;
+        this.updateTime = updateTime;
+        this.remarks = remarks;
+    }
+
+    @Override
+    @JsonIgnore
+    public String getId() {
+        return equipmentId;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    /**
+     * 加载或插入后不再按新建处理
+     */
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        newEntity = false;
+    }
+
     /**
      * 创建时自动设置时间
      */
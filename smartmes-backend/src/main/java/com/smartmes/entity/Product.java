@@ -1,25 +1,36 @@
 package com.smartmes.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDateTime;
 
 /**
  * 产品实体类
  * 用于管理产品的基本信息
+ * 读多写少的主数据，启用 Hibernate 二级缓存（读写策略，更新/删除提交时失效）
+ * 编号由调用方指定，未经加载的实例按新建处理，保存时直接插入而不先查询
  *
  * @author SmartMES Team
  * @version 1.0.0
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "product")
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
-public class Product {
+public class Product implements Persistable<String> {
 
     /**
      * 产品编号（主键）
@@ -90,6 +101,56 @@ public class Product {
         INACTIVE   // 停用
     }
 
+    /**
+     * 是否为新建实体（未从数据库加载且尚未插入）
+     */
+    @Transient
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean newEntity = true;
+
+    /**
+     * 全字段构造（不含新建标识，构造的实例按新建处理）
+     */
+    public Product(String productCode, String productName, String productType, Integer standardWorkTime,
+                   LocalDateTime createTime, LocalDateTime updateTime, String specification, String unit,
+                   ProductStatus status, String remarks) {
+        this.productCode = productCode;
+        this.productName = productName;
+        this.productType = productType;
+        this.standardWorkTime = standardWorkTime;
+        this.createTime = createTime;
+        this.updateTime = updateTime;
+        this.specification = specification;
+        this.unit = unit;
+        this.status = status;
+        this.remarks = remarks;
+    }
+
+    @Override
+    @JsonIgnore
+    public String getId() {
+        return productCode;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    /**
+     * 加载或插入后不再按新建处理
+     */
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        newEntity = false;
+    }
+
     /**
      * 创建时自动设置时间
      */
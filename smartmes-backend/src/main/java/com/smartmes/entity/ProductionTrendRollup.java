@@ -0,0 +1,104 @@
+package com.smartmes.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 生产趋势汇总实体类
+ * 按 粒度（小时/天）+ 时间桶 + 产线 预聚合的产量、完工数和停机时长，
+ * 由工单和停机变更增量维护，趋势查询只读取汇总行
+ * 注意：字段与数据库表 production_trend_rollup 完全匹配
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Entity
+@Table(name = "production_trend_rollup")
+@IdClass(ProductionTrendRollup.TrendKey.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductionTrendRollup {
+
+    /**
+     * 汇总粒度：HOUR-小时，DAY-天
+     */
+    @Id
+    @Column(name = "granularity", nullable = false, length = 10)
+    @Enumerated(EnumType.STRING)
+    private Granularity granularity;
+
+    /**
+     * 时间桶开始时间
+     */
+    @Id
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    /**
+     * 产线ID（未分配产线为空字符串）
+     */
+    @Id
+    @Column(name = "line_id", nullable = false, length = 50)
+    private String lineId;
+
+    /**
+     * 计划产量（按工单创建时间归桶）
+     */
+    @Column(name = "plan_qty", nullable = false)
+    private Long planQty;
+
+    /**
+     * 实际产量（按报工时间归桶）
+     */
+    @Column(name = "actual_qty", nullable = false)
+    private Long actualQty;
+
+    /**
+     * 完工工单数（按完工时间归桶）
+     */
+    @Column(name = "completed_orders", nullable = false)
+    private Integer completedOrders;
+
+    /**
+     * 停机时长（分钟，按停机开始时间归桶）
+     */
+    @Column(name = "downtime_minutes", nullable = false)
+    private Long downtimeMinutes;
+
+    /**
+     * 更新时间
+     */
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    /**
+     * 汇总粒度枚举
+     */
+    public enum Granularity {
+        HOUR,   // 小时
+        DAY     // 天
+    }
+
+    /**
+     * 复合主键
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TrendKey implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Granularity granularity;
+
+        private LocalDateTime bucketStart;
+
+        private String lineId;
+    }
+}
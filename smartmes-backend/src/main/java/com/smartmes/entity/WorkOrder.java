@@ -108,6 +108,13 @@ public class WorkOrder {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    /**
+     * 乐观锁版本号，每次更新加1
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     /**
      * 完成率 (actualQty / planQty) - 非持久化字段
      */
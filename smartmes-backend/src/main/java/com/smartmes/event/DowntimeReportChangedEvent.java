@@ -0,0 +1,82 @@
+package com.smartmes.event;
+
+import com.smartmes.entity.DowntimeReport;
+import com.smartmes.enums.DowntimeStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Downtime Report Changed Event
+ * Published by the downtime service when a report is created, responded to, resolved or deleted
+ * 异常停机变更事件
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DowntimeReportChangedEvent {
+    /**
+     * Change type
+     * 变更类型
+     */
+    private ChangeType changeType;
+
+    /**
+     * Status before the change (null when reported)
+     * 变更前状态（上报时为null）
+     */
+    private DowntimeStatus previousStatus;
+
+    /**
+     * Duration in minutes before the change
+     * 变更前停机时长（分钟）
+     */
+    private Integer previousDurationMinutes;
+
+    /**
+     * Report state after the change (state before deletion when deleted)
+     * 变更后的异常记录（删除时为删除前的记录）
+     */
+    private DowntimeReport report;
+
+    /**
+     * Change Type Enum
+     * 变更类型枚举
+     */
+    public enum ChangeType {
+        REPORTED,   // 上报
+        RESPONDED,  // 响应
+        RESOLVED,   // 解决
+        DELETED     // 删除
+    }
+
+    /**
+     * Build a change event
+     * 构建异常停机变更事件
+     *
+     * @param changeType Change type
+     * @param previousStatus Status before the change
+     * @param previousDurationMinutes Duration before the change
+     * @param report Report state after the change
+     * @return Change event
+     */
+    public static DowntimeReportChangedEvent of(ChangeType changeType, DowntimeStatus previousStatus,
+                                                Integer previousDurationMinutes, DowntimeReport report) {
+        return DowntimeReportChangedEvent.builder()
+                .changeType(changeType)
+                .previousStatus(previousStatus)
+                .previousDurationMinutes(previousDurationMinutes)
+                .report(report)
+                .build();
+    }
+
+    /**
+     * Status after the change (null when deleted)
+     * 变更后状态（删除时为null）
+     */
+    public DowntimeStatus getCurrentStatus() {
+        return changeType == ChangeType.DELETED ? null : report.getStatus();
+    }
+}
@@ -0,0 +1,81 @@
+package com.smartmes.event;
+
+import com.smartmes.entity.Equipment;
+import com.smartmes.entity.Equipment.EquipmentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 设备变更事件
+ * 由设备服务在设备新增、修改、删除时发布，供看板等内存统计在事务提交后做增量更新
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EquipmentChangedEvent {
+
+    /**
+     * 变更类型
+     */
+    private ChangeType changeType;
+
+    /**
+     * 设备编号
+     */
+    private String equipmentId;
+
+    /**
+     * 变更前状态（新增时为null）
+     */
+    private EquipmentStatus previousStatus;
+
+    /**
+     * 变更后状态（删除时为null）
+     */
+    private EquipmentStatus currentStatus;
+
+    /**
+     * 变更后的设备信息（删除时为删除前的设备信息）
+     */
+    private Equipment equipment;
+
+    /**
+     * 变更类型枚举
+     */
+    public enum ChangeType {
+        CREATED,  // 新增
+        UPDATED,  // 修改
+        DELETED   // 删除
+    }
+
+    /**
+     * 状态是否发生变化
+     */
+    public boolean isStatusChanged() {
+        return previousStatus != currentStatus;
+    }
+
+    /**
+     * 构建设备变更事件
+     *
+     * @param changeType 变更类型
+     * @param previousStatus 变更前状态
+     * @param equipment 变更后的设备信息
+     * @return 设备变更事件
+     */
+    public static EquipmentChangedEvent of(ChangeType changeType, EquipmentStatus previousStatus, Equipment equipment) {
+        return EquipmentChangedEvent.builder()
+                .changeType(changeType)
+                .equipmentId(equipment.getEquipmentId())
+                .previousStatus(previousStatus)
+                .currentStatus(changeType == ChangeType.DELETED ? null : equipment.getStatus())
+                .equipment(equipment)
+                .build();
+    }
+}
@@ -0,0 +1,26 @@
+package com.smartmes.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 工单批量变更事件
+ * 批量导入等操作在一个事务内变更多张工单时发布一次，代替逐张发布 {@link WorkOrderChangedEvent}，
+ * 汇总表等监听方可将同一批次的增量合并后一次写入
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkOrderBatchChangedEvent {
+
+    /**
+     * 批次内各工单的变更
+     */
+    private List<WorkOrderChangedEvent> changes;
+}
@@ -0,0 +1,194 @@
+package com.smartmes.event;
+
+import com.smartmes.entity.WorkOrder;
+import com.smartmes.entity.WorkOrder.WorkOrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 工单变更事件
+ * 由工单服务在状态流转或数据变更时发布，携带变更前后的状态与产量，
+ * 供看板等内存统计在事务提交后做增量更新
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkOrderChangedEvent {
+
+    /**
+     * 变更类型
+     */
+    private ChangeType changeType;
+
+    /**
+     * 工单号
+     */
+    private String orderId;
+
+    /**
+     * 产品编号
+     */
+    private String productCode;
+
+    /**
+     * 产线ID
+     */
+    private String lineId;
+
+    /**
+     * 变更前产品编号（新建时为null）
+     */
+    private String previousProductCode;
+
+    /**
+     * 变更前产线ID（新建时为null）
+     */
+    private String previousLineId;
+
+    /**
+     * 设备ID
+     */
+    private String equipmentId;
+
+    /**
+     * 工单创建时间（用于判断所属统计日期）
+     */
+    private LocalDateTime createdAt;
+
+    /**
+     * 变更前状态（新建时为null）
+     */
+    private WorkOrderStatus previousStatus;
+
+    /**
+     * 变更后状态（删除时为null）
+     */
+    private WorkOrderStatus currentStatus;
+
+    /**
+     * 变更前计划产量（新建时为0）
+     */
+    private int previousPlanQty;
+
+    /**
+     * 变更后计划产量（删除时为0）
+     */
+    private int currentPlanQty;
+
+    /**
+     * 变更前实际产量（新建时为0）
+     */
+    private int previousActualQty;
+
+    /**
+     * 变更后实际产量（删除时为0）
+     */
+    private int currentActualQty;
+
+    /**
+     * 工单开始时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 工单结束时间
+     */
+    private LocalDateTime endTime;
+
+    /**
+     * 变更类型枚举
+     */
+    public enum ChangeType {
+        CREATED,    // 新建
+        UPDATED,    // 修改基本信息
+        DELETED,    // 删除
+        STARTED,    // 开始
+        COMPLETED,  // 完成
+        CANCELLED,  // 取消
+        ABNORMAL,   // 标记异常
+        PROGRESS    // 更新进度
+    }
+
+    /**
+     * 计划产量变化量
+     */
+    public int getPlanQtyDelta() {
+        return currentPlanQty - previousPlanQty;
+    }
+
+    /**
+     * 实际产量变化量
+     */
+    public int getActualQtyDelta() {
+        return currentActualQty - previousActualQty;
+    }
+
+    /**
+     * 状态是否发生变化
+     */
+    public boolean isStatusChanged() {
+        return previousStatus != currentStatus;
+    }
+
+    /**
+     * 根据变更前的状态快照和变更后的工单构建事件
+     *
+     * @param changeType 变更类型
+     * @param previous 变更前的状态快照（新建时为null）
+     * @param current 变更后的工单（删除时传入删除前的工单）
+     * @return 工单变更事件
+     */
+    public static WorkOrderChangedEvent of(ChangeType changeType, Snapshot previous, WorkOrder current) {
+        boolean deleted = changeType == ChangeType.DELETED;
+        return WorkOrderChangedEvent.builder()
+                .changeType(changeType)
+                .orderId(current.getId())
+                .productCode(current.getProductCode())
+                .lineId(current.getLineId())
+                .previousProductCode(previous != null ? previous.productCode() : null)
+                .previousLineId(previous != null ? previous.lineId() : null)
+                .equipmentId(current.getEquipmentId())
+                .createdAt(current.getCreatedAt())
+                .previousStatus(previous != null ? previous.status() : null)
+                .currentStatus(deleted ? null : current.getStatus())
+                .previousPlanQty(previous != null ? previous.planQty() : 0)
+                .currentPlanQty(deleted ? 0 : nullToZero(current.getPlanQty()))
+                .previousActualQty(previous != null ? previous.actualQty() : 0)
+                .currentActualQty(deleted ? 0 : nullToZero(current.getActualQty()))
+                .startTime(current.getStartTime())
+                .endTime(current.getEndTime())
+                .build();
+    }
+
+    private static int nullToZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    /**
+     * 工单变更前的状态快照
+     *
+     * @param productCode 产品编号
+     * @param lineId 产线ID
+     * @param status 状态
+     * @param planQty 计划产量
+     * @param actualQty 实际产量
+     */
+    public record Snapshot(String productCode, String lineId, WorkOrderStatus status, int planQty, int actualQty) {
+
+        /**
+         * 记录工单当前的归属、状态与产量
+         */
+        public static Snapshot of(WorkOrder workOrder) {
+            return new Snapshot(workOrder.getProductCode(), workOrder.getLineId(), workOrder.getStatus(),
+                    nullToZero(workOrder.getPlanQty()), nullToZero(workOrder.getActualQty()));
+        }
+    }
+}
@@ -8,6 +8,8 @@ import com.smartmes.enums.DowntimeType;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -45,6 +47,15 @@ public interface DowntimeMapper {
      */
     DowntimeReport findById(@Param("reportId") Long reportId);
 
+    /**
+     * Find downtime reports by IDs (missing IDs are skipped)
+     * 根据ID批量查询异常停机记录，不存在的ID不返回
+     *
+     * @param reportIds Report IDs (non-empty)
+     * @return List of downtime reports
+     */
+    List<DowntimeReport> findByIds(@Param("reportIds") Collection<Long> reportIds);
+
     /**
      * Query downtime reports with filters
      * 条件查询异常停机列表
@@ -54,6 +65,15 @@ public interface DowntimeMapper {
      */
     List<DowntimeReport> findByConditions(DowntimeQueryDTO queryDTO);
 
+    /**
+     * Query one page of downtime reports after the cursor position (pageSize + 1 rows)
+     * 游标分页查询异常停机列表：按 (start_time DESC, report_id DESC) 从游标位置之后多取一条
+     *
+     * @param queryDTO Query parameters with seek position
+     * @return List of downtime reports
+     */
+    List<DowntimeReport> findByCursor(DowntimeQueryDTO queryDTO);
+
     /**
      * Count downtime reports with filters
      * 条件查询异常停机总数
@@ -64,14 +84,17 @@ public interface DowntimeMapper {
     Long countByConditions(DowntimeQueryDTO queryDTO);
 
     /**
-     * Update status
-     * 更新状态
+     * Update status if the report is still in the expected status
+     * 按原状态条件更新状态，状态已被并发修改时不更新
      *
      * @param reportId Report ID
+     * @param expectedStatus Status the report must currently have
      * @param status New status
      * @return Number of affected rows
      */
-    int updateStatus(@Param("reportId") Long reportId, @Param("status") DowntimeStatus status);
+    int updateStatus(@Param("reportId") Long reportId,
+                     @Param("expectedStatus") DowntimeStatus expectedStatus,
+                     @Param("status") DowntimeStatus status);
 
     /**
      * Update responder
@@ -84,13 +107,15 @@ public interface DowntimeMapper {
     int updateResponder(@Param("reportId") Long reportId, @Param("responderId") String responderId);
 
     /**
-     * Update resolution
-     * 更新解决信息
+     * Update resolution if the report is still in the expected status
+     * 按原状态条件更新解决信息，状态已被并发修改时不更新
      *
      * @param report Downtime report with resolution info
+     * @param expectedStatus Status the report must currently have
      * @return Number of affected rows
      */
-    int updateResolution(DowntimeReport report);
+    int updateResolution(@Param("report") DowntimeReport report,
+                         @Param("expectedStatus") DowntimeStatus expectedStatus);
 
     /**
      * Count total reports
@@ -144,11 +169,58 @@ public interface DowntimeMapper {
     List<DowntimeStatisticsDTO.EquipmentDowntimeStats> getTopEquipmentByDuration(@Param("limit") Integer limit);
 
     /**
-     * Delete downtime report
-     * 删除异常停机记录
+     * Get top equipment by incident count among reports started in [from, to)
+     * 获取指定时间段内开始的异常中故障次数TOP设备（次数相同按停机时长、设备ID排序）
+     *
+     * @param from Start time lower bound (inclusive)
+     * @param to Start time upper bound (exclusive)
+     * @param limit Limit
+     * @return List of equipment stats
+     */
+    List<DowntimeStatisticsDTO.EquipmentDowntimeStats> getTopEquipmentStartedBetween(@Param("from") LocalDateTime from,
+                                                                                     @Param("to") LocalDateTime to,
+                                                                                     @Param("limit") Integer limit);
+
+    /**
+     * Find reports started since the given time (equipment, start time and duration only)
+     * 查询指定时间之后开始的异常记录（仅设备、开始时间、时长、状态），用于初始化内存统计
+     *
+     * @param since Start time lower bound (inclusive)
+     * @return List of downtime reports
+     */
+    List<DowntimeReport> findStartedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Find unresolved reports regardless of start time (equipment, start time and status only)
+     * 查询所有未解决的异常记录（仅设备、开始时间、状态），用于初始化内存统计中仍在停机的设备
+     *
+     * @return List of downtime reports
+     */
+    List<DowntimeReport> findUnresolved();
+
+    /**
+     * Sum incidents and duration per equipment over all reports
+     * 按设备汇总全部异常次数与停机时长，用于初始化内存统计
+     *
+     * @return List of equipment stats
+     */
+    List<DowntimeStatisticsDTO.EquipmentDowntimeStats> sumByEquipment();
+
+    /**
+     * Count reports and sum duration per status and type in one scan
+     * 按状态、类型一次汇总异常数量与停机时长，用于初始化和对账内存统计
+     *
+     * @return List of status/type totals
+     */
+    List<DowntimeStatisticsDTO.StatusTypeTotals> summarizeByStatusAndType();
+
+    /**
+     * Delete downtime report if it is still in the expected status
+     * 按原状态条件删除异常停机记录，状态已被并发修改时不删除
      *
      * @param reportId Report ID
+     * @param expectedStatus Status the report must currently have
      * @return Number of affected rows
      */
-    int delete(@Param("reportId") Long reportId);
+    int delete(@Param("reportId") Long reportId, @Param("expectedStatus") DowntimeStatus expectedStatus);
 }
@@ -0,0 +1,185 @@
+package com.smartmes.repository;
+
+import com.smartmes.entity.DailyProductionRollup;
+import com.smartmes.entity.DailyProductionRollup.RollupKey;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 每日生产汇总数据访问层接口
+ * 增量累加使用 INSERT ... ON DUPLICATE KEY UPDATE，由数据库保证并发累加的原子性
+ * 原生写语句声明所写的表，Hibernate 只使该表相关的查询缓存失效，不清空全部二级缓存区域
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Repository
+public interface DailyProductionRollupRepository extends JpaRepository<DailyProductionRollup, RollupKey> {
+
+    /**
+     * 将增量累加到指定日期、产线、产品的汇总行，行不存在时插入
+     * @param productionDate 生产日期
+     * @param lineId 产线ID
+     * @param productCode 产品编号
+     * @param totalOrders 工单总数增量
+     * @param pendingOrders 待开始工单数增量
+     * @param inProgressOrders 进行中工单数增量
+     * @param completedOrders 已完成工单数增量
+     * @param abnormalOrders 异常工单数增量
+     * @param cancelledOrders 已取消工单数增量
+     * @param closedOrders 已关闭工单数增量
+     * @param planQty 计划产量增量
+     * @param actualQty 实际产量增量
+     * @return 影响行数
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "daily_production_rollup"))
+    @Query(value = "INSERT INTO daily_production_rollup (production_date, line_id, product_code, total_orders, " +
+           "pending_orders, in_progress_orders, completed_orders, abnormal_orders, cancelled_orders, closed_orders, " +
+           "total_plan_qty, total_actual_qty, updated_at) " +
+           "VALUES (:productionDate, :lineId, :productCode, :totalOrders, :pendingOrders, :inProgressOrders, " +
+           ":completedOrders, :abnormalOrders, :cancelledOrders, :closedOrders, :planQty, :actualQty, NOW()) " +
+           "ON DUPLICATE KEY UPDATE " +
+           "total_orders = total_orders + VALUES(total_orders), " +
+           "pending_orders = pending_orders + VALUES(pending_orders), " +
+           "in_progress_orders = in_progress_orders + VALUES(in_progress_orders), " +
+           "completed_orders = completed_orders + VALUES(completed_orders), " +
+           "abnormal_orders = abnormal_orders + VALUES(abnormal_orders), " +
+           "cancelled_orders = cancelled_orders + VALUES(cancelled_orders), " +
+           "closed_orders = closed_orders + VALUES(closed_orders), " +
+           "total_plan_qty = total_plan_qty + VALUES(total_plan_qty), " +
+           "total_actual_qty = total_actual_qty + VALUES(total_actual_qty), " +
+           "updated_at = VALUES(updated_at)",
+           nativeQuery = true)
+    int accumulate(@Param("productionDate") LocalDate productionDate,
+                   @Param("lineId") String lineId,
+                   @Param("productCode") String productCode,
+                   @Param("totalOrders") int totalOrders,
+                   @Param("pendingOrders") int pendingOrders,
+                   @Param("inProgressOrders") int inProgressOrders,
+                   @Param("completedOrders") int completedOrders,
+                   @Param("abnormalOrders") int abnormalOrders,
+                   @Param("cancelledOrders") int cancelledOrders,
+                   @Param("closedOrders") int closedOrders,
+                   @Param("planQty") long planQty,
+                   @Param("actualQty") long actualQty);
+
+    /**
+     * 删除日期范围内的汇总行
+     * @param startDate 开始日期（含）
+     * @param endDate 结束日期（含）
+     * @return 删除行数
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "daily_production_rollup"))
+    @Query(value = "DELETE FROM daily_production_rollup WHERE production_date >= :startDate AND production_date <= :endDate",
+           nativeQuery = true)
+    int deleteByDateRange(@Param("startDate") LocalDate startDate,
+                          @Param("endDate") LocalDate endDate);
+
+    /**
+     * 从工单表重新聚合时间范围内的汇总行
+     * 按 created_at 范围过滤以利用 idx_created_at 索引，调用前需先删除同一范围的汇总行
+     * @param startTime 开始时间（含）
+     * @param endTime 结束时间（不含）
+     * @return 插入行数
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "daily_production_rollup"))
+    @Query(value = "INSERT INTO daily_production_rollup (production_date, line_id, product_code, total_orders, " +
+           "pending_orders, in_progress_orders, completed_orders, abnormal_orders, cancelled_orders, closed_orders, " +
+           "total_plan_qty, total_actual_qty, updated_at) " +
+           "SELECT CAST(w.created_at AS DATE), COALESCE(w.line_id, ''), w.product_code, COUNT(*), " +
+           "SUM(CASE WHEN w.status = 'PENDING' THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN w.status = 'IN_PROGRESS' THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN w.status = 'COMPLETED' THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN w.status = 'ABNORMAL' THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN w.status = 'CANCELLED' THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN w.status = 'CLOSED' THEN 1 ELSE 0 END), " +
+           "COALESCE(SUM(w.plan_qty), 0), COALESCE(SUM(w.actual_qty), 0), NOW() " +
+           "FROM work_order w WHERE w.created_at >= :startTime AND w.created_at < :endTime " +
+           "GROUP BY CAST(w.created_at AS DATE), COALESCE(w.line_id, ''), w.product_code",
+           nativeQuery = true)
+    int rebuildFromWorkOrders(@Param("startTime") LocalDateTime startTime,
+                              @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 按日期汇总日期范围内的生产统计，可按产线、产品过滤
+     * @param startDate 开始日期（含）
+     * @param endDate 结束日期（含）
+     * @param lineId 产线ID（为null时不过滤）
+     * @param productCode 产品编号（为null时不过滤）
+     * @return 每日统计列表（按日期升序）
+     */
+    @Query("SELECT r.productionDate AS productionDate, " +
+           "SUM(r.totalOrders) AS totalOrders, " +
+           "SUM(r.completedOrders) AS completedOrders, " +
+           "SUM(r.inProgressOrders) AS inProgressOrders, " +
+           "SUM(r.abnormalOrders) AS abnormalOrders, " +
+           "SUM(r.totalPlanQty) AS totalPlanQty, " +
+           "SUM(r.totalActualQty) AS totalActualQty " +
+           "FROM DailyProductionRollup r " +
+           "WHERE r.productionDate >= :startDate AND r.productionDate <= :endDate " +
+           "AND (:lineId IS NULL OR r.lineId = :lineId) " +
+           "AND (:productCode IS NULL OR r.productCode = :productCode) " +
+           "GROUP BY r.productionDate ORDER BY r.productionDate")
+    List<DailyTotals> summarizeByDate(@Param("startDate") LocalDate startDate,
+                                      @Param("endDate") LocalDate endDate,
+                                      @Param("lineId") String lineId,
+                                      @Param("productCode") String productCode);
+
+    /**
+     * 每日统计投影
+     */
+    interface DailyTotals {
+
+        /**
+         * 生产日期
+         */
+        LocalDate getProductionDate();
+
+        /**
+         * 工单总数
+         */
+        Long getTotalOrders();
+
+        /**
+         * 已完成工单数
+         */
+        Long getCompletedOrders();
+
+        /**
+         * 进行中工单数
+         */
+        Long getInProgressOrders();
+
+        /**
+         * 异常工单数
+         */
+        Long getAbnormalOrders();
+
+        /**
+         * 计划产量合计
+         */
+        Long getTotalPlanQty();
+
+        /**
+         * 实际产量合计
+         */
+        Long getTotalActualQty();
+    }
+}
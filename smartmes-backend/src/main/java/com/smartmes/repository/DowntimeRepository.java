@@ -82,20 +82,6 @@ public interface DowntimeRepository extends JpaRepository<Downtime, Long> {
     List<Object[]> countTodayDowntimeByType(@Param("startOfDay") LocalDateTime startOfDay,
                                            @Param("endOfDay") LocalDateTime endOfDay);
 
-    /**
-     * 查询今日故障TOP5设备
-     * @param startOfDay 当天开始时间
-     * @param endOfDay 当天结束时间
-     * @return 设备故障统计列表（设备编号、设备名称、故障次数、总停机时长）
-     */
-    @Query("SELECT d.equipmentCode, d.equipmentName, COUNT(d), COALESCE(SUM(d.durationMinutes), 0) " +
-           "FROM Downtime d " +
-           "WHERE d.startTime >= :startOfDay AND d.startTime <= :endOfDay " +
-           "GROUP BY d.equipmentCode, d.equipmentName " +
-           "ORDER BY COUNT(d) DESC")
-    List<Object[]> findTopFaultyEquipmentToday(@Param("startOfDay") LocalDateTime startOfDay,
-                                               @Param("endOfDay") LocalDateTime endOfDay);
-
     /**
      * 根据异常类型查询停机记录
      * @param downtimeType 异常类型
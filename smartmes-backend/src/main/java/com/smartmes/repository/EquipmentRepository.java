@@ -2,7 +2,11 @@ package com.smartmes.repository;
 
 import com.smartmes.entity.Equipment;
 import com.smartmes.entity.Equipment.EquipmentStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,6 +15,7 @@ import java.util.Optional;
 /**
  * 设备数据访问层接口
  * 提供设备数据的CRUD操作
+ * 按主键及按条件的常用查询走 Hibernate 二级缓存（实体缓存与查询缓存）
  *
  * @author SmartMES Team
  * @version 1.0.0
@@ -18,11 +23,20 @@ import java.util.Optional;
 @Repository
 public interface EquipmentRepository extends JpaRepository<Equipment, String> {
 
+    /**
+     * 查询全部设备（查询结果缓存）
+     * @return 设备列表
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Equipment> findAll();
+
     /**
      * 根据设备编号查询设备
      * @param equipmentId 设备编号
      * @return 设备信息
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Equipment> findByEquipmentId(String equipmentId);
 
     /**
@@ -37,6 +51,7 @@ public interface EquipmentRepository extends JpaRepository<Equipment, String> {
      * @param lineId 产线ID
      * @return 设备列表
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Equipment> findByLineId(String lineId);
 
     /**
@@ -46,6 +61,18 @@ public interface EquipmentRepository extends JpaRepository<Equipment, String> {
      */
     Long countByStatus(EquipmentStatus status);
 
+    /**
+     * 单次聚合统计各状态设备数量
+     * @return 设备状态数量统计
+     */
+    @Query("SELECT COUNT(e) AS total, " +
+           "COALESCE(SUM(CASE WHEN e.status = 'RUNNING' THEN 1 ELSE 0 END), 0) AS running, " +
+           "COALESCE(SUM(CASE WHEN e.status = 'IDLE' THEN 1 ELSE 0 END), 0) AS idle, " +
+           "COALESCE(SUM(CASE WHEN e.status = 'MAINTENANCE' THEN 1 ELSE 0 END), 0) AS maintenance, " +
+           "COALESCE(SUM(CASE WHEN e.status = 'FAULT' THEN 1 ELSE 0 END), 0) AS fault " +
+           "FROM Equipment e")
+    EquipmentStatusCounts countGroupByStatus();
+
     /**
      * 根据设备类型查询设备列表
      * @param equipmentType 设备类型
@@ -58,4 +85,35 @@ public interface EquipmentRepository extends JpaRepository<Equipment, String> {
      * @return 设备列表
      */
     List<Equipment> findAllByOrderByStatusAsc();
+
+    /**
+     * 设备状态数量统计投影
+     */
+    interface EquipmentStatusCounts {
+
+        /**
+         * 设备总数
+         */
+        Long getTotal();
+
+        /**
+         * 运行中设备数量
+         */
+        Long getRunning();
+
+        /**
+         * 空闲设备数量
+         */
+        Long getIdle();
+
+        /**
+         * 维护中设备数量
+         */
+        Long getMaintenance();
+
+        /**
+         * 故障设备数量
+         */
+        Long getFault();
+    }
 }
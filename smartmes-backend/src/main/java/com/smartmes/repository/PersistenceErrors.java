@@ -0,0 +1,38 @@
+package com.smartmes.repository;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.support.SQLExceptionSubclassTranslator;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+
+import java.sql.SQLException;
+
+/**
+ * 持久化异常识别
+ * JPA 写入违反约束时统一抛出 DataIntegrityViolationException，
+ * 由底层 SQL 异常的 SQLState / 错误码（如 MySQL 1062）区分主键或唯一键冲突
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+public final class PersistenceErrors {
+
+    private static final SQLExceptionTranslator TRANSLATOR = new SQLExceptionSubclassTranslator();
+
+    private PersistenceErrors() {
+    }
+
+    /**
+     * 是否为主键或唯一键冲突
+     *
+     * @param e 数据完整性异常
+     * @return 冲突时返回true，其他约束（非空、外键等）返回false
+     */
+    public static boolean isDuplicateKey(DataIntegrityViolationException e) {
+        if (e instanceof DuplicateKeyException) {
+            return true;
+        }
+        return e.getMostSpecificCause() instanceof SQLException sqlException
+                && TRANSLATOR.translate("insert", null, sqlException) instanceof DuplicateKeyException;
+    }
+}
@@ -1,7 +1,10 @@
 package com.smartmes.repository;
 
 import com.smartmes.entity.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,6 +13,7 @@ import java.util.Optional;
 /**
  * 产品数据访问层接口
  * 提供产品数据的CRUD操作
+ * 按主键及按条件的常用查询走 Hibernate 二级缓存（实体缓存与查询缓存）
  *
  * @author SmartMES Team
  * @version 1.0.0
@@ -17,11 +21,20 @@ import java.util.Optional;
 @Repository
 public interface ProductRepository extends JpaRepository<Product, String> {
 
+    /**
+     * 查询全部产品（查询结果缓存）
+     * @return 产品列表
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Product> findAll();
+
     /**
      * 根据产品编号查询产品
      * @param productCode 产品编号
      * @return 产品信息
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Product> findByProductCode(String productCode);
 
     /**
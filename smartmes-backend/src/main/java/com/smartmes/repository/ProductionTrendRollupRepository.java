@@ -0,0 +1,188 @@
+package com.smartmes.repository;
+
+import com.smartmes.entity.ProductionTrendRollup;
+import com.smartmes.entity.ProductionTrendRollup.Granularity;
+import com.smartmes.entity.ProductionTrendRollup.TrendKey;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 生产趋势汇总数据访问层接口
+ * 原生写语句声明所写的表，Hibernate 只使该表相关的查询缓存失效，不清空全部二级缓存区域
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Repository
+public interface ProductionTrendRollupRepository extends JpaRepository<ProductionTrendRollup, TrendKey> {
+
+    /**
+     * 重建语句中截断到整点的时间桶表达式
+     */
+    String HOUR_BUCKET = "TIMESTAMPADD(HOUR, HOUR(t.bucket_time), CAST(CAST(t.bucket_time AS DATE) AS DATETIME))";
+
+    /**
+     * 将增量累加到指定时间桶，行不存在时插入
+     * @param granularity 汇总粒度（HOUR/DAY）
+     * @param bucketStart 时间桶开始时间
+     * @param lineId 产线ID
+     * @param planQty 计划产量增量
+     * @param actualQty 实际产量增量
+     * @param completedOrders 完工工单数增量
+     * @param downtimeMinutes 停机时长增量
+     * @return 影响行数
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "production_trend_rollup"))
+    @Query(value = "INSERT INTO production_trend_rollup (granularity, bucket_start, line_id, plan_qty, actual_qty, " +
+           "completed_orders, downtime_minutes, updated_at) " +
+           "VALUES (:granularity, :bucketStart, :lineId, :planQty, :actualQty, :completedOrders, :downtimeMinutes, NOW()) " +
+           "ON DUPLICATE KEY UPDATE " +
+           "plan_qty = plan_qty + VALUES(plan_qty), " +
+           "actual_qty = actual_qty + VALUES(actual_qty), " +
+           "completed_orders = completed_orders + VALUES(completed_orders), " +
+           "downtime_minutes = downtime_minutes + VALUES(downtime_minutes), " +
+           "updated_at = VALUES(updated_at)",
+           nativeQuery = true)
+    int accumulate(@Param("granularity") String granularity,
+                   @Param("bucketStart") LocalDateTime bucketStart,
+                   @Param("lineId") String lineId,
+                   @Param("planQty") long planQty,
+                   @Param("actualQty") long actualQty,
+                   @Param("completedOrders") int completedOrders,
+                   @Param("downtimeMinutes") long downtimeMinutes);
+
+    /**
+     * 删除时间范围内两种粒度的汇总行
+     * @param startTime 开始时间（含）
+     * @param endTime 结束时间（不含）
+     * @return 删除行数
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "production_trend_rollup"))
+    @Query(value = "DELETE FROM production_trend_rollup WHERE bucket_start >= :startTime AND bucket_start < :endTime",
+           nativeQuery = true)
+    int deleteByBucketRange(@Param("startTime") LocalDateTime startTime,
+                            @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 从工单表和停机记录表重新聚合时间范围内的小时汇总行，归桶时间与增量维护一致：
+     * 计划产量按创建时间，实际产量按开始时间（未开始按创建时间），完工数按完工时间，
+     * 已解决停机的时长按停机开始时间、产线取设备当前所属产线。调用前需先删除同一范围的汇总行
+     * @param startTime 开始时间（含，须为整点）
+     * @param endTime 结束时间（不含，须为整点）
+     * @return 插入行数
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "production_trend_rollup"))
+    @Query(value = "INSERT INTO production_trend_rollup (granularity, bucket_start, line_id, plan_qty, actual_qty, " +
+           "completed_orders, downtime_minutes, updated_at) " +
+           "SELECT 'HOUR', " + HOUR_BUCKET + ", t.line_id, SUM(t.plan_qty), SUM(t.actual_qty), " +
+           "SUM(t.completed_orders), SUM(t.downtime_minutes), NOW() FROM (" +
+           "SELECT w.created_at AS bucket_time, COALESCE(w.line_id, '') AS line_id, COALESCE(w.plan_qty, 0) AS plan_qty, " +
+           "0 AS actual_qty, 0 AS completed_orders, 0 AS downtime_minutes " +
+           "FROM work_order w WHERE w.created_at >= :startTime AND w.created_at < :endTime " +
+           "UNION ALL " +
+           "SELECT COALESCE(w.start_time, w.created_at), COALESCE(w.line_id, ''), 0, COALESCE(w.actual_qty, 0), 0, 0 " +
+           "FROM work_order w WHERE COALESCE(w.start_time, w.created_at) >= :startTime " +
+           "AND COALESCE(w.start_time, w.created_at) < :endTime AND w.actual_qty <> 0 " +
+           "UNION ALL " +
+           "SELECT COALESCE(w.end_time, w.created_at), COALESCE(w.line_id, ''), 0, 0, 1, 0 " +
+           "FROM work_order w WHERE w.status = 'COMPLETED' AND COALESCE(w.end_time, w.created_at) >= :startTime " +
+           "AND COALESCE(w.end_time, w.created_at) < :endTime " +
+           "UNION ALL " +
+           "SELECT d.start_time, COALESCE(e.line_id, ''), 0, 0, 0, d.duration_minutes " +
+           "FROM downtime_report d LEFT JOIN equipment e ON e.equipment_id = d.equipment_id " +
+           "WHERE d.status = 'RESOLVED' AND d.duration_minutes IS NOT NULL " +
+           "AND d.start_time >= :startTime AND d.start_time < :endTime" +
+           ") t GROUP BY " + HOUR_BUCKET + ", t.line_id",
+           nativeQuery = true)
+    int rebuildHourly(@Param("startTime") LocalDateTime startTime,
+                      @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 由时间范围内的小时汇总行聚合天汇总行，须在小时汇总重建之后调用
+     * @param startTime 开始时间（含，须为零点）
+     * @param endTime 结束时间（不含，须为零点）
+     * @return 插入行数
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "production_trend_rollup"))
+    @Query(value = "INSERT INTO production_trend_rollup (granularity, bucket_start, line_id, plan_qty, actual_qty, " +
+           "completed_orders, downtime_minutes, updated_at) " +
+           "SELECT 'DAY', CAST(CAST(r.bucket_start AS DATE) AS DATETIME), r.line_id, SUM(r.plan_qty), SUM(r.actual_qty), " +
+           "SUM(r.completed_orders), SUM(r.downtime_minutes), NOW() " +
+           "FROM production_trend_rollup r " +
+           "WHERE r.granularity = 'HOUR' AND r.bucket_start >= :startTime AND r.bucket_start < :endTime " +
+           "GROUP BY CAST(CAST(r.bucket_start AS DATE) AS DATETIME), r.line_id",
+           nativeQuery = true)
+    int rebuildDailyFromHourly(@Param("startTime") LocalDateTime startTime,
+                               @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 查询时间范围内指定粒度的汇总（按时间桶合并产线），可按产线过滤
+     * @param granularity 汇总粒度
+     * @param startTime 开始时间（含）
+     * @param endTime 结束时间（不含）
+     * @param lineId 产线ID（为null时不过滤）
+     * @return 时间桶汇总列表（按时间升序）
+     */
+    @Query("SELECT r.bucketStart AS bucketStart, " +
+           "SUM(r.planQty) AS planQty, " +
+           "SUM(r.actualQty) AS actualQty, " +
+           "SUM(r.completedOrders) AS completedOrders, " +
+           "SUM(r.downtimeMinutes) AS downtimeMinutes " +
+           "FROM ProductionTrendRollup r " +
+           "WHERE r.granularity = :granularity AND r.bucketStart >= :startTime AND r.bucketStart < :endTime " +
+           "AND (:lineId IS NULL OR r.lineId = :lineId) " +
+           "GROUP BY r.bucketStart ORDER BY r.bucketStart")
+    List<BucketTotals> summarizeBuckets(@Param("granularity") Granularity granularity,
+                                        @Param("startTime") LocalDateTime startTime,
+                                        @Param("endTime") LocalDateTime endTime,
+                                        @Param("lineId") String lineId);
+
+    /**
+     * 时间桶统计投影
+     */
+    interface BucketTotals {
+
+        /**
+         * 时间桶开始时间
+         */
+        LocalDateTime getBucketStart();
+
+        /**
+         * 计划产量
+         */
+        Long getPlanQty();
+
+        /**
+         * 实际产量
+         */
+        Long getActualQty();
+
+        /**
+         * 完工工单数
+         */
+        Long getCompletedOrders();
+
+        /**
+         * 停机时长（分钟）
+         */
+        Long getDowntimeMinutes();
+    }
+}
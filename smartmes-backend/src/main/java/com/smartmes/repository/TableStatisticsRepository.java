@@ -0,0 +1,43 @@
+package com.smartmes.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 表统计信息数据访问层
+ * 读取数据库维护的表行数估算值（InnoDB由索引统计信息得出，不扫描数据）
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class TableStatisticsRepository {
+
+    private static final String ESTIMATE_ROWS_SQL = "SELECT TABLE_ROWS FROM information_schema.TABLES "
+            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 估算表行数
+     * @param tableName 表名
+     * @return 估算行数，数据库不提供统计信息时为空
+     */
+    public Optional<Long> estimateRowCount(String tableName) {
+        try {
+            List<Long> rows = jdbcTemplate.queryForList(ESTIMATE_ROWS_SQL, Long.class, tableName);
+            return rows.isEmpty() ? Optional.empty() : Optional.ofNullable(rows.get(0));
+        } catch (DataAccessException e) {
+            log.debug("Table statistics unavailable for {}: {}", tableName, e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
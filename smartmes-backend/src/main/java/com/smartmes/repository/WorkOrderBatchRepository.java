@@ -0,0 +1,118 @@
+package com.smartmes.repository;
+
+import com.smartmes.entity.WorkOrder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 工单批量写入数据访问层
+ * 绕过JPA持久化上下文直接使用JDBC批处理写入工单表，
+ * 配合连接参数 rewriteBatchedStatements=true 由驱动改写为多行INSERT
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Repository
+@RequiredArgsConstructor
+public class WorkOrderBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO work_order (order_id, product_code, batch_no, plan_qty, "
+            + "actual_qty, status, line_id, equipment_id, operator_id, created_by, created_at, updated_at, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String ADD_PROGRESS_SQL = "UPDATE work_order SET actual_qty = actual_qty + ?, updated_at = ?, "
+            + "version = version + 1 WHERE order_id = ? AND status = 'IN_PROGRESS'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * 查询已存在的工单号
+     * @param ids 待检查的工单号
+     * @return 其中已存在的工单号
+     */
+    public Set<String> findExistingIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                "SELECT order_id FROM work_order WHERE order_id IN (:ids)", Map.of("ids", ids), String.class));
+    }
+
+    /**
+     * 批量插入工单
+     * 创建时间与更新时间需由调用方预先设置
+     * @param workOrders 工单列表
+     */
+    public void batchInsert(List<WorkOrder> workOrders) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                WorkOrder workOrder = workOrders.get(i);
+                ps.setString(1, workOrder.getId());
+                ps.setString(2, workOrder.getProductCode());
+                ps.setString(3, workOrder.getBatchNo());
+                ps.setInt(4, workOrder.getPlanQty());
+                ps.setInt(5, workOrder.getActualQty());
+                ps.setString(6, workOrder.getStatus().name());
+                ps.setString(7, workOrder.getLineId());
+                ps.setString(8, workOrder.getEquipmentId());
+                ps.setString(9, workOrder.getOperatorId());
+                ps.setString(10, workOrder.getCreatedBy());
+                ps.setTimestamp(11, Timestamp.valueOf(workOrder.getCreatedAt()));
+                ps.setTimestamp(12, Timestamp.valueOf(workOrder.getUpdatedAt()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return workOrders.size();
+            }
+        });
+    }
+
+    /**
+     * 批量累加工单实际产量，只累加进行中的工单
+     * @param increments 工单ID -> 产量增量
+     * @param updatedAt 更新时间
+     * @return 累加成功的工单ID（不含已不存在或不在进行中的工单）
+     */
+    public List<String> batchAddProgress(Map<String, Integer> increments, LocalDateTime updatedAt) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(increments.entrySet());
+        int[] counts = jdbcTemplate.batchUpdate(ADD_PROGRESS_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, entries.get(i).getValue());
+                ps.setTimestamp(2, Timestamp.valueOf(updatedAt));
+                ps.setString(3, entries.get(i).getKey());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return entries.size();
+            }
+        });
+
+        List<String> updated = new ArrayList<>(entries.size());
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                updated.add(entries.get(i).getKey());
+            }
+        }
+        return updated;
+    }
+}
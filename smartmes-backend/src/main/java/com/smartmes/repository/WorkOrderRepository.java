@@ -4,12 +4,24 @@ import com.smartmes.entity.WorkOrder;
 import com.smartmes.entity.WorkOrder.WorkOrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 /**
  * 工单数据访问层接口
@@ -19,7 +31,8 @@ import java.util.List;
  * @version 1.0.0
  */
 @Repository
-public interface WorkOrderRepository extends JpaRepository<WorkOrder, String>, JpaSpecificationExecutor<WorkOrder> {
+public interface WorkOrderRepository extends JpaRepository<WorkOrder, String>, JpaSpecificationExecutor<WorkOrder>,
+        WorkOrderRepositoryCustom {
 
     /**
      * 根据工单状态查询工单列表
@@ -35,6 +48,22 @@ public interface WorkOrderRepository extends JpaRepository<WorkOrder, String>, J
      */
     List<WorkOrder> findByLineId(String lineId);
 
+    /**
+     * 根据产线ID和状态查询工单列表（使用 (line_id, status) 组合索引）
+     * @param lineId 产线ID
+     * @param status 工单状态
+     * @return 工单列表
+     */
+    List<WorkOrder> findByLineIdAndStatus(String lineId, WorkOrderStatus status);
+
+    /**
+     * 查询指定状态工单的产线归属（用于进行中工单产线索引初始化）
+     * @param status 工单状态
+     * @return 工单产线投影列表
+     */
+    @Query("SELECT w.id AS id, w.lineId AS lineId FROM WorkOrder w WHERE w.status = :status AND w.lineId IS NOT NULL")
+    List<WorkOrderLine> findLinesByStatus(@Param("status") WorkOrderStatus status);
+
     /**
      * 统计指定状态的工单数量
      * @param status 工单状态
@@ -42,6 +71,14 @@ public interface WorkOrderRepository extends JpaRepository<WorkOrder, String>, J
      */
     Long countByStatus(WorkOrderStatus status);
 
+    /**
+     * 查询工单状态
+     * @param id 工单ID
+     * @return 工单状态
+     */
+    @Query("SELECT w.status FROM WorkOrder w WHERE w.id = :id")
+    Optional<WorkOrderStatus> findStatusById(@Param("id") String id);
+
     /**
      * 查询指定时间范围内的工单
      * @param startTime 开始时间
@@ -62,6 +99,21 @@ public interface WorkOrderRepository extends JpaRepository<WorkOrder, String>, J
     List<WorkOrder> findTodayWorkOrders(@Param("startOfDay") LocalDateTime startOfDay,
                                         @Param("endOfDay") LocalDateTime endOfDay);
 
+    /**
+     * 流式查询今日工单进度
+     * 只查询进度项需要的列并直接构造投影对象，不加载实体、不进入持久化上下文；
+     * 需在事务内调用并及时关闭返回的流
+     * @param startOfDay 当天开始时间
+     * @param endOfDay 当天结束时间
+     * @return 工单进度投影流
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.smartmes.repository.WorkOrderRepository$WorkOrderProgressRow(" +
+           "w.id, w.productCode, w.lineId, w.status, w.planQty, w.actualQty, w.startTime, w.endTime) " +
+           "FROM WorkOrder w WHERE w.createdAt >= :startOfDay AND w.createdAt <= :endOfDay")
+    Stream<WorkOrderProgressRow> streamTodayWorkOrderProgress(@Param("startOfDay") LocalDateTime startOfDay,
+                                                              @Param("endOfDay") LocalDateTime endOfDay);
+
     /**
      * 统计今日指定状态的工单数量
      * @param status 工单状态
@@ -94,10 +146,262 @@ public interface WorkOrderRepository extends JpaRepository<WorkOrder, String>, J
     Integer sumTodayActualQty(@Param("startOfDay") LocalDateTime startOfDay,
                              @Param("endOfDay") LocalDateTime endOfDay);
 
+    /**
+     * 单次聚合统计今日工单概览（总数、各状态数量、计划/实际产量）
+     * 使用条件聚合替代多次COUNT/SUM查询，且不加载工单实体
+     * @param startOfDay 当天开始时间
+     * @param endOfDay 当天结束时间
+     * @return 今日工单概览统计
+     */
+    @Query("SELECT COUNT(w) AS total, " +
+           "COALESCE(SUM(CASE WHEN w.status = 'COMPLETED' THEN 1 ELSE 0 END), 0) AS completed, " +
+           "COALESCE(SUM(CASE WHEN w.status = 'IN_PROGRESS' THEN 1 ELSE 0 END), 0) AS inProgress, " +
+           "COALESCE(SUM(CASE WHEN w.status = 'ABNORMAL' THEN 1 ELSE 0 END), 0) AS abnormal, " +
+           "COALESCE(SUM(w.planQty), 0) AS planQtyTotal, " +
+           "COALESCE(SUM(w.actualQty), 0) AS actualQtyTotal " +
+           "FROM WorkOrder w WHERE w.createdAt >= :startOfDay AND w.createdAt <= :endOfDay")
+    WorkOrderOverviewStats summarizeTodayWorkOrders(@Param("startOfDay") LocalDateTime startOfDay,
+                                                    @Param("endOfDay") LocalDateTime endOfDay);
+
+    /**
+     * 按状态分组统计今日工单数量及计划/实际产量
+     * @param startOfDay 当天开始时间
+     * @param endOfDay 当天结束时间
+     * @return 各状态统计列表
+     */
+    @Query("SELECT w.status AS status, COUNT(w) AS count, " +
+           "COALESCE(SUM(w.planQty), 0) AS planQtyTotal, " +
+           "COALESCE(SUM(w.actualQty), 0) AS actualQtyTotal " +
+           "FROM WorkOrder w WHERE w.createdAt >= :startOfDay AND w.createdAt <= :endOfDay " +
+           "GROUP BY w.status")
+    List<WorkOrderStatusTotals> summarizeTodayWorkOrdersByStatus(@Param("startOfDay") LocalDateTime startOfDay,
+                                                                @Param("endOfDay") LocalDateTime endOfDay);
+
     /**
      * 查询进行中的工单
      * @return 工单列表
      */
     @Query("SELECT w FROM WorkOrder w WHERE w.status = 'IN_PROGRESS' ORDER BY w.createdAt DESC")
     List<WorkOrder> findInProgressWorkOrders();
+
+    /**
+     * 批量流转工单状态
+     * 只更新当前状态仍在允许范围内的工单，开始/结束时间为null时保持原值；执行后清空持久化上下文
+     * @param ids 工单ID列表
+     * @param sourceStatuses 允许流转的原状态
+     * @param targetStatus 流转后的状态
+     * @param startTime 开始时间（可选）
+     * @param endTime 结束时间（可选）
+     * @param updatedAt 更新时间
+     * @return 更新行数
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WorkOrder w SET w.status = :targetStatus, " +
+           "w.startTime = COALESCE(CAST(:startTime AS LocalDateTime), w.startTime), " +
+           "w.endTime = COALESCE(CAST(:endTime AS LocalDateTime), w.endTime), " +
+           "w.updatedAt = :updatedAt, w.version = w.version + 1 " +
+           "WHERE w.id IN :ids AND w.status IN :sourceStatuses")
+    int transitionStatus(@Param("ids") Collection<String> ids,
+                         @Param("sourceStatuses") Collection<WorkOrderStatus> sourceStatuses,
+                         @Param("targetStatus") WorkOrderStatus targetStatus,
+                         @Param("startTime") LocalDateTime startTime,
+                         @Param("endTime") LocalDateTime endTime,
+                         @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 比较并设置工单状态（单个工单状态流转）
+     * 只以原状态为条件，不加行锁、不校验版本号，进度累加等不改变状态的并发更新不会使流转失败
+     * @param id 工单ID
+     * @param expectedStatus 变更前的状态
+     * @param targetStatus 流转后的状态
+     * @param startTime 开始时间（可选）
+     * @param endTime 结束时间（可选）
+     * @param updatedAt 更新时间
+     * @return 更新行数，0表示工单不存在或不在该状态
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WorkOrder w SET w.status = :targetStatus, " +
+           "w.startTime = COALESCE(CAST(:startTime AS LocalDateTime), w.startTime), " +
+           "w.endTime = COALESCE(CAST(:endTime AS LocalDateTime), w.endTime), " +
+           "w.updatedAt = :updatedAt, w.version = w.version + 1 " +
+           "WHERE w.id = :id AND w.status = :expectedStatus")
+    int compareAndSetStatus(@Param("id") String id,
+                            @Param("expectedStatus") WorkOrderStatus expectedStatus,
+                            @Param("targetStatus") WorkOrderStatus targetStatus,
+                            @Param("startTime") LocalDateTime startTime,
+                            @Param("endTime") LocalDateTime endTime,
+                            @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 设置工单实际产量（完成工单时指定产量，须在同一事务内的状态流转之后调用）
+     * @param id 工单ID
+     * @param actualQty 实际产量
+     * @param updatedAt 更新时间
+     * @return 更新行数
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WorkOrder w SET w.actualQty = :actualQty, w.updatedAt = :updatedAt, w.version = w.version + 1 " +
+           "WHERE w.id = :id")
+    int updateActualQty(@Param("id") String id,
+                        @Param("actualQty") Integer actualQty,
+                        @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 按ID顺序查询并锁定工单（SELECT ... FOR UPDATE），锁持有到事务结束
+     * 用于批量状态流转读取准确的变更前状态与产量，固定加锁顺序避免并发批量流转互相死锁
+     * @param ids 工单ID列表
+     * @return 工单列表（按ID排序）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM WorkOrder w WHERE w.id IN :ids ORDER BY w.id")
+    List<WorkOrder> findAllByIdForUpdate(@Param("ids") Collection<String> ids);
+
+    /**
+     * 查询指定时间之后仍在生产的已开工工单产量（用于OEE初始化）
+     * @param since 开始时间
+     * @return 工单产量投影列表
+     */
+    @Query("SELECT w.equipmentId AS equipmentId, w.productCode AS productCode, w.actualQty AS actualQty, " +
+           "w.startTime AS startTime, w.endTime AS endTime FROM WorkOrder w " +
+           "WHERE w.equipmentId IS NOT NULL AND w.startTime IS NOT NULL AND w.actualQty > 0 " +
+           "AND (w.endTime IS NULL OR w.endTime >= :since)")
+    List<WorkOrderOutput> findOutputSince(@Param("since") LocalDateTime since);
+
+    /**
+     * 今日工单概览统计投影
+     */
+    interface WorkOrderOverviewStats {
+
+        /**
+         * 今日工单总数
+         */
+        Long getTotal();
+
+        /**
+         * 已完成工单数
+         */
+        Long getCompleted();
+
+        /**
+         * 进行中工单数
+         */
+        Long getInProgress();
+
+        /**
+         * 异常工单数
+         */
+        Long getAbnormal();
+
+        /**
+         * 计划产量总数
+         */
+        Long getPlanQtyTotal();
+
+        /**
+         * 实际产量总数
+         */
+        Long getActualQtyTotal();
+    }
+
+    /**
+     * 按状态分组的工单统计投影
+     */
+    interface WorkOrderStatusTotals {
+
+        /**
+         * 工单状态
+         */
+        WorkOrderStatus getStatus();
+
+        /**
+         * 工单数量
+         */
+        Long getCount();
+
+        /**
+         * 计划产量总数
+         */
+        Long getPlanQtyTotal();
+
+        /**
+         * 实际产量总数
+         */
+        Long getActualQtyTotal();
+    }
+
+    /**
+     * 工单产线投影
+     */
+    interface WorkOrderLine {
+
+        /**
+         * 工单ID
+         */
+        String getId();
+
+        /**
+         * 产线ID
+         */
+        String getLineId();
+    }
+
+    /**
+     * 工单产量投影
+     */
+    interface WorkOrderOutput {
+
+        /**
+         * 设备ID
+         */
+        String getEquipmentId();
+
+        /**
+         * 产品编号
+         */
+        String getProductCode();
+
+        /**
+         * 实际产量
+         */
+        Integer getActualQty();
+
+        /**
+         * 开始时间
+         */
+        LocalDateTime getStartTime();
+
+        /**
+         * 结束时间
+         */
+        LocalDateTime getEndTime();
+    }
+
+    /**
+     * 工单进度投影
+     * 完成率在构造时计算（实际产量 / 计划产量），与实体的 @PostLoad 计算口径一致
+     *
+     * @param id 工单号
+     * @param productCode 产品编号
+     * @param lineId 产线ID
+     * @param status 工单状态
+     * @param planQty 计划产量
+     * @param actualQty 实际产量
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param completionRate 完成率
+     */
+    record WorkOrderProgressRow(String id, String productCode, String lineId, WorkOrderStatus status,
+                                Integer planQty, Integer actualQty, LocalDateTime startTime,
+                                LocalDateTime endTime, Double completionRate) {
+
+        public WorkOrderProgressRow(String id, String productCode, String lineId, WorkOrderStatus status,
+                                    Integer planQty, Integer actualQty, LocalDateTime startTime,
+                                    LocalDateTime endTime) {
+            this(id, productCode, lineId, status, planQty, actualQty, startTime, endTime,
+                    planQty != null && planQty > 0 ? (double) (actualQty != null ? actualQty : 0) / planQty : 0.0);
+        }
+    }
 }
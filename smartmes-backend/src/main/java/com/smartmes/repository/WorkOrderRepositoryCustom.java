@@ -0,0 +1,36 @@
+package com.smartmes.repository;
+
+import com.smartmes.entity.WorkOrder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 工单数据访问层扩展
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+public interface WorkOrderRepositoryCustom {
+
+    /**
+     * 按条件查询一页工单，不执行COUNT查询（总数由调用方按需统计）
+     * @param spec 查询条件（可为null）
+     * @param pageable 分页与排序参数
+     * @return 工单列表
+     */
+    List<WorkOrder> findPageContent(Specification<WorkOrder> spec, Pageable pageable);
+
+    /**
+     * 按条件以只进游标逐行读取工单
+     * 须在事务内调用并在使用后关闭；读出的工单已脱离持久化上下文，内存占用与行数无关
+     * @param spec 查询条件（可为null）
+     * @param sort 排序
+     * @param fetchSize 每次从数据库读取的行数（MySQL下为Integer.MIN_VALUE时逐行流式读取）
+     * @return 工单流
+     */
+    Stream<WorkOrder> stream(Specification<WorkOrder> spec, Sort sort, int fetchSize);
+}
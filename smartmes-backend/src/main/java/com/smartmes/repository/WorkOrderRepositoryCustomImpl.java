@@ -0,0 +1,69 @@
+package com.smartmes.repository;
+
+import com.smartmes.entity.WorkOrder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 工单数据访问层扩展实现
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+public class WorkOrderRepositoryCustomImpl implements WorkOrderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<WorkOrder> findPageContent(Specification<WorkOrder> spec, Pageable pageable) {
+        TypedQuery<WorkOrder> typedQuery = createQuery(spec, pageable.getSort());
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+
+    @Override
+    public Stream<WorkOrder> stream(Specification<WorkOrder> spec, Sort sort, int fetchSize) {
+        TypedQuery<WorkOrder> typedQuery = createQuery(spec, sort)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        // 逐行脱离持久化上下文，避免一级缓存随行数增长
+        return typedQuery.getResultStream().map(workOrder -> {
+            entityManager.detach(workOrder);
+            return workOrder;
+        });
+    }
+
+    private TypedQuery<WorkOrder> createQuery(Specification<WorkOrder> spec, Sort sort) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<WorkOrder> query = criteriaBuilder.createQuery(WorkOrder.class);
+        Root<WorkOrder> root = query.from(WorkOrder.class);
+
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        }
+        return entityManager.createQuery(query.select(root));
+    }
+}
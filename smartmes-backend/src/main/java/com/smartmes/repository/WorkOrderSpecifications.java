@@ -0,0 +1,82 @@
+package com.smartmes.repository;
+
+import com.smartmes.common.KeysetCursor;
+import com.smartmes.entity.WorkOrder;
+import com.smartmes.entity.WorkOrder.WorkOrderStatus;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 工单查询规格
+ * 工单列表、条件查询、游标分页与导出共用的查询条件
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+public final class WorkOrderSpecifications {
+
+    private WorkOrderSpecifications() {
+    }
+
+    /**
+     * 工单条件查询（与工单条件查询接口的筛选条件一致）
+     */
+    public static Specification<WorkOrder> search(
+            String productCode,
+            WorkOrderStatus status,
+            String lineId,
+            LocalDateTime startTime,
+            LocalDateTime endTime) {
+
+        return (root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (productCode != null && !productCode.isEmpty()) {
+                predicates.add(criteriaBuilder.equal(root.get("productCode"), productCode));
+            }
+
+            if (status != null) {
+                predicates.add(criteriaBuilder.equal(root.get("status"), status));
+            }
+
+            if (lineId != null && !lineId.isEmpty()) {
+                predicates.add(criteriaBuilder.equal(root.get("lineId"), lineId));
+            }
+
+            if (startTime != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("createdAt"), startTime));
+            }
+
+            if (endTime != null) {
+                predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("createdAt"), endTime));
+            }
+
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * 游标之后的记录：(created_at, order_id) 按排序方向严格位于游标之后
+     */
+    public static Specification<WorkOrder> seekAfter(KeysetCursor cursor, Sort.Direction direction) {
+        return (root, query, criteriaBuilder) -> {
+            if (direction.isAscending()) {
+                return criteriaBuilder.or(
+                        criteriaBuilder.greaterThan(root.get("createdAt"), cursor.time()),
+                        criteriaBuilder.and(
+                                criteriaBuilder.equal(root.get("createdAt"), cursor.time()),
+                                criteriaBuilder.greaterThan(root.get("id"), cursor.key())));
+            }
+            return criteriaBuilder.or(
+                    criteriaBuilder.lessThan(root.get("createdAt"), cursor.time()),
+                    criteriaBuilder.and(
+                            criteriaBuilder.equal(root.get("createdAt"), cursor.time()),
+                            criteriaBuilder.lessThan(root.get("id"), cursor.key())));
+        };
+    }
+}
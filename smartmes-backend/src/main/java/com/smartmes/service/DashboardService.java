@@ -1,11 +1,15 @@
 package com.smartmes.service;
 
+import com.smartmes.cache.EquipmentDowntimeTracker.RankBy;
+import com.smartmes.cache.EquipmentDowntimeTracker.Window;
 import com.smartmes.dto.DashboardData;
 import com.smartmes.dto.DowntimeStatistics;
 import com.smartmes.dto.EquipmentStatusData;
 import com.smartmes.dto.ProductionOverview;
 import com.smartmes.dto.WorkOrderProgress;
 
+import java.util.List;
+
 /**
  * 数据看板服务接口
  * 提供看板数据的业务逻辑处理
@@ -27,6 +31,15 @@ public interface DashboardService {
      */
     DowntimeStatistics getDowntimeStatistics();
 
+    /**
+     * 获取故障设备排行
+     * @param window 统计窗口
+     * @param rankBy 排序依据
+     * @param limit 返回数量
+     * @return 故障设备排行（降序），内存排行未就绪时返回null
+     */
+    List<DowntimeStatistics.EquipmentFaultDTO> getTopFaultyEquipment(Window window, RankBy rankBy, int limit);
+
     /**
      * 获取工单进度数据
      * @return 工单进度数据
@@ -0,0 +1,28 @@
+package com.smartmes.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 看板推送服务接口
+ * 通过Server-Sent Events向看板页面推送数据变化
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+public interface DashboardStreamService {
+
+    /**
+     * 订阅看板数据推送
+     * 连接建立后先推送完整快照，之后仅推送发生变化的分段
+     *
+     * @return SSE连接
+     */
+    SseEmitter subscribe();
+
+    /**
+     * 当前订阅连接数
+     *
+     * @return 连接数
+     */
+    int getSubscriberCount();
+}
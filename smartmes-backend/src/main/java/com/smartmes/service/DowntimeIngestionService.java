@@ -0,0 +1,30 @@
+package com.smartmes.service;
+
+import com.smartmes.dto.DowntimeIngestionStats;
+import com.smartmes.dto.DowntimeReportDTO;
+
+import java.util.List;
+
+/**
+ * Downtime Ingestion Service Interface
+ * Asynchronous, batched intake of automatically reported downtime
+ * 异常停机异步批量接入接口（设备控制器自动上报）
+ */
+public interface DowntimeIngestionService {
+    /**
+     * Accept reports for asynchronous batched writing
+     * 受理一组异常上报，排队后批量写入；整组受理或整组拒绝
+     *
+     * @param reports Downtime reports
+     * @return true if accepted, false if the queue stayed full for the offer timeout (caller should retry later)
+     */
+    boolean offer(List<DowntimeReportDTO> reports);
+
+    /**
+     * Get queue depth and batch write metrics
+     * 获取接入队列深度与批量写入统计
+     *
+     * @return Ingestion statistics
+     */
+    DowntimeIngestionStats getStats();
+}
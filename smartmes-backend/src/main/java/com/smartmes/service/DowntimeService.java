@@ -28,6 +28,15 @@ public interface DowntimeService {
      */
     PageResult<DowntimeReport> queryReports(DowntimeQueryDTO queryDTO);
 
+    /**
+     * Query downtime reports with keyset pagination on (start_time DESC, report_id DESC)
+     * 游标分页查询异常停机列表，翻页代价与页深无关；仅在 withTotal 为true时统计总记录数
+     *
+     * @param queryDTO Query parameters with cursor (empty for the first page)
+     * @return Page with next cursor (null on the last page)
+     */
+    PageResult<DowntimeReport> queryReportsByCursor(DowntimeQueryDTO queryDTO);
+
     /**
      * Get downtime report details by ID
      * 根据ID查询异常详情
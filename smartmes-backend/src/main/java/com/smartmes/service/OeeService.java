@@ -0,0 +1,24 @@
+package com.smartmes.service;
+
+import com.smartmes.dto.EquipmentOee;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 设备综合效率（OEE）服务接口
+ * 按设备和班次维护时间开动率、性能开动率、合格品率的累加量
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+public interface OeeService {
+
+    /**
+     * 查询班次内各设备的OEE
+     * @param time 班次内任一时间
+     * @param equipmentId 设备ID（可选）
+     * @return 按设备ID排序的OEE列表，OEE未启用或未加载时返回null
+     */
+    List<EquipmentOee> getShiftOee(LocalDateTime time, String equipmentId);
+}
@@ -0,0 +1,34 @@
+package com.smartmes.service;
+
+import com.smartmes.dto.DailyProductionStats;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 生产汇总服务接口
+ * 维护每日生产汇总表并提供历史生产统计查询
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+public interface ProductionRollupService {
+
+    /**
+     * 查询日期范围内的每日生产统计
+     * @param startDate 开始日期（含）
+     * @param endDate 结束日期（含）
+     * @param lineId 产线ID（可选）
+     * @param productCode 产品编号（可选）
+     * @return 每日生产统计列表
+     */
+    List<DailyProductionStats> getDailyStats(LocalDate startDate, LocalDate endDate, String lineId, String productCode);
+
+    /**
+     * 从工单表重建日期范围内的汇总数据（用于历史数据回填和偏差修复）
+     * @param startDate 开始日期（含）
+     * @param endDate 结束日期（含）
+     * @return 重建后的汇总行数
+     */
+    int rebuild(LocalDate startDate, LocalDate endDate);
+}
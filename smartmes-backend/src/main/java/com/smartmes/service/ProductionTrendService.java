@@ -0,0 +1,46 @@
+package com.smartmes.service;
+
+import com.smartmes.dto.ProductionTrendPoint;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 生产趋势服务接口
+ * 基于预聚合的小时/天汇总提供按时间桶划分的生产趋势
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+public interface ProductionTrendService {
+
+    /**
+     * 查询生产趋势
+     * 起止时间按时间桶边界对齐，无数据的时间桶以0补齐
+     * @param bucketSize 时间桶大小
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param lineId 产线ID（可选）
+     * @return 按时间升序的趋势数据点
+     */
+    List<ProductionTrendPoint> getTrend(BucketSize bucketSize, LocalDateTime startTime, LocalDateTime endTime, String lineId);
+
+    /**
+     * 从工单表和停机记录表重建日期范围内的小时/天汇总（用于历史数据回填和偏差修复）
+     * @param startDate 开始日期（含）
+     * @param endDate 结束日期（含）
+     * @return 重建后的汇总行数
+     */
+    int rebuild(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 时间桶大小枚举
+     */
+    enum BucketSize {
+        HOUR,   // 小时
+        SHIFT,  // 班次
+        DAY,    // 天
+        WEEK    // 周（周一开始）
+    }
+}
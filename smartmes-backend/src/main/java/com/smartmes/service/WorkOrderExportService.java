@@ -0,0 +1,72 @@
+package com.smartmes.service;
+
+import com.smartmes.entity.WorkOrder.WorkOrderStatus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+/**
+ * 工单导出服务接口
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+public interface WorkOrderExportService {
+
+    /**
+     * 流式导出工单
+     * 筛选条件与工单条件查询一致，按创建时间排序，逐行从数据库游标读取并写出，内存占用与行数无关
+     *
+     * @param productCode 产品编号（可选）
+     * @param status 工单状态（可选）
+     * @param lineId 产线ID（可选）
+     * @param startTime 开始时间（可选）
+     * @param endTime 结束时间（可选）
+     * @param format 导出格式
+     * @param out 输出流（调用方负责关闭）
+     * @return 导出行数
+     * @throws IOException 写出失败（如客户端断开）
+     */
+    long exportWorkOrders(String productCode, WorkOrderStatus status, String lineId,
+                          LocalDateTime startTime, LocalDateTime endTime,
+                          ExportFormat format, OutputStream out) throws IOException;
+
+    /**
+     * 占用一个导出名额
+     * 每个导出在写出期间占用一个数据库连接，同时进行的导出数达到上限时不再受理；
+     * 占用成功后须在导出结束时调用 {@link #releaseExport()}
+     *
+     * @return true-已占用，false-导出数已达上限
+     */
+    boolean tryAcquireExport();
+
+    /**
+     * 释放导出名额
+     */
+    void releaseExport();
+
+    /**
+     * 导出格式枚举
+     */
+    enum ExportFormat {
+        CSV("text/csv", "csv"),          // 逗号分隔，首行为表头
+        NDJSON("application/x-ndjson", "ndjson");  // 每行一个JSON对象
+
+        private final String contentType;
+        private final String extension;
+
+        ExportFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.smartmes.service;
+
+import com.smartmes.dto.WorkOrderImportResult;
+
+import java.io.InputStream;
+
+/**
+ * 工单批量导入服务接口
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+public interface WorkOrderImportService {
+
+    /**
+     * 流式导入工单
+     * 逐行读取并校验，校验通过的行按批次写入，单行失败不影响其他行；导入的工单均为待开始状态
+     * @param body 请求体（CSV首行为表头；NDJSON每行一个JSON对象）
+     * @param format 数据格式
+     * @param defaultCreatedBy 行内未指定创建人时使用的创建人（可选）
+     * @return 导入结果
+     */
+    WorkOrderImportResult importWorkOrders(InputStream body, ImportFormat format, String defaultCreatedBy);
+
+    /**
+     * 导入数据格式枚举
+     */
+    enum ImportFormat {
+        CSV,     // 逗号分隔，首行为表头
+        NDJSON   // 每行一个JSON对象
+    }
+}
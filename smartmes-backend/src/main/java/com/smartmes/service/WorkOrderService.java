@@ -1,11 +1,18 @@
 package com.smartmes.service;
 
 import com.smartmes.common.PageResult;
+import com.smartmes.common.TotalMode;
+import com.smartmes.dto.BatchTransitionResult;
 import com.smartmes.entity.WorkOrder;
+import com.smartmes.entity.WorkOrder.WorkOrderStatus;
+import com.smartmes.event.WorkOrderChangedEvent.ChangeType;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 工单服务接口
@@ -59,9 +66,10 @@ public interface WorkOrderService {
      * 分页查询工单列表
      *
      * @param pageable 分页参数
+     * @param totalMode 总记录数的统计方式
      * @return 工单分页结果
      */
-    PageResult<WorkOrder> listWorkOrders(Pageable pageable);
+    PageResult<WorkOrder> listWorkOrders(Pageable pageable, TotalMode totalMode);
 
     /**
      * 根据条件查询工单列表
@@ -72,6 +80,7 @@ public interface WorkOrderService {
      * @param startTime 开始时间（可选）
      * @param endTime 结束时间（可选）
      * @param pageable 分页参数
+     * @param totalMode 总记录数的统计方式
      * @return 工单分页结果
      */
     PageResult<WorkOrder> searchWorkOrders(
@@ -80,7 +89,35 @@ public interface WorkOrderService {
             String lineId,
             LocalDateTime startTime,
             LocalDateTime endTime,
-            Pageable pageable
+            Pageable pageable,
+            TotalMode totalMode
+    );
+
+    /**
+     * 根据条件以游标方式分页查询工单列表
+     * 按 (创建时间, 工单号) 定位续页位置，任意页的查询代价与首页相同
+     *
+     * @param productCode 产品编号（可选）
+     * @param status 工单状态（可选）
+     * @param lineId 产线ID（可选）
+     * @param startTime 开始时间（可选）
+     * @param endTime 结束时间（可选）
+     * @param cursor 上一页返回的游标（首页为空）
+     * @param pageSize 每页记录数
+     * @param direction 按创建时间排序的方向
+     * @param totalMode 总记录数的统计方式（为空时不统计总数）
+     * @return 工单分页结果（含下一页游标）
+     */
+    PageResult<WorkOrder> searchWorkOrdersByCursor(
+            String productCode,
+            WorkOrder.WorkOrderStatus status,
+            String lineId,
+            LocalDateTime startTime,
+            LocalDateTime endTime,
+            String cursor,
+            int pageSize,
+            Sort.Direction direction,
+            TotalMode totalMode
     );
 
     /**
@@ -125,6 +162,26 @@ public interface WorkOrderService {
      */
     WorkOrder updateProgress(String id, Integer actualQty);
 
+    /**
+     * 累加工单产量增量
+     * 增量先合并在写后缓冲中，按固定间隔批量写入数据库；查询工单时会叠加尚未写入的增量
+     *
+     * @param id 工单ID
+     * @param increment 产量增量（正数）
+     * @return 该工单尚未写入的增量
+     */
+    int addProgress(String id, int increment);
+
+    /**
+     * 批量执行工单状态流转
+     * 一次查询校验全部工单，一条带状态条件的UPDATE完成流转；不满足条件的工单逐个给出拒绝原因，不影响其他工单
+     *
+     * @param ids 工单ID列表
+     * @param transition 状态流转
+     * @return 流转结果
+     */
+    BatchTransitionResult transitionWorkOrders(List<String> ids, Transition transition);
+
     /**
      * 查询指定状态的工单数量
      *
@@ -148,4 +205,47 @@ public interface WorkOrderService {
      * @return true-存在，false-不存在
      */
     boolean existsByWorkOrderNo(String workOrderNo);
+
+    /**
+     * 工单状态流转枚举
+     */
+    enum Transition {
+        START(WorkOrderStatus.IN_PROGRESS, ChangeType.STARTED, EnumSet.of(WorkOrderStatus.PENDING)),
+        COMPLETE(WorkOrderStatus.COMPLETED, ChangeType.COMPLETED,
+                EnumSet.of(WorkOrderStatus.IN_PROGRESS, WorkOrderStatus.ABNORMAL)),
+        CANCEL(WorkOrderStatus.CANCELLED, ChangeType.CANCELLED,
+                EnumSet.complementOf(EnumSet.of(WorkOrderStatus.COMPLETED, WorkOrderStatus.CANCELLED))),
+        ABNORMAL(WorkOrderStatus.ABNORMAL, ChangeType.ABNORMAL, EnumSet.of(WorkOrderStatus.IN_PROGRESS));
+
+        private final WorkOrderStatus targetStatus;
+        private final ChangeType changeType;
+        private final Set<WorkOrderStatus> sourceStatuses;
+
+        Transition(WorkOrderStatus targetStatus, ChangeType changeType, Set<WorkOrderStatus> sourceStatuses) {
+            this.targetStatus = targetStatus;
+            this.changeType = changeType;
+            this.sourceStatuses = sourceStatuses;
+        }
+
+        /**
+         * 流转后的状态
+         */
+        public WorkOrderStatus getTargetStatus() {
+            return targetStatus;
+        }
+
+        /**
+         * 对应的工单变更类型
+         */
+        public ChangeType getChangeType() {
+            return changeType;
+        }
+
+        /**
+         * 允许流转的原状态
+         */
+        public Set<WorkOrderStatus> getSourceStatuses() {
+            return sourceStatuses;
+        }
+    }
 }
@@ -1,31 +1,64 @@
 package com.smartmes.service.impl;
 
+import com.smartmes.cache.DashboardStateStore;
+import com.smartmes.cache.DashboardStateStore.DaySnapshot;
+import com.smartmes.cache.EquipmentDowntimeTracker;
+import com.smartmes.cache.EquipmentDowntimeTracker.RankBy;
+import com.smartmes.cache.EquipmentDowntimeTracker.Window;
+import com.smartmes.cache.EquipmentStatusBoard;
+import com.smartmes.cache.EquipmentStatusBoard.BoardSnapshot;
+import com.smartmes.cache.EquipmentStatusBoard.EquipmentDetail;
+import com.smartmes.cache.EquipmentStatusBoard.StatusCounts;
 import com.smartmes.dto.*;
+import com.smartmes.dto.DashboardData.SectionStatus;
+import com.smartmes.dto.DowntimeStatisticsDTO.EquipmentDowntimeStats;
 import com.smartmes.dto.DowntimeStatistics.EquipmentFaultDTO;
 import com.smartmes.dto.EquipmentStatusData.EquipmentStatusItem;
 import com.smartmes.dto.WorkOrderProgress.WorkOrderProgressItem;
 import com.smartmes.entity.Downtime.DowntimeType;
 import com.smartmes.entity.Equipment;
 import com.smartmes.entity.Equipment.EquipmentStatus;
-import com.smartmes.entity.WorkOrder;
 import com.smartmes.entity.WorkOrder.WorkOrderStatus;
+import com.smartmes.mapper.DowntimeMapper;
 import com.smartmes.repository.DowntimeRepository;
 import com.smartmes.repository.EquipmentRepository;
+import com.smartmes.repository.EquipmentRepository.EquipmentStatusCounts;
 import com.smartmes.repository.WorkOrderRepository;
+import com.smartmes.repository.WorkOrderRepository.WorkOrderOverviewStats;
+import com.smartmes.repository.WorkOrderRepository.WorkOrderProgressRow;
 import com.smartmes.service.DashboardService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.smartmes.dto.DashboardData.SECTION_DOWNTIME_STATISTICS;
+import static com.smartmes.dto.DashboardData.SECTION_EQUIPMENT_STATUS;
+import static com.smartmes.dto.DashboardData.SECTION_PRODUCTION_OVERVIEW;
+import static com.smartmes.dto.DashboardData.SECTION_WORK_ORDER_PROGRESS;
 
 /**
  * 数据看板服务实现类
@@ -43,6 +76,29 @@ public class DashboardServiceImpl implements DashboardService {
     private final WorkOrderRepository workOrderRepository;
     private final EquipmentRepository equipmentRepository;
     private final DowntimeRepository downtimeRepository;
+    private final DashboardStateStore dashboardStateStore;
+    private final EquipmentStatusBoard equipmentStatusBoard;
+    private final EquipmentDowntimeTracker equipmentDowntimeTracker;
+    private final DowntimeMapper downtimeMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final ThreadPoolTaskExecutor dashboardExecutor;
+
+    /**
+     * 是否并行查询完整看板的各分段
+     */
+    @Value("${smartmes.dashboard.fan-out.enabled:true}")
+    private boolean fanOutEnabled;
+
+    /**
+     * 单个分段的查询超时时间（毫秒）
+     */
+    @Value("${smartmes.dashboard.fan-out.section-timeout-ms:3000}")
+    private long sectionTimeoutMs;
+
+    /**
+     * 上一次返回的完整看板数据，用于分段超时时的回退
+     */
+    private volatile DashboardData lastDashboardData;
 
     /**
      * 获取今天的开始时间
@@ -65,40 +121,61 @@ public class DashboardServiceImpl implements DashboardService {
         LocalDateTime startOfDay = getStartOfToday();
         LocalDateTime endOfDay = getEndOfToday();
 
-        // 统计今日工单数量（各状态）
-        Long todayTotal = workOrderRepository.countTodayWorkOrdersByStatus(null, startOfDay, endOfDay);
-        if (todayTotal == null) {
-            List<WorkOrder> allTodayOrders = workOrderRepository.findTodayWorkOrders(startOfDay, endOfDay);
-            todayTotal = (long) allTodayOrders.size();
+        // 优先读取内存看板状态，不可用时单次条件聚合统计今日工单（各状态数量及产量）
+        int todayTotal;
+        int completedCount;
+        int inProgressCount;
+        int abnormalCount;
+        int planQtyTotal;
+        int actualQtyTotal;
+        DaySnapshot snapshot = dashboardStateStore.getSnapshot();
+        if (snapshot != null) {
+            todayTotal = (int) snapshot.total();
+            completedCount = (int) snapshot.count(WorkOrderStatus.COMPLETED);
+            inProgressCount = (int) snapshot.count(WorkOrderStatus.IN_PROGRESS);
+            abnormalCount = (int) snapshot.count(WorkOrderStatus.ABNORMAL);
+            planQtyTotal = (int) snapshot.planQtyTotal();
+            actualQtyTotal = (int) snapshot.actualQtyTotal();
+        } else {
+            WorkOrderOverviewStats orderStats = workOrderRepository.summarizeTodayWorkOrders(startOfDay, endOfDay);
+            todayTotal = toInt(orderStats.getTotal());
+            completedCount = toInt(orderStats.getCompleted());
+            inProgressCount = toInt(orderStats.getInProgress());
+            abnormalCount = toInt(orderStats.getAbnormal());
+            planQtyTotal = toInt(orderStats.getPlanQtyTotal());
+            actualQtyTotal = toInt(orderStats.getActualQtyTotal());
         }
 
-        Long completedCount = workOrderRepository.countTodayWorkOrdersByStatus(WorkOrderStatus.COMPLETED, startOfDay, endOfDay);
-        Long inProgressCount = workOrderRepository.countTodayWorkOrdersByStatus(WorkOrderStatus.IN_PROGRESS, startOfDay, endOfDay);
-        Long abnormalCount = workOrderRepository.countTodayWorkOrdersByStatus(WorkOrderStatus.ABNORMAL, startOfDay, endOfDay);
-
-        // 统计今日产量
-        Integer planQtyTotal = workOrderRepository.sumTodayPlanQty(startOfDay, endOfDay);
-        Integer actualQtyTotal = workOrderRepository.sumTodayActualQty(startOfDay, endOfDay);
-
         // 计算完成率
         Double completionRate = ProductionOverview.calculateCompletionRate(planQtyTotal, actualQtyTotal);
 
-        // 统计设备状态
-        Long runningCount = equipmentRepository.countByStatus(EquipmentStatus.RUNNING);
-        Long idleCount = equipmentRepository.countByStatus(EquipmentStatus.IDLE);
-        Long faultCount = equipmentRepository.countByStatus(EquipmentStatus.FAULT);
+        // 设备状态数量优先读取内存看板，不可用时单次条件聚合统计
+        int equipmentRunning;
+        int equipmentIdle;
+        int equipmentFault;
+        StatusCounts boardCounts = equipmentStatusBoard.counts();
+        if (boardCounts != null) {
+            equipmentRunning = boardCounts.count(EquipmentStatus.RUNNING);
+            equipmentIdle = boardCounts.count(EquipmentStatus.IDLE);
+            equipmentFault = boardCounts.count(EquipmentStatus.FAULT);
+        } else {
+            EquipmentStatusCounts equipmentCounts = equipmentRepository.countGroupByStatus();
+            equipmentRunning = toInt(equipmentCounts.getRunning());
+            equipmentIdle = toInt(equipmentCounts.getIdle());
+            equipmentFault = toInt(equipmentCounts.getFault());
+        }
 
         ProductionOverview overview = ProductionOverview.builder()
-                .todayWorkOrderTotal(todayTotal != null ? todayTotal.intValue() : 0)
-                .todayCompleted(completedCount != null ? completedCount.intValue() : 0)
-                .todayInProgress(inProgressCount != null ? inProgressCount.intValue() : 0)
-                .todayAbnormal(abnormalCount != null ? abnormalCount.intValue() : 0)
-                .planQtyTotal(planQtyTotal != null ? planQtyTotal : 0)
-                .actualQtyTotal(actualQtyTotal != null ? actualQtyTotal : 0)
+                .todayWorkOrderTotal(todayTotal)
+                .todayCompleted(completedCount)
+                .todayInProgress(inProgressCount)
+                .todayAbnormal(abnormalCount)
+                .planQtyTotal(planQtyTotal)
+                .actualQtyTotal(actualQtyTotal)
                 .completionRate(completionRate)
-                .equipmentRunning(runningCount != null ? runningCount.intValue() : 0)
-                .equipmentIdle(idleCount != null ? idleCount.intValue() : 0)
-                .equipmentFault(faultCount != null ? faultCount.intValue() : 0)
+                .equipmentRunning(equipmentRunning)
+                .equipmentIdle(equipmentIdle)
+                .equipmentFault(equipmentFault)
                 .build();
 
         log.info("生产概览数据获取完成: {}", overview);
@@ -127,21 +204,12 @@ public class DashboardServiceImpl implements DashboardService {
             downtimeByType.put(getDowntimeTypeName(type), count.intValue());
         }
 
-        // 获取故障TOP5设备
-        List<Object[]> faultyEquipmentData = downtimeRepository.findTopFaultyEquipmentToday(startOfDay, endOfDay);
-        List<EquipmentFaultDTO> topFaultyEquipment = new ArrayList<>();
-
-        int limit = Math.min(5, faultyEquipmentData.size());
-        for (int i = 0; i < limit; i++) {
-            Object[] row = faultyEquipmentData.get(i);
-            EquipmentFaultDTO dto = EquipmentFaultDTO.builder()
-                    .equipmentCode((String) row[0])
-                    .equipmentName((String) row[1])
-                    .faultCount(((Long) row[2]).intValue())
-                    .totalDowntimeMinutes(((Number) row[3]).intValue())
-                    .build();
-            topFaultyEquipment.add(dto);
+        // 故障TOP5设备：停机上报表中今日开始的记录，优先读取内存排行，未就绪时回退到同口径的聚合查询
+        List<EquipmentDowntimeStats> ranking = equipmentDowntimeTracker.topSince(startOfDay, RankBy.INCIDENTS, 5);
+        if (ranking == null) {
+            ranking = downtimeMapper.getTopEquipmentStartedBetween(startOfDay, startOfDay.plusDays(1), 5);
         }
+        List<EquipmentFaultDTO> topFaultyEquipment = toFaultDtos(ranking);
 
         DowntimeStatistics statistics = DowntimeStatistics.builder()
                 .todayDowntimeCount(downtimeCount != null ? downtimeCount.intValue() : 0)
@@ -154,6 +222,40 @@ public class DashboardServiceImpl implements DashboardService {
         return statistics;
     }
 
+    @Override
+    public List<EquipmentFaultDTO> getTopFaultyEquipment(Window window, RankBy rankBy, int limit) {
+        List<EquipmentDowntimeStats> ranking = equipmentDowntimeTracker.top(window, rankBy, limit);
+        return ranking != null ? toFaultDtos(ranking) : null;
+    }
+
+    /**
+     * 排行结果转换为故障设备DTO，补充设备名称
+     */
+    private List<EquipmentFaultDTO> toFaultDtos(List<EquipmentDowntimeStats> ranking) {
+        // 设备名称从看板快照取，看板未就绪时批量查询
+        Map<String, String> names = new HashMap<>();
+        BoardSnapshot snapshot = equipmentStatusBoard.snapshot();
+        if (snapshot != null) {
+            for (int i = 0; i < snapshot.size(); i++) {
+                names.put(snapshot.detail(i).equipmentId(), snapshot.detail(i).equipmentName());
+            }
+        } else if (!ranking.isEmpty()) {
+            equipmentRepository.findAllById(ranking.stream().map(EquipmentDowntimeStats::getEquipmentId).toList())
+                    .forEach(equipment -> names.put(equipment.getEquipmentId(), equipment.getEquipmentName()));
+        }
+
+        List<EquipmentFaultDTO> result = new ArrayList<>(ranking.size());
+        for (EquipmentDowntimeStats stats : ranking) {
+            result.add(EquipmentFaultDTO.builder()
+                    .equipmentCode(stats.getEquipmentId())
+                    .equipmentName(names.get(stats.getEquipmentId()))
+                    .faultCount(stats.getIncidentCount().intValue())
+                    .totalDowntimeMinutes(stats.getTotalDurationMinutes().intValue())
+                    .build());
+        }
+        return result;
+    }
+
     @Override
     public WorkOrderProgress getWorkOrderProgress() {
         log.info("开始获取工单进度数据");
@@ -161,12 +263,12 @@ public class DashboardServiceImpl implements DashboardService {
         LocalDateTime startOfDay = getStartOfToday();
         LocalDateTime endOfDay = getEndOfToday();
 
-        // 获取今日所有工单
-        List<WorkOrder> todayWorkOrders = workOrderRepository.findTodayWorkOrders(startOfDay, endOfDay);
-
-        List<WorkOrderProgressItem> items = todayWorkOrders.stream()
-                .map(this::convertToProgressItem)
-                .collect(Collectors.toList());
+        // 流式读取今日工单进度投影，不加载工单实体
+        List<WorkOrderProgressItem> items;
+        try (Stream<WorkOrderProgressRow> rows = workOrderRepository.streamTodayWorkOrderProgress(startOfDay, endOfDay)) {
+            items = rows.map(this::convertToProgressItem)
+                    .collect(Collectors.toList());
+        }
 
         WorkOrderProgress progress = WorkOrderProgress.builder()
                 .workOrders(items)
@@ -180,6 +282,26 @@ public class DashboardServiceImpl implements DashboardService {
     public EquipmentStatusData getEquipmentStatus() {
         log.info("开始获取设备状态数据");
 
+        // 优先读取内存设备状态看板
+        BoardSnapshot snapshot = equipmentStatusBoard.snapshot();
+        if (snapshot != null) {
+            List<EquipmentStatusItem> items = new ArrayList<>(snapshot.size());
+            for (int i = 0; i < snapshot.size(); i++) {
+                items.add(convertToStatusItem(snapshot.detail(i), snapshot.status(i)));
+            }
+            StatusCounts statusCounts = snapshot.statusCounts();
+            EquipmentStatusData statusData = EquipmentStatusData.builder()
+                    .equipmentList(items)
+                    .runningCount(statusCounts.count(EquipmentStatus.RUNNING))
+                    .idleCount(statusCounts.count(EquipmentStatus.IDLE))
+                    .maintenanceCount(statusCounts.count(EquipmentStatus.MAINTENANCE))
+                    .faultCount(statusCounts.count(EquipmentStatus.FAULT))
+                    .build();
+
+            log.info("设备状态数据获取完成（内存看板版本{}），共{}台设备", snapshot.version(), items.size());
+            return statusData;
+        }
+
         // 获取所有设备
         List<Equipment> equipmentList = equipmentRepository.findAll();
 
@@ -215,37 +337,136 @@ public class DashboardServiceImpl implements DashboardService {
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public DashboardData getCompleteDashboardData() {
         log.info("开始获取完整看板数据");
 
-        DashboardData dashboardData = new DashboardData();
-        dashboardData.setProductionOverview(getProductionOverview());
-        dashboardData.setDowntimeStatistics(getDowntimeStatistics());
-        dashboardData.setWorkOrderProgress(getWorkOrderProgress());
-        dashboardData.setEquipmentStatus(getEquipmentStatus());
+        if (!fanOutEnabled) {
+            DashboardData dashboardData = readOnly(() -> {
+                DashboardData data = new DashboardData();
+                data.setProductionOverview(getProductionOverview());
+                data.setDowntimeStatistics(getDowntimeStatistics());
+                data.setWorkOrderProgress(getWorkOrderProgress());
+                data.setEquipmentStatus(getEquipmentStatus());
+                return data;
+            });
+            dashboardData.setSectionStatus(allSectionsOk());
+            log.info("完整看板数据获取完成");
+            return dashboardData;
+        }
 
-        log.info("完整看板数据获取完成");
+        // 四个分段并行查询，每个分段在独立的只读事务（独立连接）中执行
+        CompletableFuture<ProductionOverview> overviewFuture = submitSection(this::getProductionOverview);
+        CompletableFuture<DowntimeStatistics> downtimeFuture = submitSection(this::getDowntimeStatistics);
+        CompletableFuture<WorkOrderProgress> progressFuture = submitSection(this::getWorkOrderProgress);
+        CompletableFuture<EquipmentStatusData> equipmentFuture = submitSection(this::getEquipmentStatus);
+
+        // 所有分段同时开始，共享同一截止时间
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMs);
+        DashboardData previous = lastDashboardData;
+        Map<String, SectionStatus> sectionStatus = new LinkedHashMap<>();
+
+        DashboardData dashboardData = new DashboardData();
+        dashboardData.setProductionOverview(awaitSection(SECTION_PRODUCTION_OVERVIEW, overviewFuture, deadline,
+                previous != null ? previous.getProductionOverview() : null, sectionStatus));
+        dashboardData.setDowntimeStatistics(awaitSection(SECTION_DOWNTIME_STATISTICS, downtimeFuture, deadline,
+                previous != null ? previous.getDowntimeStatistics() : null, sectionStatus));
+        dashboardData.setWorkOrderProgress(awaitSection(SECTION_WORK_ORDER_PROGRESS, progressFuture, deadline,
+                previous != null ? previous.getWorkOrderProgress() : null, sectionStatus));
+        dashboardData.setEquipmentStatus(awaitSection(SECTION_EQUIPMENT_STATUS, equipmentFuture, deadline,
+                previous != null ? previous.getEquipmentStatus() : null, sectionStatus));
+        dashboardData.setSectionStatus(sectionStatus);
+
+        lastDashboardData = dashboardData;
+        log.info("完整看板数据获取完成: {}", sectionStatus);
         return dashboardData;
     }
 
+    /**
+     * 在看板线程池中以独立只读事务执行分段查询
+     * 事务超时取分段超时（向上取整到秒），由JPA/MyBatis设置为JDBC查询超时，
+     * 超时分段的查询由数据库中止并归还连接，而不是在后台继续占用
+     */
+    private <T> CompletableFuture<T> submitSection(Supplier<T> section) {
+        int timeoutSeconds = (int) Math.max(1L, (sectionTimeoutMs + 999) / 1000);
+        try {
+            return CompletableFuture.supplyAsync(() -> readOnly(section, timeoutSeconds), dashboardExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 在截止时间前等待分段结果，超时或失败时回退到上一次成功的数据
+     */
+    private <T> T awaitSection(String section, CompletableFuture<T> future, long deadline,
+                               T fallback, Map<String, SectionStatus> sectionStatus) {
+        try {
+            long remaining = Math.max(0L, deadline - System.nanoTime());
+            T result = future.get(remaining, TimeUnit.NANOSECONDS);
+            sectionStatus.put(section, SectionStatus.OK);
+            return result;
+        } catch (TimeoutException e) {
+            // 尚未开始的分段不再执行；已开始的查询由事务超时中止
+            future.cancel(false);
+            log.warn("看板分段{}查询超时（{}ms）", section, sectionTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("看板分段{}查询被中断", section);
+        } catch (ExecutionException e) {
+            log.error("看板分段{}查询失败", section, e.getCause());
+        }
+        sectionStatus.put(section, fallback != null ? SectionStatus.STALE : SectionStatus.FAILED);
+        return fallback;
+    }
+
+    /**
+     * 在只读事务中执行查询
+     */
+    private <T> T readOnly(Supplier<T> query) {
+        return readOnly(query, TransactionDefinition.TIMEOUT_DEFAULT);
+    }
+
+    /**
+     * 在指定超时（秒）的只读事务中执行查询
+     */
+    private <T> T readOnly(Supplier<T> query, int timeoutSeconds) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        template.setTimeout(timeoutSeconds);
+        return template.execute(status -> query.get());
+    }
+
+    /**
+     * 所有分段均成功的状态表
+     */
+    private Map<String, SectionStatus> allSectionsOk() {
+        Map<String, SectionStatus> sectionStatus = new LinkedHashMap<>();
+        sectionStatus.put(SECTION_PRODUCTION_OVERVIEW, SectionStatus.OK);
+        sectionStatus.put(SECTION_DOWNTIME_STATISTICS, SectionStatus.OK);
+        sectionStatus.put(SECTION_WORK_ORDER_PROGRESS, SectionStatus.OK);
+        sectionStatus.put(SECTION_EQUIPMENT_STATUS, SectionStatus.OK);
+        return sectionStatus;
+    }
+
     /**
      * 将工单实体转换为工单进度项DTO
      */
-    private WorkOrderProgressItem convertToProgressItem(WorkOrder workOrder) {
+    private WorkOrderProgressItem convertToProgressItem(WorkOrderProgressRow row) {
         return WorkOrderProgressItem.builder()
-                .workOrderNo(workOrder.getWorkOrderNo())
-                .productCode(workOrder.getProductCode())
-                .productName(workOrder.getProductCode()) // Use productCode as productName since entity doesn't have productName
-                .lineId(workOrder.getLineId())
-                .status(workOrder.getStatus().name())
-                .statusName(getWorkOrderStatusName(workOrder.getStatus()))
-                .planQty(workOrder.getPlanQty())
-                .actualQty(workOrder.getActualQty())
-                .completionRate(workOrder.getCompletionRate())
+                .workOrderNo(row.id())
+                .productCode(row.productCode())
+                .productName(row.productCode()) // Use productCode as productName since entity doesn't have productName
+                .lineId(row.lineId())
+                .status(row.status().name())
+                .statusName(getWorkOrderStatusName(row.status()))
+                .planQty(row.planQty())
+                .actualQty(row.actualQty())
+                .completionRate(row.completionRate())
                 .planStartTime(null) // Entity doesn't have planStartTime
                 .planEndTime(null) // Entity doesn't have planEndTime
-                .actualStartTime(workOrder.getStartTime()) // Use startTime instead
-                .actualEndTime(workOrder.getEndTime()) // Use endTime instead
+                .actualStartTime(row.startTime()) // Use startTime instead
+                .actualEndTime(row.endTime()) // Use endTime instead
                 .priority(0) // Entity doesn't have priority
                 .build();
     }
@@ -267,6 +488,27 @@ public class DashboardServiceImpl implements DashboardService {
                 .build();
     }
 
+    private EquipmentStatusItem convertToStatusItem(EquipmentDetail detail, EquipmentStatus status) {
+        return EquipmentStatusItem.builder()
+                .equipmentId(detail.equipmentId())
+                .equipmentName(detail.equipmentName())
+                .equipmentType(detail.equipmentType())
+                .lineId(detail.lineId())
+                .status(status != null ? status.name() : null)
+                .statusName(status != null ? getEquipmentStatusName(status) : null)
+                .location(detail.location())
+                .lastMaintenanceTime(detail.lastMaintenanceTime())
+                .nextMaintenanceTime(detail.nextMaintenanceTime())
+                .build();
+    }
+
+    /**
+     * 将聚合结果转换为int，null视为0
+     */
+    private int toInt(Long value) {
+        return value != null ? value.intValue() : 0;
+    }
+
     /**
      * 获取工单状态中文名称
      */
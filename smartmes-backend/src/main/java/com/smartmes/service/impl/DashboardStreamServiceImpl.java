@@ -0,0 +1,397 @@
+package com.smartmes.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartmes.cache.DashboardVersionTracker;
+import com.smartmes.dto.*;
+import com.smartmes.service.DashboardService;
+import com.smartmes.service.DashboardStreamService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.smartmes.dto.DashboardData.SECTION_DOWNTIME_STATISTICS;
+import static com.smartmes.dto.DashboardData.SECTION_EQUIPMENT_STATUS;
+import static com.smartmes.dto.DashboardData.SECTION_PRODUCTION_OVERVIEW;
+import static com.smartmes.dto.DashboardData.SECTION_WORK_ORDER_PROGRESS;
+
+/**
+ * 看板推送服务实现类
+ * 定时任务按固定间隔比较各分段的数据版本号，只重新计算版本变化的分段（日期变化时全部重新计算），
+ * 每个间隔内每个分段最多计算一次，结果序列化一次；
+ * 快照与增量在锁内生成，发送在锁外交给各连接的发送队列，单个连接阻塞不影响推送和其他连接
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DashboardStreamServiceImpl implements DashboardStreamService {
+
+    private static final String EVENT_SNAPSHOT = "snapshot";
+    private static final String EVENT_DELTA = "delta";
+
+    private static final List<String> SECTIONS = List.of(SECTION_PRODUCTION_OVERVIEW,
+            SECTION_DOWNTIME_STATISTICS, SECTION_WORK_ORDER_PROGRESS, SECTION_EQUIPMENT_STATUS);
+
+    private final DashboardService dashboardService;
+    private final ObjectMapper objectMapper;
+    private final DashboardVersionTracker dashboardVersionTracker;
+    private final ThreadPoolTaskExecutor dashboardStreamExecutor;
+
+    /**
+     * SSE连接超时时间（毫秒），超时后由浏览器自动重连
+     */
+    @Value("${smartmes.dashboard.stream.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    /**
+     * 单个连接积压的待发送事件上限，超过时断开该连接
+     */
+    @Value("${smartmes.dashboard.stream.max-queued-events:32}")
+    private int maxQueuedEvents;
+
+    /**
+     * 当前所有订阅连接
+     */
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * 保护以下快照状态，以及新连接的快照入队与登记；锁内不做任何网络发送
+     */
+    private final Object snapshotLock = new Object();
+
+    /**
+     * 最近一次推送后的完整看板数据，新连接直接复用
+     */
+    private DashboardData snapshot;
+
+    /**
+     * 快照对应的日期，日期变化后所有分段重新计算
+     */
+    private LocalDate snapshotDay;
+
+    /**
+     * 分段名称 -> 快照中该分段计算前读取的数据版本号，计算失败的分段不在其中
+     */
+    private Map<String, Long> snapshotVersions = Map.of();
+
+    /**
+     * 已生成的增量序号，新连接的快照已包含该序号及之前的增量
+     */
+    private long sequence;
+
+    @Override
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        try {
+            LocalDate today = LocalDate.now();
+            boolean registered;
+            synchronized (snapshotLock) {
+                registered = snapshot != null && today.equals(snapshotDay);
+                if (registered) {
+                    register(subscriber);
+                }
+            }
+            if (!registered) {
+                // 快照不存在或已跨天时在锁外加载完整数据，先读取版本号，加载期间变化的分段在下次推送时重新计算
+                Map<String, Long> versions = currentVersions();
+                DashboardData loaded = dashboardService.getCompleteDashboardData();
+                synchronized (snapshotLock) {
+                    if (snapshot == null || !today.equals(snapshotDay)) {
+                        snapshot = loaded;
+                        snapshotDay = today;
+                        snapshotVersions = versions;
+                    }
+                    register(subscriber);
+                }
+            }
+            log.info("看板推送连接建立，当前连接数: {}", subscribers.size());
+        } catch (IOException e) {
+            log.warn("看板快照推送失败: {}", e.getMessage());
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    @Override
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * 按固定间隔合并推送变化的分段
+     * 同一间隔内的多次变更只触发一次计算，生成增量后在锁外入队发送
+     */
+    @Scheduled(fixedDelayString = "${smartmes.dashboard.stream.push-interval-ms:2000}")
+    public void pushChanges() {
+        Message message;
+        long pushSequence;
+        synchronized (snapshotLock) {
+            message = prepareDelta();
+            pushSequence = sequence;
+        }
+        if (message == null) {
+            return;
+        }
+
+        for (Subscriber subscriber : subscribers) {
+            subscriber.enqueue(pushSequence, message);
+        }
+        log.debug("看板增量推送入队完成，连接数: {}", subscribers.size());
+    }
+
+    /**
+     * 计算版本号或日期变化的分段并更新快照，须持有快照锁
+     *
+     * @return 增量消息，无变化时返回null
+     */
+    private Message prepareDelta() {
+        if (subscribers.isEmpty()) {
+            // 无订阅者时不计算，丢弃快照待下次连接时重新加载
+            snapshot = null;
+            snapshotDay = null;
+            return null;
+        }
+
+        DashboardData previous = snapshot;
+        if (previous == null) {
+            // 快照尚未加载，由新连接负责加载完整数据
+            return null;
+        }
+
+        LocalDate today = LocalDate.now();
+        boolean dayChanged = !today.equals(snapshotDay);
+        DashboardData updated = copyOf(previous);
+        Map<String, Long> versions = new HashMap<>(snapshotVersions);
+        Map<String, Object> delta = new LinkedHashMap<>();
+        for (String section : SECTIONS) {
+            // 对账纠正偏差时同样递增版本号，因此不依赖变更事件也能发现
+            long version = dashboardVersionTracker.getVersion(section);
+            if (!dayChanged && Objects.equals(snapshotVersions.get(section), version)) {
+                continue;
+            }
+            try {
+                Object value = loadSection(section);
+                versions.put(section, version);
+                if (!Objects.equals(value, getSection(previous, section))) {
+                    setSection(updated, section, value);
+                    delta.put(section, value);
+                }
+            } catch (Exception e) {
+                log.error("看板分段{}计算失败，下次推送重试", section, e);
+                versions.remove(section);
+            }
+        }
+
+        snapshot = updated;
+        snapshotDay = today;
+        snapshotVersions = versions;
+        if (delta.isEmpty()) {
+            return null;
+        }
+        try {
+            Message message = new Message(EVENT_DELTA, toJson(delta));
+            sequence++;
+            log.debug("看板增量生成: {}", delta.keySet());
+            return message;
+        } catch (JsonProcessingException e) {
+            log.error("看板推送数据序列化失败", e);
+            return null;
+        }
+    }
+
+    /**
+     * 定期发送心跳，及时清理已断开的连接
+     */
+    @Scheduled(fixedDelayString = "${smartmes.dashboard.stream.heartbeat-interval-ms:30000}")
+    public void heartbeat() {
+        Message heartbeat = new Message(null, null);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.enqueue(-1, heartbeat);
+        }
+    }
+
+    /**
+     * 将当前快照放入新连接的发送队列并登记连接，须持有快照锁
+     * 登记与增量生成互斥：新连接要么收到已包含该次变化的快照，要么在登记后收到该次增量
+     */
+    private void register(Subscriber subscriber) throws JsonProcessingException {
+        subscriber.enqueue(sequence, new Message(EVENT_SNAPSHOT, toJson(snapshot)));
+        subscribers.add(subscriber);
+    }
+
+    private Map<String, Long> currentVersions() {
+        Map<String, Long> versions = new HashMap<>();
+        for (String section : SECTIONS) {
+            versions.put(section, dashboardVersionTracker.getVersion(section));
+        }
+        return versions;
+    }
+
+    private String toJson(Object payload) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(payload);
+    }
+
+    private Object loadSection(String section) {
+        return switch (section) {
+            case SECTION_PRODUCTION_OVERVIEW -> dashboardService.getProductionOverview();
+            case SECTION_DOWNTIME_STATISTICS -> dashboardService.getDowntimeStatistics();
+            case SECTION_WORK_ORDER_PROGRESS -> dashboardService.getWorkOrderProgress();
+            case SECTION_EQUIPMENT_STATUS -> dashboardService.getEquipmentStatus();
+            default -> throw new IllegalArgumentException("Unknown dashboard section: " + section);
+        };
+    }
+
+    private Object getSection(DashboardData data, String section) {
+        return switch (section) {
+            case SECTION_PRODUCTION_OVERVIEW -> data.getProductionOverview();
+            case SECTION_DOWNTIME_STATISTICS -> data.getDowntimeStatistics();
+            case SECTION_WORK_ORDER_PROGRESS -> data.getWorkOrderProgress();
+            case SECTION_EQUIPMENT_STATUS -> data.getEquipmentStatus();
+            default -> throw new IllegalArgumentException("Unknown dashboard section: " + section);
+        };
+    }
+
+    private void setSection(DashboardData data, String section, Object value) {
+        switch (section) {
+            case SECTION_PRODUCTION_OVERVIEW -> data.setProductionOverview((ProductionOverview) value);
+            case SECTION_DOWNTIME_STATISTICS -> data.setDowntimeStatistics((DowntimeStatistics) value);
+            case SECTION_WORK_ORDER_PROGRESS -> data.setWorkOrderProgress((WorkOrderProgress) value);
+            case SECTION_EQUIPMENT_STATUS -> data.setEquipmentStatus((EquipmentStatusData) value);
+            default -> throw new IllegalArgumentException("Unknown dashboard section: " + section);
+        }
+    }
+
+    private DashboardData copyOf(DashboardData data) {
+        return new DashboardData(data.getProductionOverview(), data.getDowntimeStatistics(),
+                data.getWorkOrderProgress(), data.getEquipmentStatus(), data.getSectionStatus());
+    }
+
+    /**
+     * 待发送的事件，事件名为null时为心跳注释
+     */
+    private record Message(String eventName, String json) {
+
+        private SseEmitter.SseEventBuilder toEvent() {
+            return eventName == null
+                    ? SseEmitter.event().comment("heartbeat")
+                    : SseEmitter.event().name(eventName).data(json, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    /**
+     * 单个订阅连接
+     * 待发送事件在连接自身的队列中按序排队，由发送线程池逐条发送，同一时间每个连接最多占用一个发送线程；
+     * 队列状态只在持有本对象锁时访问
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Deque<Message> queue = new ArrayDeque<>();
+
+        /**
+         * 已入队的最大增量序号
+         */
+        private long sequence = -1;
+        private boolean draining;
+        private boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * 事件入队，已包含在快照中的增量跳过
+         *
+         * @param pushSequence 增量序号，心跳为-1
+         * @param message 事件
+         */
+        private void enqueue(long pushSequence, Message message) {
+            boolean overflow = false;
+            boolean schedule = false;
+            synchronized (this) {
+                if (closed || (pushSequence >= 0 && pushSequence <= sequence)) {
+                    return;
+                }
+                if (pushSequence >= 0) {
+                    sequence = pushSequence;
+                }
+                if (queue.size() >= maxQueuedEvents) {
+                    overflow = true;
+                } else {
+                    queue.add(message);
+                    schedule = !draining;
+                    draining = true;
+                }
+            }
+
+            if (overflow) {
+                // 客户端长时间不读取，断开后由浏览器重连并重新获取快照
+                log.warn("看板推送连接积压超过{}条，断开连接", maxQueuedEvents);
+                close();
+                emitter.complete();
+            } else if (schedule) {
+                try {
+                    dashboardStreamExecutor.execute(this::drain);
+                } catch (TaskRejectedException e) {
+                    close();
+                }
+            }
+        }
+
+        /**
+         * 逐条发送队列中的事件，发送失败时移除连接
+         */
+        private void drain() {
+            while (true) {
+                Message message;
+                synchronized (this) {
+                    message = queue.poll();
+                    if (message == null || closed) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(message.toEvent());
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("看板推送连接已断开: {}", e.getMessage());
+                    close();
+                    return;
+                }
+            }
+        }
+
+        private void close() {
+            synchronized (this) {
+                closed = true;
+                queue.clear();
+            }
+            subscribers.remove(this);
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.smartmes.service.impl;
+
+import com.smartmes.dto.DowntimeIngestionStats;
+import com.smartmes.dto.DowntimeReportDTO;
+import com.smartmes.entity.DowntimeReport;
+import com.smartmes.event.DowntimeReportChangedEvent;
+import com.smartmes.event.DowntimeReportChangedEvent.ChangeType;
+import com.smartmes.mapper.DowntimeMapper;
+import com.smartmes.service.DowntimeIngestionService;
+import com.smartmes.service.DowntimeService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Downtime Ingestion Service Implementation
+ * Accepted reports wait in a bounded queue; a single writer thread groups them into batches
+ * (up to batch-size, or whatever arrived within linger-ms) and inserts each batch through a
+ * BATCH-executor MyBatis session in one transaction, publishing one REPORTED event per report.
+ * Capacity covers queued and in-flight reports; a full queue rejects new requests (backpressure).
+ * A failed batch is retried row by row so one bad report does not drop the others.
+ * Queued reports are lost if the process dies; a normal shutdown drains the queue first.
+ * 异常停机异步批量接入实现：有界队列 + 单写线程按批次写入，队列满时拒绝新请求
+ */
+@Slf4j
+@Service
+public class DowntimeIngestionServiceImpl implements DowntimeIngestionService {
+
+    /**
+     * Writer idle poll interval, bounds how long shutdown waits for an idle writer
+     * 写线程空闲时的轮询间隔
+     */
+    private static final long IDLE_POLL_MS = 200;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private DowntimeMapper downtimeMapper;
+
+    @Autowired
+    private DowntimeService downtimeService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Whether ingestion is asynchronous; when disabled each report is written synchronously
+     * 是否启用异步接入，未启用时逐条同步写入
+     */
+    @Value("${smartmes.downtime.ingestion.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Maximum reports accepted but not yet written
+     * 已受理未写入的记录数上限
+     */
+    @Value("${smartmes.downtime.ingestion.queue-capacity:10000}")
+    private int queueCapacity;
+
+    /**
+     * Maximum reports per batch
+     * 每批最多写入的记录数
+     */
+    @Value("${smartmes.downtime.ingestion.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * How long the writer waits for a batch to fill after the first report arrives
+     * 收到首条记录后等待凑批的最长时间
+     */
+    @Value("${smartmes.downtime.ingestion.linger-ms:50}")
+    private long lingerMs;
+
+    /**
+     * How long a request waits for queue capacity before it is rejected
+     * 队列已满时请求等待空位的最长时间
+     */
+    @Value("${smartmes.downtime.ingestion.offer-timeout-ms:100}")
+    private long offerTimeoutMs;
+
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * Free capacity, released after the batch holding the report is written
+     * 剩余容量，记录所在批次写入后归还
+     */
+    private Semaphore capacity;
+
+    private Thread writer;
+
+    private volatile boolean stopping;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder flushNanosTotal = new LongAdder();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private volatile int lastBatchSize;
+    private volatile long lastFlushNanos;
+    private volatile long lastQueueLatencyNanos;
+
+    @PostConstruct
+    public void init() {
+        if (queueCapacity <= 0 || batchSize <= 0) {
+            throw new IllegalStateException("smartmes.downtime.ingestion.queue-capacity and batch-size must be positive: "
+                    + queueCapacity + ", " + batchSize);
+        }
+        capacity = new Semaphore(queueCapacity);
+        if (!enabled) {
+            return;
+        }
+        writer = new Thread(this::runWriter, "downtime-ingest");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Accept reports for asynchronous batched writing
+     * 受理一组异常上报
+     */
+    @Override
+    public boolean offer(List<DowntimeReportDTO> reports) {
+        if (reports.size() > queueCapacity) {
+            throw new RuntimeException("Too many reports in one request: " + reports.size()
+                    + " (queue capacity " + queueCapacity + ")");
+        }
+
+        if (!enabled) {
+            reports.forEach(downtimeService::reportDowntime);
+            accepted.add(reports.size());
+            written.add(reports.size());
+            return true;
+        }
+
+        if (stopping) {
+            throw new RuntimeException("Downtime ingestion is shutting down");
+        }
+        try {
+            if (!capacity.tryAcquire(reports.size(), offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                rejected.add(reports.size());
+                log.warn("Downtime ingestion queue full, rejected {} reports", reports.size());
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for ingestion queue capacity", e);
+        }
+
+        long now = System.nanoTime();
+        for (DowntimeReportDTO reportDTO : reports) {
+            queue.add(new Pending(DowntimeServiceImpl.newReport(reportDTO), now));
+        }
+        accepted.add(reports.size());
+        return true;
+    }
+
+    /**
+     * Get queue depth and batch write metrics
+     * 获取接入队列深度与批量写入统计
+     */
+    @Override
+    public DowntimeIngestionStats getStats() {
+        long batchCount = batches.sum();
+        return DowntimeIngestionStats.builder()
+                .enabled(enabled)
+                .queueDepth(queueCapacity - capacity.availablePermits())
+                .queueCapacity(queueCapacity)
+                .acceptedCount(accepted.sum())
+                .rejectedCount(rejected.sum())
+                .writtenCount(written.sum())
+                .failedCount(failed.sum())
+                .batchCount(batchCount)
+                .lastBatchSize(lastBatchSize)
+                .lastFlushMillis(TimeUnit.NANOSECONDS.toMillis(lastFlushNanos))
+                .avgFlushMillis(batchCount == 0 ? 0.0
+                        : Math.round(flushNanosTotal.sum() / 1_000_000.0 / batchCount * 100) / 100.0)
+                .maxFlushMillis(TimeUnit.NANOSECONDS.toMillis(maxFlushNanos.get()))
+                .lastQueueLatencyMillis(TimeUnit.NANOSECONDS.toMillis(lastQueueLatencyNanos))
+                .build();
+    }
+
+    /**
+     * Stop accepting and drain the queue before shutdown
+     * Runs when context close begins (before singletons are destroyed) so change events still reach their listeners
+     * 停机前停止受理并写入队列中剩余的记录
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        if (writer == null) {
+            return;
+        }
+        stopping = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.error("Downtime ingestion stopped with {} reports not written", queue.size());
+        }
+    }
+
+    private void runWriter() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (true) {
+            try {
+                Pending first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (stopping) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                stopping = true;
+            }
+
+            if (!batch.isEmpty()) {
+                try {
+                    write(batch);
+                } catch (RuntimeException e) {
+                    log.error("Unexpected error writing downtime batch", e);
+                } finally {
+                    capacity.release(batch.size());
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Take whatever is queued, waiting up to linger-ms for the batch to fill (no waiting while stopping)
+     * 取出已排队的记录，未满一批时最多等待 linger-ms
+     */
+    private void fillBatch(List<Pending> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || stopping) {
+                return;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Insert one batch in a single transaction through a BATCH-executor session; on failure retry row by row
+     * 一个事务内以批处理会话写入一批记录，失败时逐条重试
+     */
+    private void write(List<Pending> batch) {
+        long started = System.nanoTime();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+                    DowntimeMapper batchMapper = session.getMapper(DowntimeMapper.class);
+                    for (Pending pending : batch) {
+                        batchMapper.insert(pending.report());
+                    }
+                    // Execute the JDBC batch now so generated IDs are set before events are published
+                    session.flushStatements();
+                    session.commit();
+                }
+                for (Pending pending : batch) {
+                    publishReported(pending.report());
+                }
+            });
+            written.add(batch.size());
+        } catch (RuntimeException e) {
+            log.error("Downtime batch of {} reports failed, retrying one by one", batch.size(), e);
+            for (Pending pending : batch) {
+                writeOne(transactionTemplate, pending.report());
+            }
+        }
+        recordFlush(batch, started);
+    }
+
+    private void writeOne(TransactionTemplate transactionTemplate, DowntimeReport report) {
+        report.setReportId(null);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (downtimeMapper.insert(report) == 0) {
+                    throw new RuntimeException("Failed to insert downtime report");
+                }
+                publishReported(report);
+            });
+            written.increment();
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.error("Dropped downtime report for order: {}, equipment: {}",
+                    report.getOrderId(), report.getEquipmentId(), e);
+        }
+    }
+
+    private void publishReported(DowntimeReport report) {
+        eventPublisher.publishEvent(DowntimeReportChangedEvent.of(ChangeType.REPORTED, null, null, report));
+    }
+
+    private void recordFlush(List<Pending> batch, long started) {
+        long finished = System.nanoTime();
+        long elapsed = finished - started;
+
+        batches.increment();
+        flushNanosTotal.add(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+        lastBatchSize = batch.size();
+        lastFlushNanos = elapsed;
+        // The queue is FIFO, so the first report in the batch waited longest
+        lastQueueLatencyNanos = finished - batch.get(0).acceptedAt();
+        log.debug("Downtime batch written: {} reports in {} ms", batch.size(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    /**
+     * Accepted report waiting to be written
+     * 待写入的记录及受理时间
+     *
+     * @param report Report entity
+     * @param acceptedAt Acceptance time (System.nanoTime)
+     */
+    private record Pending(DowntimeReport report, long acceptedAt) {
+    }
+}
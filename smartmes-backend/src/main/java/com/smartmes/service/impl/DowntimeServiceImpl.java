@@ -1,14 +1,25 @@
 package com.smartmes.service.impl;
 
+import com.smartmes.cache.DowntimeStatisticsStore;
+import com.smartmes.cache.EquipmentDowntimeTracker;
+import com.smartmes.cache.EquipmentDowntimeTracker.RankBy;
+import com.smartmes.cache.EquipmentDowntimeTracker.Window;
+import com.smartmes.cache.PageTotalCache;
+import com.smartmes.cache.PageTotalCache.PageTotal;
+import com.smartmes.common.KeysetCursor;
 import com.smartmes.common.PageResult;
+import com.smartmes.common.TotalMode;
 import com.smartmes.dto.*;
 import com.smartmes.entity.DowntimeReport;
 import com.smartmes.enums.DowntimeStatus;
+import com.smartmes.event.DowntimeReportChangedEvent;
+import com.smartmes.event.DowntimeReportChangedEvent.ChangeType;
 import com.smartmes.mapper.DowntimeMapper;
 import com.smartmes.service.DowntimeService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,6 +39,18 @@ public class DowntimeServiceImpl implements DowntimeService {
     @Autowired
     private DowntimeMapper downtimeMapper;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EquipmentDowntimeTracker equipmentDowntimeTracker;
+
+    @Autowired
+    private PageTotalCache pageTotalCache;
+
+    @Autowired
+    private DowntimeStatisticsStore downtimeStatisticsStore;
+
     /**
      * Report downtime incident
      * 上报异常停机
@@ -38,6 +61,24 @@ public class DowntimeServiceImpl implements DowntimeService {
         log.info("Reporting downtime for order: {}, equipment: {}",
                 reportDTO.getOrderId(), reportDTO.getEquipmentId());
 
+        DowntimeReport report = newReport(reportDTO);
+
+        // Insert into database
+        int rows = downtimeMapper.insert(report);
+        if (rows == 0) {
+            throw new RuntimeException("Failed to insert downtime report");
+        }
+
+        eventPublisher.publishEvent(DowntimeReportChangedEvent.of(ChangeType.REPORTED, null, null, report));
+        log.info("Downtime report created with ID: {}", report.getReportId());
+        return report;
+    }
+
+    /**
+     * Build a new report entity from the DTO
+     * 由上报数据构建待写入的异常记录（默认状态、时间及停机时长）
+     */
+    static DowntimeReport newReport(DowntimeReportDTO reportDTO) {
         // Create entity from DTO
         DowntimeReport report = new DowntimeReport();
         BeanUtils.copyProperties(reportDTO, report);
@@ -49,14 +90,6 @@ public class DowntimeServiceImpl implements DowntimeService {
         if (reportDTO.getEndTime() != null) {
             report.calculateDuration();
         }
-
-        // Insert into database
-        int rows = downtimeMapper.insert(report);
-        if (rows == 0) {
-            throw new RuntimeException("Failed to insert downtime report");
-        }
-
-        log.info("Downtime report created with ID: {}", report.getReportId());
         return report;
     }
 
@@ -68,16 +101,79 @@ public class DowntimeServiceImpl implements DowntimeService {
     public PageResult<DowntimeReport> queryReports(DowntimeQueryDTO queryDTO) {
         log.info("Querying downtime reports with filters: {}", queryDTO);
 
+        if (queryDTO.getSortColumn() == null) {
+            throw new RuntimeException("Unsupported sort field: " + queryDTO.getSortBy());
+        }
+
         // Calculate offset for pagination
         int offset = (queryDTO.getPageNum() - 1) * queryDTO.getPageSize();
         queryDTO.setPageNum(offset);
 
         // Query data
         List<DowntimeReport> records = downtimeMapper.findByConditions(queryDTO);
-        Long total = downtimeMapper.countByConditions(queryDTO);
+        int pageNum = offset / queryDTO.getPageSize() + 1;
+
+        // A partial page already tells the total, no COUNT needed
+        // 未取满一页时总数可直接得出，无需统计
+        if (records.size() < queryDTO.getPageSize() && (offset == 0 || !records.isEmpty())) {
+            return PageResult.of(records, (long) offset + records.size(), pageNum, queryDTO.getPageSize(),
+                    TotalMode.EXACT);
+        }
+
+        PageTotal total = countReports(queryDTO);
+
+        log.info("Found {} downtime reports ({})", total.total(), total.mode());
+        return PageResult.of(records, total.total(), pageNum, queryDTO.getPageSize(), total.mode());
+    }
+
+    /**
+     * Query downtime reports with keyset pagination
+     * 游标分页查询异常停机列表
+     */
+    @Override
+    public PageResult<DowntimeReport> queryReportsByCursor(DowntimeQueryDTO queryDTO) {
+        log.info("Querying downtime reports by cursor with filters: {}", queryDTO);
+
+        int pageSize = queryDTO.getPageSize() != null ? queryDTO.getPageSize() : 0;
+        if (pageSize <= 0) {
+            throw new RuntimeException("Page size must be positive: " + queryDTO.getPageSize());
+        }
+        if (queryDTO.getCursor() != null && !queryDTO.getCursor().isEmpty()) {
+            queryDTO.seekAfter(KeysetCursor.decode(queryDTO.getCursor()));
+        }
 
-        log.info("Found {} downtime reports", total);
-        return PageResult.of(records, total, queryDTO.getPageNum() / queryDTO.getPageSize() + 1, queryDTO.getPageSize());
+        // Seek past the cursor and fetch one extra row to tell whether another page exists, no COUNT
+        // 从游标位置之后多取一条判断是否还有下一页，不做COUNT
+        List<DowntimeReport> fetched = downtimeMapper.findByCursor(queryDTO);
+
+        String nextCursor = null;
+        List<DowntimeReport> records = fetched;
+        if (fetched.size() > pageSize) {
+            records = fetched.subList(0, pageSize);
+            DowntimeReport last = records.get(pageSize - 1);
+            nextCursor = new KeysetCursor(last.getStartTime(), String.valueOf(last.getReportId())).encode();
+        }
+        if (!Boolean.TRUE.equals(queryDTO.getWithTotal())) {
+            return PageResult.ofCursor(records, pageSize, nextCursor, null, null);
+        }
+        PageTotal total = countReports(queryDTO);
+        return PageResult.ofCursor(records, pageSize, nextCursor, total.total(), total.mode());
+    }
+
+    /**
+     * Count reports matching the filters in the requested total mode
+     * 按请求的统计方式统计符合条件的记录数（以规范化后的条件作为缓存键）
+     */
+    private PageTotal countReports(DowntimeQueryDTO queryDTO) {
+        return pageTotalCache.total(PageTotalCache.DOWNTIME_REPORT, queryDTO.getTotalMode(),
+                () -> downtimeMapper.countByConditions(queryDTO),
+                blankToNull(queryDTO.getOrderId()), blankToNull(queryDTO.getEquipmentId()), queryDTO.getDowntimeType(),
+                queryDTO.getStatus(), queryDTO.getStartTimeLowerBound(), queryDTO.getStartTimeUpperBound(),
+                blankToNull(queryDTO.getReporterId()));
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
     }
 
     /**
@@ -113,12 +209,18 @@ public class DowntimeServiceImpl implements DowntimeService {
             throw new RuntimeException("Only pending reports can be responded to");
         }
 
-        // Update responder and status
+        // Update status only if still pending, then the responder on the row now held by this transaction
+        DowntimeStatus previousStatus = report.getStatus();
+        int rows = downtimeMapper.updateStatus(reportId, previousStatus, DowntimeStatus.PROCESSING);
+        if (rows != 1) {
+            throw new RuntimeException("Downtime report was modified concurrently: " + reportId);
+        }
         downtimeMapper.updateResponder(reportId, respondDTO.getResponderId());
-        downtimeMapper.updateStatus(reportId, DowntimeStatus.PROCESSING);
 
         // Get updated report
         report = getReportById(reportId);
+        eventPublisher.publishEvent(DowntimeReportChangedEvent.of(
+                ChangeType.RESPONDED, previousStatus, report.getDurationMinutes(), report));
         log.info("Downtime report {} responded by {}", reportId, respondDTO.getResponderId());
 
         return report;
@@ -147,17 +249,22 @@ public class DowntimeServiceImpl implements DowntimeService {
         }
 
         // Update resolution info
+        DowntimeStatus previousStatus = report.getStatus();
+        Integer previousDuration = report.getDurationMinutes();
         report.setEndTime(resolveDTO.getEndTime());
         report.setSolution(resolveDTO.getSolution());
         report.setStatus(DowntimeStatus.RESOLVED);
         report.calculateDuration();
         report.setUpdatedAt(LocalDateTime.now());
 
-        int rows = downtimeMapper.updateResolution(report);
-        if (rows == 0) {
-            throw new RuntimeException("Failed to update downtime report");
+        // Guarded on the status read above, so the event's previous status and duration are the replaced ones
+        int rows = downtimeMapper.updateResolution(report, previousStatus);
+        if (rows != 1) {
+            throw new RuntimeException("Downtime report was modified concurrently: " + reportId);
         }
 
+        eventPublisher.publishEvent(DowntimeReportChangedEvent.of(
+                ChangeType.RESOLVED, previousStatus, previousDuration, report));
         log.info("Downtime report {} resolved. Duration: {} minutes",
                 reportId, report.getDurationMinutes());
 
@@ -172,27 +279,50 @@ public class DowntimeServiceImpl implements DowntimeService {
     public DowntimeStatisticsDTO getStatistics() {
         log.info("Getting downtime statistics");
 
-        // Get basic statistics
-        Long totalReports = downtimeMapper.countTotal();
-        Long totalDuration = downtimeMapper.sumTotalDuration();
-        Long pendingCount = downtimeMapper.countByStatus(DowntimeStatus.PENDING);
-        Long processingCount = downtimeMapper.countByStatus(DowntimeStatus.PROCESSING);
-        Long resolvedCount = downtimeMapper.countByStatus(DowntimeStatus.RESOLVED);
-
-        // Get type distribution
-        List<Map<String, Object>> typeList = downtimeMapper.countByType();
+        // Get basic statistics from the in-memory aggregate, falling back to queries until it is loaded
+        // 优先读取内存统计，未就绪时回退到统计查询
+        Long totalReports;
+        Long totalDuration;
+        Long pendingCount;
+        Long processingCount;
+        Long resolvedCount;
         Map<String, Long> typeDistribution = new HashMap<>();
-        for (Map<String, Object> item : typeList) {
-            String type = (String) item.get("type");
-            Long count = ((Number) item.get("count")).longValue();
-            typeDistribution.put(type, count);
+        DowntimeStatisticsStore.Snapshot snapshot = downtimeStatisticsStore.getSnapshot();
+        if (snapshot != null) {
+            totalReports = snapshot.totalReports();
+            totalDuration = snapshot.totalDurationMinutes();
+            pendingCount = snapshot.count(DowntimeStatus.PENDING);
+            processingCount = snapshot.count(DowntimeStatus.PROCESSING);
+            resolvedCount = snapshot.count(DowntimeStatus.RESOLVED);
+            snapshot.typeCounts().forEach((type, count) -> typeDistribution.put(type.name(), count));
+        } else {
+            totalReports = downtimeMapper.countTotal();
+            totalDuration = downtimeMapper.sumTotalDuration();
+            pendingCount = downtimeMapper.countByStatus(DowntimeStatus.PENDING);
+            processingCount = downtimeMapper.countByStatus(DowntimeStatus.PROCESSING);
+            resolvedCount = downtimeMapper.countByStatus(DowntimeStatus.RESOLVED);
+
+            // Get type distribution
+            List<Map<String, Object>> typeList = downtimeMapper.countByType();
+            for (Map<String, Object> item : typeList) {
+                String type = (String) item.get("type");
+                Long count = ((Number) item.get("count")).longValue();
+                typeDistribution.put(type, count);
+            }
         }
 
-        // Get top equipment statistics
+        // Get top equipment statistics from the in-memory ranking, falling back to aggregate queries
+        // 优先读取内存排行，未就绪时回退到聚合查询
         List<DowntimeStatisticsDTO.EquipmentDowntimeStats> topByIncidents =
-                downtimeMapper.getTopEquipmentByIncidents(5);
+                equipmentDowntimeTracker.top(Window.ALL, RankBy.INCIDENTS, 5);
+        if (topByIncidents == null) {
+            topByIncidents = downtimeMapper.getTopEquipmentByIncidents(5);
+        }
         List<DowntimeStatisticsDTO.EquipmentDowntimeStats> topByDuration =
-                downtimeMapper.getTopEquipmentByDuration(5);
+                equipmentDowntimeTracker.top(Window.ALL, RankBy.MINUTES, 5);
+        if (topByDuration == null) {
+            topByDuration = downtimeMapper.getTopEquipmentByDuration(5);
+        }
 
         // Build statistics DTO
         DowntimeStatisticsDTO statistics = DowntimeStatisticsDTO.builder()
@@ -227,9 +357,11 @@ public class DowntimeServiceImpl implements DowntimeService {
             throw new RuntimeException("Downtime report not found: " + reportId);
         }
 
-        // Delete report
-        int rows = downtimeMapper.delete(reportId);
-        if (rows > 0) {
+        // Delete report only if its status is unchanged, so the event removes the status it was counted under
+        int rows = downtimeMapper.delete(reportId, report.getStatus());
+        if (rows == 1) {
+            eventPublisher.publishEvent(DowntimeReportChangedEvent.of(
+                    ChangeType.DELETED, report.getStatus(), report.getDurationMinutes(), report));
             log.info("Downtime report {} deleted successfully", reportId);
             return true;
         }
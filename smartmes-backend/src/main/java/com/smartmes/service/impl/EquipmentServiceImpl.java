@@ -1,10 +1,16 @@
 package com.smartmes.service.impl;
 
 import com.smartmes.entity.Equipment;
+import com.smartmes.entity.Equipment.EquipmentStatus;
+import com.smartmes.event.EquipmentChangedEvent;
+import com.smartmes.event.EquipmentChangedEvent.ChangeType;
 import com.smartmes.repository.EquipmentRepository;
+import com.smartmes.repository.PersistenceErrors;
 import com.smartmes.service.EquipmentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,17 +30,23 @@ import java.util.List;
 public class EquipmentServiceImpl implements EquipmentService {
 
     private final EquipmentRepository equipmentRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Equipment createEquipment(Equipment equipment) {
         log.info("创建设备: {}", equipment.getEquipmentId());
 
-        // 检查设备编号是否已存在
-        if (equipmentRepository.findByEquipmentId(equipment.getEquipmentId()).isPresent()) {
-            throw new RuntimeException("Equipment ID already exists: " + equipment.getEquipmentId());
+        // 新建设备直接插入，编号重复由主键约束判定
+        Equipment saved;
+        try {
+            saved = equipmentRepository.saveAndFlush(equipment);
+        } catch (DataIntegrityViolationException e) {
+            if (PersistenceErrors.isDuplicateKey(e)) {
+                throw new RuntimeException("Equipment ID already exists: " + equipment.getEquipmentId());
+            }
+            throw e;
         }
-
-        Equipment saved = equipmentRepository.save(equipment);
+        eventPublisher.publishEvent(EquipmentChangedEvent.of(ChangeType.CREATED, null, saved));
         log.info("设备创建成功: {}", saved.getEquipmentId());
         return saved;
     }
@@ -45,6 +57,7 @@ public class EquipmentServiceImpl implements EquipmentService {
 
         Equipment existing = equipmentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Equipment not found with ID: " + id));
+        EquipmentStatus previousStatus = existing.getStatus();
 
         // 更新字段
         existing.setEquipmentName(equipment.getEquipmentName());
@@ -57,6 +70,7 @@ public class EquipmentServiceImpl implements EquipmentService {
         existing.setRemarks(equipment.getRemarks());
 
         Equipment updated = equipmentRepository.save(existing);
+        eventPublisher.publishEvent(EquipmentChangedEvent.of(ChangeType.UPDATED, previousStatus, updated));
         log.info("设备更新成功: {}", updated.getEquipmentId());
         return updated;
     }
@@ -65,11 +79,11 @@ public class EquipmentServiceImpl implements EquipmentService {
     public void deleteEquipment(String id) {
         log.info("删除设备: ID={}", id);
 
-        if (!equipmentRepository.existsById(id)) {
-            throw new RuntimeException("Equipment not found with ID: " + id);
-        }
+        Equipment existing = equipmentRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Equipment not found with ID: " + id));
 
-        equipmentRepository.deleteById(id);
+        equipmentRepository.delete(existing);
+        eventPublisher.publishEvent(EquipmentChangedEvent.of(ChangeType.DELETED, existing.getStatus(), existing));
         log.info("设备删除成功: ID={}", id);
     }
 
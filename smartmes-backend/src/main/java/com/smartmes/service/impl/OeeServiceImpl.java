@@ -0,0 +1,581 @@
+package com.smartmes.service.impl;
+
+import com.smartmes.cache.DowntimeRebuildLog;
+import com.smartmes.common.ShiftCalendar;
+import com.smartmes.dto.EquipmentOee;
+import com.smartmes.entity.DowntimeReport;
+import com.smartmes.entity.Product;
+import com.smartmes.entity.WorkOrder;
+import com.smartmes.enums.DowntimeStatus;
+import com.smartmes.event.DowntimeReportChangedEvent;
+import com.smartmes.event.WorkOrderBatchChangedEvent;
+import com.smartmes.event.WorkOrderChangedEvent;
+import com.smartmes.mapper.DowntimeMapper;
+import com.smartmes.repository.ProductRepository;
+import com.smartmes.repository.WorkOrderRepository;
+import com.smartmes.repository.WorkOrderRepository.WorkOrderOutput;
+import com.smartmes.service.OeeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 设备综合效率（OEE）服务实现类
+ * 按班次和设备在内存中维护停机秒数、理论加工时间、总产量、合格品数量四项累加量：
+ * 停机记录解决后按停机区间与班次的重叠部分计入停机时间，未解决的停机在查询时按开始至当前时间计入，
+ * 工单报工时产量增量计入当前班次，理论加工时间按产品标准工时折算；
+ * 查询时只读取一个班次的累加量计算比率，不执行跨表SQL。
+ * 累加量在启动时以及之后定期从数据库重建并整体替换，初始化失败可自动恢复，漏算的偏差也会被纠正
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OeeServiceImpl implements OeeService {
+
+    private static final int DOWNTIME_SECONDS = 0;
+    private static final int IDEAL_MINUTES = 1;
+    private static final int TOTAL_QTY = 2;
+    private static final int GOOD_QTY = 3;
+
+    private final WorkOrderRepository workOrderRepository;
+    private final ProductRepository productRepository;
+    private final DowntimeMapper downtimeMapper;
+    private final ShiftCalendar shiftCalendar;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * 是否启用OEE累加
+     */
+    @Value("${smartmes.oee.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 班次累加量保留天数
+     */
+    @Value("${smartmes.oee.retention-days:7}")
+    private int retentionDays;
+
+    /**
+     * 当前累加量，重建完成时整体替换，仅在同步块内访问
+     */
+    private OeeTotals totals = new OeeTotals();
+
+    /**
+     * 重建的停机记录变更记录，仅在同步块内访问
+     */
+    private final DowntimeRebuildLog downtimeChangeLog = new DowntimeRebuildLog();
+
+    /**
+     * 重建期间各工单最后一次产量变更，不在重建时为null
+     */
+    private Map<String, WorkOrderChangedEvent> pendingOutput;
+
+    /**
+     * 产量变更已进入提交、尚未收到提交后事件的工单ID -> 提交中的事务数
+     */
+    private final Map<String, Integer> committingOutput = new HashMap<>();
+
+    /**
+     * 上次重建完成时产量变更仍在提交中的工单ID -> 重建结果中该工单的产量
+     */
+    private final Map<String, Integer> deferredOutput = new HashMap<>();
+
+    /**
+     * 同一时间只有一个线程执行重建（启动时与定时重建可能重叠）
+     */
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private volatile boolean loaded;
+
+    @Override
+    public List<EquipmentOee> getShiftOee(LocalDateTime time, String equipmentId) {
+        if (!enabled || !loaded) {
+            return null;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime shiftStart = shiftCalendar.shiftStart(time != null ? time : now);
+        LocalDateTime shiftEnd = shiftStart.plusHours(shiftCalendar.getShiftHours());
+        if (shiftStart.isAfter(now)) {
+            return List.of();
+        }
+
+        // 只在锁内复制一个班次的累加量
+        Map<String, long[]> shiftTotals = new TreeMap<>();
+        synchronized (this) {
+            Map<String, long[]> byEquipment = totals.shifts.get(shiftStart);
+            if (byEquipment != null) {
+                byEquipment.forEach((id, values) -> {
+                    if (equipmentId == null || equipmentId.equals(id)) {
+                        shiftTotals.put(id, values.clone());
+                    }
+                });
+            }
+            // 未解决的停机尚无时长，按开始至当前时间与班次的重叠部分计入，设备仍在停机时可用率随之下降
+            for (DowntimeReport report : totals.openDowntime.values()) {
+                if (equipmentId == null || equipmentId.equals(report.getEquipmentId())) {
+                    long seconds = overlapSeconds(report.getStartTime(), now, shiftStart);
+                    if (seconds > 0) {
+                        shiftTotals.computeIfAbsent(report.getEquipmentId(), id -> new long[4])[DOWNTIME_SECONDS] += seconds;
+                    }
+                }
+            }
+        }
+
+        double plannedMinutes = Duration.between(shiftStart, now.isBefore(shiftEnd) ? now : shiftEnd).getSeconds() / 60.0;
+        List<EquipmentOee> result = new ArrayList<>(shiftTotals.size());
+        shiftTotals.forEach((id, values) -> result.add(toOee(id, shiftStart, shiftEnd, plannedMinutes, values)));
+        return result;
+    }
+
+    /**
+     * 应用启动完成后从数据库初始化保留期内的累加量
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 从数据库重建保留期内的累加量并整体替换
+     * 已解决的停机记录按区间拆分到班次，工单产量按开工至完工（未完工为当前时间）的时长比例分摊到班次；
+     * 重建查询在同一可重复读事务内读取同一快照，查询期间提交的变更先记录下来，
+     * 替换前按快照状态与最后状态补计；重建完成时仍在提交中的变更，
+     * 其提交后事件按重建结果中的状态补计。快照之前或之后提交的变更都只计算一次
+     */
+    @Scheduled(fixedDelayString = "${smartmes.oee.rebuild-interval-ms:600000}",
+               initialDelayString = "${smartmes.oee.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        rebuildLock.lock();
+        try {
+            synchronized (this) {
+                downtimeChangeLog.start();
+                pendingOutput = new LinkedHashMap<>();
+            }
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+            transactionTemplate.setReadOnly(true);
+            transactionTemplate.executeWithoutResult(status -> load());
+        } catch (Exception e) {
+            synchronized (this) {
+                downtimeChangeLog.abort();
+            }
+            log.error("OEE重建失败", e);
+        } finally {
+            synchronized (this) {
+                pendingOutput = null;
+            }
+            rebuildLock.unlock();
+        }
+    }
+
+    private void load() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = retentionStart(now);
+
+        Map<String, Integer> standardWorkTimes = new HashMap<>();
+        for (Product product : productRepository.findAll()) {
+            if (product.getStandardWorkTime() != null) {
+                standardWorkTimes.put(product.getProductCode(), product.getStandardWorkTime());
+            }
+        }
+        List<DowntimeReport> downtimeReports = downtimeMapper.findStartedSince(since);
+        List<DowntimeReport> unresolvedReports = downtimeMapper.findUnresolved();
+        List<WorkOrderOutput> outputs = workOrderRepository.findOutputSince(since);
+
+        OeeTotals fresh = new OeeTotals();
+        for (DowntimeReport report : downtimeReports) {
+            fresh.addReport(report, 1, since);
+        }
+        for (DowntimeReport report : unresolvedReports) {
+            fresh.addReport(report, 1, since);
+        }
+        for (WorkOrderOutput output : outputs) {
+            fresh.addSpreadOutput(output, standardWorkTimes.getOrDefault(output.getProductCode(), 0), now, since);
+        }
+
+        synchronized (this) {
+            // 补计重建期间提交的变更
+            int changes = downtimeChangeLog.size() + pendingOutput.size();
+            downtimeChangeLog.finish(downtimeMapper, (seen, after) -> {
+                fresh.addReport(seen, -1, since);
+                fresh.addReport(after, 1, since);
+            });
+            Set<String> orderIds = new HashSet<>(pendingOutput.keySet());
+            orderIds.addAll(committingOutput.keySet());
+            Map<String, Integer> seenQty = new HashMap<>();
+            for (WorkOrder workOrder : workOrderRepository.findAllById(orderIds)) {
+                seenQty.put(workOrder.getId(), workOrder.getActualQty() != null ? workOrder.getActualQty() : 0);
+            }
+            LocalDateTime replayTime = LocalDateTime.now();
+            for (WorkOrderChangedEvent event : pendingOutput.values()) {
+                int qtyDelta = event.getCurrentActualQty() - seenQty.getOrDefault(event.getOrderId(), 0);
+                fresh.addOutput(event.getEquipmentId(), qtyDelta,
+                        standardWorkTimes.getOrDefault(event.getProductCode(), 0), replayTime);
+            }
+            // 仍在提交中的工单，其提交后事件按重建结果中的产量补计
+            deferredOutput.clear();
+            for (String orderId : committingOutput.keySet()) {
+                WorkOrderChangedEvent latest = pendingOutput.get(orderId);
+                deferredOutput.put(orderId, latest != null ? latest.getCurrentActualQty() : seenQty.getOrDefault(orderId, 0));
+            }
+
+            // 产量按时长比例重新分摊到班次，分布与按报工时间计入不同，只以停机时间判断偏差
+            if (loaded && !downtimeChangeLog.hasDeferred() && !totals.sameDowntime(fresh)) {
+                log.warn("OEE停机累加量与数据库存在偏差，已按数据库纠正");
+            }
+            totals = fresh;
+            loaded = true;
+            log.info("OEE重建完成，停机记录{}条，未解决停机{}条，工单{}条，班次{}个，重建期间变更{}条",
+                    downtimeReports.size(), unresolvedReports.size(), outputs.size(), fresh.shifts.size(), changes);
+        }
+    }
+
+    /**
+     * 工单产量变更事务提交前登记，重建完成时仍未收到提交后事件的工单按重建结果补计
+     *
+     * @param event 工单变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public synchronized void beforeWorkOrderCommit(WorkOrderChangedEvent event) {
+        if (isOutputChange(event)) {
+            committingOutput.merge(event.getOrderId(), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * 工单批量变更事务提交前逐条登记
+     *
+     * @param event 工单批量变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void beforeWorkOrderBatchCommit(WorkOrderBatchChangedEvent event) {
+        event.getChanges().forEach(this::beforeWorkOrderCommit);
+    }
+
+    /**
+     * 工单事务回滚后注销登记
+     *
+     * @param event 工单变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public synchronized void afterWorkOrderRollback(WorkOrderChangedEvent event) {
+        if (isOutputChange(event)) {
+            committingOutput.computeIfPresent(event.getOrderId(), (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * 工单批量变更事务回滚后逐条注销登记
+     *
+     * @param event 工单批量变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void afterWorkOrderBatchRollback(WorkOrderBatchChangedEvent event) {
+        event.getChanges().forEach(this::afterWorkOrderRollback);
+    }
+
+    /**
+     * 工单事务提交后将产量增量计入设备当前班次
+     * 删除工单不回退已计入的产量（设备已实际加工）；重建期间只记录各工单最后一次变更，
+     * 重建完成时仍在提交中的工单按重建结果中的产量计算增量
+     *
+     * @param event 工单变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onWorkOrderChanged(WorkOrderChangedEvent event) {
+        if (!isOutputChange(event)) {
+            return;
+        }
+        int qtyDelta;
+        OeeTotals target;
+        synchronized (this) {
+            committingOutput.computeIfPresent(event.getOrderId(), (key, count) -> count > 1 ? count - 1 : null);
+            if (pendingOutput != null) {
+                pendingOutput.put(event.getOrderId(), event);
+            }
+            Integer loadedQty = deferredOutput.remove(event.getOrderId());
+            qtyDelta = loadedQty != null ? event.getCurrentActualQty() - loadedQty : event.getActualQtyDelta();
+            if (!loaded || qtyDelta == 0) {
+                return;
+            }
+            target = totals;
+        }
+
+        int standardWorkTime = event.getProductCode() == null ? 0 : productRepository.findById(event.getProductCode())
+                .map(Product::getStandardWorkTime)
+                .orElse(0);
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (this) {
+            // 期间完成的重建已包含该变更（已提交的产量或重建期间记录的变更），不再重复计入
+            if (totals == target) {
+                target.addOutput(event.getEquipmentId(), qtyDelta, standardWorkTime, now);
+                target.purge(now);
+            }
+        }
+    }
+
+    /**
+     * 工单批量变更事务提交后逐条计入产量增量
+     *
+     * @param event 工单批量变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onWorkOrderBatchChanged(WorkOrderBatchChangedEvent event) {
+        event.getChanges().forEach(this::onWorkOrderChanged);
+    }
+
+    /**
+     * 停机记录变更事务提交前登记，重建完成时仍未收到提交后事件的记录按状态替换计入
+     *
+     * @param event 停机记录变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public synchronized void beforeDowntimeReportCommit(DowntimeReportChangedEvent event) {
+        downtimeChangeLog.beforeCommit(event);
+    }
+
+    /**
+     * 停机记录变更事务回滚后注销登记
+     *
+     * @param event 停机记录变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public synchronized void afterDowntimeReportRollback(DowntimeReportChangedEvent event) {
+        downtimeChangeLog.afterRollback(event);
+    }
+
+    /**
+     * 停机记录事务提交后更新停机时间
+     * 先扣除变更前的状态（已解决记录的停机区间或未解决记录），再计入变更后的状态
+     *
+     * @param event 停机记录变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onDowntimeReportChanged(DowntimeReportChangedEvent event) {
+        LocalDateTime since = retentionStart(LocalDateTime.now());
+        OeeTotals current = totals;
+        if (downtimeChangeLog.afterCommit(event, (seen, after) -> {
+            current.addReport(seen, -1, since);
+            current.addReport(after, 1, since);
+        })) {
+            return;
+        }
+        DowntimeReport report = event.getReport();
+        if (!loaded || report == null || report.getEquipmentId() == null || report.getStartTime() == null) {
+            return;
+        }
+
+        if (event.getPreviousStatus() == DowntimeStatus.RESOLVED) {
+            current.addDowntime(report.getEquipmentId(), report.getStartTime(), event.getPreviousDurationMinutes(), -1, since);
+        } else if (event.getPreviousStatus() != null) {
+            current.openDowntime.remove(report.getReportId());
+        }
+        DowntimeStatus currentStatus = event.getCurrentStatus();
+        if (currentStatus == DowntimeStatus.RESOLVED) {
+            current.addDowntime(report.getEquipmentId(), report.getStartTime(), report.getDurationMinutes(), 1, since);
+        } else if (currentStatus != null) {
+            current.openDowntime.put(report.getReportId(), report);
+        }
+        current.purge(LocalDateTime.now());
+    }
+
+    /**
+     * 是否为计入产量的工单变更，删除工单不回退已计入的产量
+     */
+    private static boolean isOutputChange(WorkOrderChangedEvent event) {
+        return event.getActualQtyDelta() != 0 && event.getEquipmentId() != null
+                && event.getChangeType() != WorkOrderChangedEvent.ChangeType.DELETED;
+    }
+
+    private long overlapSeconds(LocalDateTime startTime, LocalDateTime endTime, LocalDateTime shiftStart) {
+        LocalDateTime shiftEnd = shiftStart.plusHours(shiftCalendar.getShiftHours());
+        LocalDateTime from = startTime.isAfter(shiftStart) ? startTime : shiftStart;
+        LocalDateTime to = endTime.isBefore(shiftEnd) ? endTime : shiftEnd;
+        return from.isBefore(to) ? Duration.between(from, to).getSeconds() : 0L;
+    }
+
+    private LocalDateTime retentionStart(LocalDateTime now) {
+        return shiftCalendar.shiftStart(now.minusDays(retentionDays));
+    }
+
+    private EquipmentOee toOee(String equipmentId, LocalDateTime shiftStart, LocalDateTime shiftEnd,
+                               double plannedMinutes, long[] values) {
+        double downtimeMinutes = Math.min(Math.max(values[DOWNTIME_SECONDS], 0L) / 60.0, plannedMinutes);
+        double runMinutes = plannedMinutes - downtimeMinutes;
+
+        Double availability = plannedMinutes > 0 ? runMinutes / plannedMinutes : null;
+        Double performance = runMinutes > 0 ? values[IDEAL_MINUTES] / runMinutes : null;
+        Double quality = values[TOTAL_QTY] > 0 ? (double) values[GOOD_QTY] / values[TOTAL_QTY] : null;
+        Double oee = availability != null && performance != null
+                ? availability * performance * (quality != null ? quality : 1.0) : null;
+
+        return EquipmentOee.builder()
+                .equipmentId(equipmentId)
+                .shiftStart(shiftStart)
+                .shiftEnd(shiftEnd)
+                .plannedMinutes(plannedMinutes)
+                .downtimeMinutes(downtimeMinutes)
+                .runMinutes(runMinutes)
+                .idealMinutes(values[IDEAL_MINUTES])
+                .totalQty(values[TOTAL_QTY])
+                .goodQty(values[GOOD_QTY])
+                .availability(availability)
+                .performance(performance)
+                .quality(quality)
+                .oee(oee)
+                .build();
+    }
+
+    /**
+     * 一份完整的累加量：按班次和设备的四项累加量，以及未解决的停机记录
+     */
+    private final class OeeTotals {
+
+        /**
+         * 班次开始时间 -> 设备ID -> 累加量
+         */
+        private final TreeMap<LocalDateTime, Map<String, long[]>> shifts = new TreeMap<>();
+
+        /**
+         * 未解决的停机记录ID -> 记录（设备、开始时间）
+         */
+        private final Map<Long, DowntimeReport> openDowntime = new HashMap<>();
+
+        /**
+         * 计入或扣除一条停机记录：已解决的记录计入停机区间，未解决的记录登记为正在停机
+         */
+        private void addReport(DowntimeReport report, int sign, LocalDateTime since) {
+            if (report == null || report.getStatus() == null) {
+                return;
+            }
+            if (report.getStatus() == DowntimeStatus.RESOLVED) {
+                addDowntime(report.getEquipmentId(), report.getStartTime(), report.getDurationMinutes(), sign, since);
+            } else if (sign > 0) {
+                if (report.getEquipmentId() != null && report.getStartTime() != null) {
+                    openDowntime.put(report.getReportId(), report);
+                }
+            } else {
+                openDowntime.remove(report.getReportId());
+            }
+        }
+
+        /**
+         * 将产量增量计入设备当前班次
+         */
+        private void addOutput(String equipmentId, long qtyDelta, int standardWorkTime, LocalDateTime now) {
+            if (equipmentId == null || qtyDelta == 0) {
+                return;
+            }
+            long[] values = accumulator(equipmentId, shiftCalendar.shiftStart(now));
+            values[TOTAL_QTY] += qtyDelta;
+            values[GOOD_QTY] += qtyDelta;
+            values[IDEAL_MINUTES] += qtyDelta * standardWorkTime;
+        }
+
+        /**
+         * 将停机区间按与各班次的重叠秒数计入
+         */
+        private void addDowntime(String equipmentId, LocalDateTime startTime, Integer durationMinutes, int sign,
+                                 LocalDateTime since) {
+            if (equipmentId == null || startTime == null || durationMinutes == null || durationMinutes <= 0) {
+                return;
+            }
+            LocalDateTime endTime = startTime.plusMinutes(durationMinutes);
+            for (LocalDateTime shiftStart = shiftCalendar.shiftStart(startTime); shiftStart.isBefore(endTime);
+                 shiftStart = shiftStart.plusHours(shiftCalendar.getShiftHours())) {
+                if (shiftStart.isBefore(since)) {
+                    continue;
+                }
+                long seconds = overlapSeconds(startTime, endTime, shiftStart);
+                accumulator(equipmentId, shiftStart)[DOWNTIME_SECONDS] += sign * seconds;
+            }
+        }
+
+        /**
+         * 工单产量按生产时长与各班次的重叠比例分摊，累计取整保证分摊合计等于产量
+         */
+        private void addSpreadOutput(WorkOrderOutput output, int standardWorkTime, LocalDateTime now,
+                                     LocalDateTime since) {
+            long qty = output.getActualQty();
+            LocalDateTime startTime = output.getStartTime();
+            LocalDateTime endTime = output.getEndTime() != null ? output.getEndTime() : now;
+            long totalSeconds = Math.max(Duration.between(startTime, endTime).getSeconds(), 0);
+
+            long coveredSeconds = 0;
+            long allocated = 0;
+            LocalDateTime shiftStart = shiftCalendar.shiftStart(startTime);
+            do {
+                coveredSeconds += overlapSeconds(startTime, endTime, shiftStart);
+                long cumulative = totalSeconds > 0 ? Math.round((double) qty * coveredSeconds / totalSeconds) : qty;
+                long shiftQty = cumulative - allocated;
+                allocated = cumulative;
+                if (shiftQty != 0 && !shiftStart.isBefore(since)) {
+                    long[] values = accumulator(output.getEquipmentId(), shiftStart);
+                    values[TOTAL_QTY] += shiftQty;
+                    values[GOOD_QTY] += shiftQty;
+                    values[IDEAL_MINUTES] += shiftQty * standardWorkTime;
+                }
+                shiftStart = shiftStart.plusHours(shiftCalendar.getShiftHours());
+            } while (shiftStart.isBefore(endTime));
+        }
+
+        private long[] accumulator(String equipmentId, LocalDateTime shiftStart) {
+            return shifts.computeIfAbsent(shiftStart, key -> new HashMap<>())
+                    .computeIfAbsent(equipmentId, key -> new long[4]);
+        }
+
+        /**
+         * 清理保留期之前的班次
+         */
+        private void purge(LocalDateTime now) {
+            shifts.headMap(retentionStart(now)).clear();
+        }
+
+        /**
+         * 停机秒数与未解决的停机记录是否一致
+         */
+        private boolean sameDowntime(OeeTotals other) {
+            return openDowntime.keySet().equals(other.openDowntime.keySet())
+                    && downtimeSeconds().equals(other.downtimeSeconds());
+        }
+
+        private Map<LocalDateTime, Map<String, Long>> downtimeSeconds() {
+            Map<LocalDateTime, Map<String, Long>> seconds = new HashMap<>();
+            shifts.forEach((shiftStart, byEquipment) -> byEquipment.forEach((equipmentId, values) -> {
+                if (values[DOWNTIME_SECONDS] != 0) {
+                    seconds.computeIfAbsent(shiftStart, key -> new HashMap<>()).put(equipmentId, values[DOWNTIME_SECONDS]);
+                }
+            }));
+            return seconds;
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.smartmes.service.impl;
 
 import com.smartmes.entity.Product;
+import com.smartmes.repository.PersistenceErrors;
 import com.smartmes.repository.ProductRepository;
 import com.smartmes.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,12 +31,16 @@ public class ProductServiceImpl implements ProductService {
     public Product createProduct(Product product) {
         log.info("创建产品: {}", product.getProductCode());
 
-        // 检查产品编号是否已存在
-        if (productRepository.findByProductCode(product.getProductCode()).isPresent()) {
-            throw new RuntimeException("Product code already exists: " + product.getProductCode());
+        // 新建产品直接插入，编号重复由主键约束判定
+        Product saved;
+        try {
+            saved = productRepository.saveAndFlush(product);
+        } catch (DataIntegrityViolationException e) {
+            if (PersistenceErrors.isDuplicateKey(e)) {
+                throw new RuntimeException("Product code already exists: " + product.getProductCode());
+            }
+            throw e;
         }
-
-        Product saved = productRepository.save(product);
         log.info("产品创建成功: {}", saved.getProductCode());
         return saved;
     }
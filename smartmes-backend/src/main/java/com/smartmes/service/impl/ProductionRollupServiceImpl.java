@@ -0,0 +1,247 @@
+package com.smartmes.service.impl;
+
+import com.smartmes.dto.DailyProductionStats;
+import com.smartmes.entity.DailyProductionRollup;
+import com.smartmes.entity.WorkOrder.WorkOrderStatus;
+import com.smartmes.event.WorkOrderBatchChangedEvent;
+import com.smartmes.event.WorkOrderChangedEvent;
+import com.smartmes.repository.DailyProductionRollupRepository;
+import com.smartmes.repository.DailyProductionRollupRepository.DailyTotals;
+import com.smartmes.service.ProductionRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 生产汇总服务实现类
+ * 工单变更在同一事务提交前将增量累加到每日汇总表，汇总与工单数据同时提交或回滚；
+ * 每日定时从工单表重建最近几天的汇总，修复并发重建等极端情况下的偏差
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductionRollupServiceImpl implements ProductionRollupService {
+
+    private final DailyProductionRollupRepository rollupRepository;
+
+    /**
+     * 是否启用汇总表增量维护
+     */
+    @Value("${smartmes.rollup.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 定时重建覆盖的天数（含今天）
+     */
+    @Value("${smartmes.rollup.rebuild-days:2}")
+    private int rebuildDays;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<DailyProductionStats> getDailyStats(LocalDate startDate, LocalDate endDate,
+                                                    String lineId, String productCode) {
+        validateRange(startDate, endDate);
+        log.debug("Getting daily production stats from {} to {}, line: {}, product: {}",
+                startDate, endDate, lineId, productCode);
+
+        List<DailyTotals> totals = rollupRepository.summarizeByDate(startDate, endDate, lineId, productCode);
+        return totals.stream()
+                .map(this::toDailyStats)
+                .toList();
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int rebuild(LocalDate startDate, LocalDate endDate) {
+        validateRange(startDate, endDate);
+        log.info("Rebuilding daily production rollup from {} to {}", startDate, endDate);
+
+        int deleted = rollupRepository.deleteByDateRange(startDate, endDate);
+        int inserted = rollupRepository.rebuildFromWorkOrders(startDate.atStartOfDay(),
+                endDate.plusDays(1).atStartOfDay());
+
+        log.info("Daily production rollup rebuilt: {} rows removed, {} rows inserted", deleted, inserted);
+        return inserted;
+    }
+
+    /**
+     * 每日定时重建最近几天的汇总数据
+     * 删除与重新聚合在同一事务内完成，失败时整体回滚并由调度器记录异常
+     */
+    @Scheduled(cron = "${smartmes.rollup.rebuild-cron:0 30 2 * * *}")
+    @Transactional(rollbackFor = Exception.class)
+    public void rebuildRecentDays() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        rebuild(today.minusDays(Math.max(rebuildDays, 1) - 1L), today);
+    }
+
+    /**
+     * 工单变更时在同一事务内累加汇总增量
+     * 变更前后的归属（日期、产线、产品）相同时合并为一次累加，否则从旧行扣减、向新行累加
+     *
+     * @param event 工单变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onWorkOrderChanged(WorkOrderChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Map<RollupKey, RollupDelta> deltas = new TreeMap<>();
+        collect(event, deltas);
+        deltas.values().forEach(this::apply);
+    }
+
+    /**
+     * 工单批量变更时在同一事务内累加汇总增量
+     * 批次内落在同一汇总行的增量先合并，每个汇总行只累加一次；
+     * 按汇总行主键顺序累加，并发事务以相同顺序对汇总行加锁，避免互相等待形成死锁
+     *
+     * @param event 工单批量变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onWorkOrderBatchChanged(WorkOrderBatchChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Map<RollupKey, RollupDelta> deltas = new TreeMap<>();
+        event.getChanges().forEach(change -> collect(change, deltas));
+        deltas.values().forEach(this::apply);
+    }
+
+    private void collect(WorkOrderChangedEvent event, Map<RollupKey, RollupDelta> deltas) {
+        if (event.getCreatedAt() == null) {
+            return;
+        }
+
+        LocalDate productionDate = event.getCreatedAt().toLocalDate();
+        if (event.getPreviousStatus() != null) {
+            delta(deltas, productionDate, event.getPreviousLineId(), event.getPreviousProductCode())
+                    .add(event.getPreviousStatus(), -1, -event.getPreviousPlanQty(), -event.getPreviousActualQty());
+        }
+        if (event.getCurrentStatus() != null) {
+            delta(deltas, productionDate, event.getLineId(), event.getProductCode())
+                    .add(event.getCurrentStatus(), 1, event.getCurrentPlanQty(), event.getCurrentActualQty());
+        }
+    }
+
+    private RollupDelta delta(Map<RollupKey, RollupDelta> deltas, LocalDate productionDate,
+                              String lineId, String productCode) {
+        RollupKey key = new RollupKey(productionDate,
+                lineId != null ? lineId : DailyProductionRollup.UNASSIGNED_LINE, productCode);
+        return deltas.computeIfAbsent(key, RollupDelta::new);
+    }
+
+    private void apply(RollupDelta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        rollupRepository.accumulate(delta.key.productionDate(), delta.key.lineId(), delta.key.productCode(),
+                delta.orders,
+                delta.statusOrders[WorkOrderStatus.PENDING.ordinal()],
+                delta.statusOrders[WorkOrderStatus.IN_PROGRESS.ordinal()],
+                delta.statusOrders[WorkOrderStatus.COMPLETED.ordinal()],
+                delta.statusOrders[WorkOrderStatus.ABNORMAL.ordinal()],
+                delta.statusOrders[WorkOrderStatus.CANCELLED.ordinal()],
+                delta.statusOrders[WorkOrderStatus.CLOSED.ordinal()],
+                delta.planQty, delta.actualQty);
+    }
+
+    private DailyProductionStats toDailyStats(DailyTotals totals) {
+        long planQty = nullToZero(totals.getTotalPlanQty());
+        long actualQty = nullToZero(totals.getTotalActualQty());
+        double completionRate = planQty > 0 ? Math.round(actualQty * 1000.0 / planQty) / 10.0 : 0.0;
+
+        return DailyProductionStats.builder()
+                .productionDate(totals.getProductionDate())
+                .totalOrders(nullToZero(totals.getTotalOrders()))
+                .completedOrders(nullToZero(totals.getCompletedOrders()))
+                .inProgressOrders(nullToZero(totals.getInProgressOrders()))
+                .abnormalOrders(nullToZero(totals.getAbnormalOrders()))
+                .totalPlanQty(planQty)
+                .totalActualQty(actualQty)
+                .overallCompletionRate(completionRate)
+                .build();
+    }
+
+    private void validateRange(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null) {
+            throw new IllegalArgumentException("Start date and end date are required");
+        }
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+    }
+
+    private static long nullToZero(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    /**
+     * 汇总行主键，按主键列顺序比较
+     */
+    private record RollupKey(LocalDate productionDate, String lineId, String productCode)
+            implements Comparable<RollupKey> {
+
+        private static final Comparator<RollupKey> ORDER = Comparator.comparing(RollupKey::productionDate)
+                .thenComparing(RollupKey::lineId)
+                .thenComparing(RollupKey::productCode, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        @Override
+        public int compareTo(RollupKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    /**
+     * 单个汇总行的累加增量
+     */
+    private static final class RollupDelta {
+
+        private final RollupKey key;
+        private final int[] statusOrders = new int[WorkOrderStatus.values().length];
+        private int orders;
+        private long planQty;
+        private long actualQty;
+
+        private RollupDelta(RollupKey key) {
+            this.key = key;
+        }
+
+        private RollupDelta add(WorkOrderStatus status, int orderDelta, long planQtyDelta, long actualQtyDelta) {
+            statusOrders[status.ordinal()] += orderDelta;
+            orders += orderDelta;
+            planQty += planQtyDelta;
+            actualQty += actualQtyDelta;
+            return this;
+        }
+
+        private boolean isEmpty() {
+            if (orders != 0 || planQty != 0 || actualQty != 0) {
+                return false;
+            }
+            for (int count : statusOrders) {
+                if (count != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.smartmes.service.impl;
+
+import com.smartmes.common.ShiftCalendar;
+import com.smartmes.dto.ProductionTrendPoint;
+import com.smartmes.entity.DailyProductionRollup;
+import com.smartmes.entity.Equipment;
+import com.smartmes.entity.ProductionTrendRollup.Granularity;
+import com.smartmes.entity.WorkOrder.WorkOrderStatus;
+import com.smartmes.enums.DowntimeStatus;
+import com.smartmes.event.DowntimeReportChangedEvent;
+import com.smartmes.event.WorkOrderBatchChangedEvent;
+import com.smartmes.event.WorkOrderChangedEvent;
+import com.smartmes.repository.EquipmentRepository;
+import com.smartmes.repository.ProductionTrendRollupRepository;
+import com.smartmes.repository.ProductionTrendRollupRepository.BucketTotals;
+import com.smartmes.service.ProductionTrendService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 生产趋势服务实现类
+ * 工单与停机变更在同一事务提交前累加到小时和天两级汇总：
+ * 小时/班次趋势读取小时汇总，天/周趋势读取天汇总，
+ * 查询读取的行数只与时间桶数量相关，与时间范围内的工单数量无关；
+ * 归桶时间均取自工单/停机记录本身的字段，每日定时从工单表和停机记录表重建最近几天的汇总
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductionTrendServiceImpl implements ProductionTrendService {
+
+    private static final int PLAN_QTY = 0;
+    private static final int ACTUAL_QTY = 1;
+    private static final int COMPLETED_ORDERS = 2;
+    private static final int DOWNTIME_MINUTES = 3;
+
+    private final ProductionTrendRollupRepository trendRollupRepository;
+    private final EquipmentRepository equipmentRepository;
+    private final ShiftCalendar shiftCalendar;
+
+    /**
+     * 是否启用趋势汇总增量维护
+     */
+    @Value("${smartmes.trends.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 单次查询允许的最大时间桶数
+     */
+    @Value("${smartmes.trends.max-buckets:1000}")
+    private int maxBuckets;
+
+    /**
+     * 定时重建覆盖的天数（含今天）
+     */
+    @Value("${smartmes.trends.rebuild-days:2}")
+    private int rebuildDays;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductionTrendPoint> getTrend(BucketSize bucketSize, LocalDateTime startTime,
+                                               LocalDateTime endTime, String lineId) {
+        if (bucketSize == null || startTime == null || endTime == null) {
+            throw new IllegalArgumentException("Bucket size, start time and end time are required");
+        }
+        if (!startTime.isBefore(endTime)) {
+            throw new IllegalArgumentException("Start time must be before end time");
+        }
+
+        LocalDateTime rangeStart = bucketStart(bucketSize, startTime);
+        LocalDateTime rangeEnd = bucketStart(bucketSize, endTime);
+        if (rangeEnd.isBefore(endTime)) {
+            rangeEnd = nextBucket(bucketSize, rangeEnd);
+        }
+
+        // 先生成连续的空时间桶，保证图表横轴完整
+        Map<LocalDateTime, ProductionTrendPoint> points = new LinkedHashMap<>();
+        for (LocalDateTime bucket = rangeStart; bucket.isBefore(rangeEnd); bucket = nextBucket(bucketSize, bucket)) {
+            if (points.size() >= maxBuckets) {
+                throw new IllegalArgumentException("Time range too large for bucket size " + bucketSize
+                        + ", maximum buckets: " + maxBuckets);
+            }
+            points.put(bucket, ProductionTrendPoint.builder()
+                    .bucketStart(bucket)
+                    .bucketEnd(nextBucket(bucketSize, bucket))
+                    .planQty(0L)
+                    .actualQty(0L)
+                    .completedOrders(0L)
+                    .downtimeMinutes(0L)
+                    .build());
+        }
+
+        Granularity granularity = bucketSize == BucketSize.HOUR || bucketSize == BucketSize.SHIFT
+                ? Granularity.HOUR : Granularity.DAY;
+        List<BucketTotals> rows = trendRollupRepository.summarizeBuckets(granularity, rangeStart, rangeEnd, lineId);
+        for (BucketTotals row : rows) {
+            ProductionTrendPoint point = points.get(bucketStart(bucketSize, row.getBucketStart()));
+            if (point == null) {
+                continue;
+            }
+            point.setPlanQty(point.getPlanQty() + nullToZero(row.getPlanQty()));
+            point.setActualQty(point.getActualQty() + nullToZero(row.getActualQty()));
+            point.setCompletedOrders(point.getCompletedOrders() + nullToZero(row.getCompletedOrders()));
+            point.setDowntimeMinutes(point.getDowntimeMinutes() + nullToZero(row.getDowntimeMinutes()));
+        }
+
+        log.debug("Production trend {} from {} to {}: {} buckets from {} rollup rows",
+                bucketSize, rangeStart, rangeEnd, points.size(), rows.size());
+        return new ArrayList<>(points.values());
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int rebuild(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null) {
+            throw new IllegalArgumentException("Start date and end date are required");
+        }
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+        log.info("Rebuilding production trend rollup from {} to {}", startDate, endDate);
+
+        LocalDateTime startTime = startDate.atStartOfDay();
+        LocalDateTime endTime = endDate.plusDays(1).atStartOfDay();
+        int deleted = trendRollupRepository.deleteByBucketRange(startTime, endTime);
+        int inserted = trendRollupRepository.rebuildHourly(startTime, endTime)
+                + trendRollupRepository.rebuildDailyFromHourly(startTime, endTime);
+
+        log.info("Production trend rollup rebuilt: {} rows removed, {} rows inserted", deleted, inserted);
+        return inserted;
+    }
+
+    /**
+     * 每日定时重建最近几天的趋势汇总
+     * 删除与重新聚合在同一事务内完成，失败时整体回滚并由调度器记录异常
+     */
+    @Scheduled(cron = "${smartmes.trends.rebuild-cron:0 40 2 * * *}")
+    @Transactional(rollbackFor = Exception.class)
+    public void rebuildRecentDays() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        rebuild(today.minusDays(Math.max(rebuildDays, 1) - 1L), today);
+    }
+
+    /**
+     * 工单变更时累加趋势增量
+     * 从变更前的归属扣减、向变更后的归属累加，同一时间桶的增减合并：
+     * 计划产量按创建时间归桶，实际产量按开始时间归桶（未开始按创建时间），完工数按完工时间归桶，
+     * 归桶时间均可由工单表重建得到
+     *
+     * @param event 工单变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onWorkOrderChanged(WorkOrderChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        TrendDeltas deltas = new TrendDeltas();
+        collect(event, deltas);
+        apply(deltas);
+    }
+
+    /**
+     * 工单批量变更时累加趋势增量，同一时间桶的增量合并后一次累加
+     *
+     * @param event 工单批量变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onWorkOrderBatchChanged(WorkOrderBatchChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        TrendDeltas deltas = new TrendDeltas();
+        event.getChanges().forEach(change -> collect(change, deltas));
+        apply(deltas);
+    }
+
+    private void collect(WorkOrderChangedEvent event, TrendDeltas deltas) {
+        if (event.getCreatedAt() == null) {
+            return;
+        }
+        if (event.getPreviousStatus() != null) {
+            // 开始时间只在开始时设置，变更前为待开始时尚无开始时间；完工为终态，变更前已完工时完工时间不变
+            LocalDateTime previousStartTime = event.getPreviousStatus() == WorkOrderStatus.PENDING
+                    ? null : event.getStartTime();
+            collect(deltas, -1, event.getCreatedAt(), previousStartTime, event.getEndTime(),
+                    lineOf(event.getPreviousLineId()), event.getPreviousStatus(),
+                    event.getPreviousPlanQty(), event.getPreviousActualQty());
+        }
+        if (event.getCurrentStatus() != null) {
+            collect(deltas, 1, event.getCreatedAt(), event.getStartTime(), event.getEndTime(),
+                    lineOf(event.getLineId()), event.getCurrentStatus(),
+                    event.getCurrentPlanQty(), event.getCurrentActualQty());
+        }
+    }
+
+    private void collect(TrendDeltas deltas, int sign, LocalDateTime createdAt, LocalDateTime startTime,
+                         LocalDateTime endTime, String lineId, WorkOrderStatus status, int planQty, int actualQty) {
+        deltas.add(createdAt, lineId, PLAN_QTY, (long) sign * planQty);
+        deltas.add(startTime != null ? startTime : createdAt, lineId, ACTUAL_QTY, (long) sign * actualQty);
+        if (status == WorkOrderStatus.COMPLETED) {
+            deltas.add(endTime != null ? endTime : createdAt, lineId, COMPLETED_ORDERS, sign);
+        }
+    }
+
+    /**
+     * 停机记录变更时累加停机时长增量
+     * 只统计已解决记录的停机时长，按停机开始时间归桶，产线取设备所属产线
+     *
+     * @param event 停机记录变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onDowntimeReportChanged(DowntimeReportChangedEvent event) {
+        if (!enabled || event.getReport() == null || event.getReport().getStartTime() == null) {
+            return;
+        }
+
+        int previousMinutes = event.getPreviousStatus() == DowntimeStatus.RESOLVED
+                ? nullToZero(event.getPreviousDurationMinutes()) : 0;
+        int currentMinutes = event.getCurrentStatus() == DowntimeStatus.RESOLVED
+                ? nullToZero(event.getReport().getDurationMinutes()) : 0;
+        if (currentMinutes == previousMinutes) {
+            return;
+        }
+
+        String lineId = equipmentRepository.findById(event.getReport().getEquipmentId())
+                .map(Equipment::getLineId)
+                .orElse(null);
+        TrendDeltas deltas = new TrendDeltas();
+        deltas.add(event.getReport().getStartTime(), lineOf(lineId), DOWNTIME_MINUTES, currentMinutes - previousMinutes);
+        apply(deltas);
+    }
+
+    private void apply(TrendDeltas deltas) {
+        deltas.daily.forEach((key, values) -> accumulate(Granularity.DAY, key, values));
+        deltas.hourly.forEach((key, values) -> accumulate(Granularity.HOUR, key, values));
+    }
+
+    private void accumulate(Granularity granularity, BucketKey key, long[] values) {
+        if (values[PLAN_QTY] == 0 && values[ACTUAL_QTY] == 0
+                && values[COMPLETED_ORDERS] == 0 && values[DOWNTIME_MINUTES] == 0) {
+            return;
+        }
+        trendRollupRepository.accumulate(granularity.name(), key.bucketStart(), key.lineId(),
+                values[PLAN_QTY], values[ACTUAL_QTY], (int) values[COMPLETED_ORDERS], values[DOWNTIME_MINUTES]);
+    }
+
+    private LocalDateTime bucketStart(BucketSize bucketSize, LocalDateTime time) {
+        return switch (bucketSize) {
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case SHIFT -> shiftCalendar.shiftStart(time);
+            case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+            case WEEK -> time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        };
+    }
+
+    private LocalDateTime nextBucket(BucketSize bucketSize, LocalDateTime bucketStart) {
+        return switch (bucketSize) {
+            case HOUR -> bucketStart.plusHours(1);
+            case SHIFT -> bucketStart.plusHours(shiftCalendar.getShiftHours());
+            case DAY -> bucketStart.plusDays(1);
+            case WEEK -> bucketStart.plusWeeks(1);
+        };
+    }
+
+    private static String lineOf(String lineId) {
+        return lineId != null ? lineId : DailyProductionRollup.UNASSIGNED_LINE;
+    }
+
+    private static long nullToZero(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private static int nullToZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    /**
+     * 时间桶主键，按主键列顺序比较
+     */
+    private record BucketKey(LocalDateTime bucketStart, String lineId) implements Comparable<BucketKey> {
+
+        private static final Comparator<BucketKey> ORDER = Comparator.comparing(BucketKey::bucketStart)
+                .thenComparing(BucketKey::lineId);
+
+        @Override
+        public int compareTo(BucketKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    /**
+     * 单次变更产生的各时间桶增量，同一时间桶的多项增量合并为一次累加；
+     * 按 (粒度, 时间桶, 产线) 主键顺序累加（粒度按字符串顺序先DAY后HOUR），
+     * 并发事务以相同顺序对汇总行加锁，避免互相等待形成死锁
+     */
+    private static final class TrendDeltas {
+
+        private final Map<BucketKey, long[]> hourly = new TreeMap<>();
+        private final Map<BucketKey, long[]> daily = new TreeMap<>();
+
+        private void add(LocalDateTime time, String lineId, int field, long delta) {
+            if (delta == 0) {
+                return;
+            }
+            hourly.computeIfAbsent(new BucketKey(time.truncatedTo(ChronoUnit.HOURS), lineId), key -> new long[4])[field] += delta;
+            daily.computeIfAbsent(new BucketKey(time.truncatedTo(ChronoUnit.DAYS), lineId), key -> new long[4])[field] += delta;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.smartmes.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartmes.entity.WorkOrder;
+import com.smartmes.entity.WorkOrder.WorkOrderStatus;
+import com.smartmes.repository.WorkOrderRepository;
+import com.smartmes.repository.WorkOrderSpecifications;
+import com.smartmes.service.WorkOrderExportService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * 工单导出服务实现类
+ * 在只读事务内以只进流式结果集读取工单，逐行格式化后写入输出流；同时进行的导出数有上限
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkOrderExportServiceImpl implements WorkOrderExportService {
+
+    private static final String CSV_HEADER = "orderId,productCode,batchNo,planQty,actualQty,status,lineId,"
+            + "equipmentId,operatorId,startTime,endTime,createdBy,createdAt,updatedAt";
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * MySQL驱动逐行流式读取结果集的fetch size
+     */
+    private static final int MYSQL_STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    private final WorkOrderRepository workOrderRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 是否按MySQL流式结果集逐行读取
+     */
+    @Value("${smartmes.workorder.export.streaming:true}")
+    private boolean streaming;
+
+    /**
+     * 未启用流式读取时每次从数据库读取的行数
+     */
+    @Value("${smartmes.workorder.export.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * 同时进行的导出数上限
+     */
+    @Value("${smartmes.workorder.export.max-concurrent:3}")
+    private int maxConcurrent;
+
+    private Semaphore exportPermits;
+
+    @PostConstruct
+    public void init() {
+        if (maxConcurrent <= 0) {
+            throw new IllegalStateException("smartmes.workorder.export.max-concurrent must be positive: " + maxConcurrent);
+        }
+        exportPermits = new Semaphore(maxConcurrent);
+    }
+
+    @Override
+    public boolean tryAcquireExport() {
+        return exportPermits.tryAcquire();
+    }
+
+    @Override
+    public void releaseExport() {
+        exportPermits.release();
+    }
+
+    @Override
+    public long exportWorkOrders(String productCode, WorkOrderStatus status, String lineId,
+                                 LocalDateTime startTime, LocalDateTime endTime,
+                                 ExportFormat format, OutputStream out) throws IOException {
+        log.info("Exporting work orders as {} - productCode: {}, status: {}, lineId: {}",
+                format, productCode, status, lineId);
+        long started = System.currentTimeMillis();
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        Long rows;
+        try {
+            rows = transactionTemplate.execute(transactionStatus -> {
+                Sort sort = Sort.by("createdAt").and(Sort.by("id"));
+                try (Stream<WorkOrder> stream = workOrderRepository.stream(
+                        WorkOrderSpecifications.search(productCode, status, lineId, startTime, endTime), sort,
+                        streaming ? MYSQL_STREAMING_FETCH_SIZE : fetchSize)) {
+                    long count = 0;
+                    Iterator<WorkOrder> iterator = stream.iterator();
+                    while (iterator.hasNext()) {
+                        writeRow(writer, iterator.next(), format);
+                        count++;
+                    }
+                    return count;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+
+        log.info("Exported {} work orders in {} ms", rows, System.currentTimeMillis() - started);
+        return rows != null ? rows : 0;
+    }
+
+    private void writeRow(Writer writer, WorkOrder workOrder, ExportFormat format) throws IOException {
+        if (format == ExportFormat.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(workOrder));
+            writer.write('\n');
+            return;
+        }
+
+        writeCsvField(writer, workOrder.getId());
+        writeCsvField(writer, workOrder.getProductCode());
+        writeCsvField(writer, workOrder.getBatchNo());
+        writeCsvField(writer, workOrder.getPlanQty());
+        writeCsvField(writer, workOrder.getActualQty());
+        writeCsvField(writer, workOrder.getStatus());
+        writeCsvField(writer, workOrder.getLineId());
+        writeCsvField(writer, workOrder.getEquipmentId());
+        writeCsvField(writer, workOrder.getOperatorId());
+        writeCsvField(writer, workOrder.getStartTime());
+        writeCsvField(writer, workOrder.getEndTime());
+        writeCsvField(writer, workOrder.getCreatedBy());
+        writeCsvField(writer, workOrder.getCreatedAt());
+        writer.write(format(workOrder.getUpdatedAt()));
+        writer.write('\n');
+    }
+
+    private void writeCsvField(Writer writer, Object value) throws IOException {
+        writer.write(format(value));
+        writer.write(',');
+    }
+
+    /**
+     * 格式化CSV字段，含逗号、引号或换行的值加引号并转义引号
+     */
+    private static String format(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof LocalDateTime time ? DATE_TIME_FORMATTER.format(time) : value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,371 @@
+package com.smartmes.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartmes.dto.WorkOrderImportResult;
+import com.smartmes.dto.WorkOrderImportResult.RowError;
+import com.smartmes.entity.WorkOrder;
+import com.smartmes.entity.WorkOrder.WorkOrderStatus;
+import com.smartmes.event.WorkOrderBatchChangedEvent;
+import com.smartmes.event.WorkOrderChangedEvent;
+import com.smartmes.event.WorkOrderChangedEvent.ChangeType;
+import com.smartmes.repository.WorkOrderBatchRepository;
+import com.smartmes.service.WorkOrderImportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * 工单批量导入服务实现类
+ * 请求体逐行读取、解析和校验，不整体加载到内存；校验通过的行攒满一批后在独立事务中
+ * 先批量查询重复工单号，再以JDBC批处理插入，并发布一次批量变更事件供汇总表合并累加；
+ * 批次写入失败（如并发导入造成主键冲突）时逐行重试，定位并报告失败的行
+ *
+ * @author SmartMES Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkOrderImportServiceImpl implements WorkOrderImportService {
+
+    private static final int MAX_FIELD_LENGTH = 50;
+
+    private final WorkOrderBatchRepository workOrderBatchRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 每批写入的行数
+     */
+    @Value("${smartmes.workorder.import.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * 结果中列出的失败行明细上限
+     */
+    @Value("${smartmes.workorder.import.max-errors:1000}")
+    private int maxErrors;
+
+    @Override
+    public WorkOrderImportResult importWorkOrders(InputStream body, ImportFormat format, String defaultCreatedBy) {
+        long started = System.currentTimeMillis();
+        WorkOrderImportResult result = new WorkOrderImportResult();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Set<String> seenIds = new HashSet<>();
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            long lineNo = 0;
+            CsvColumn[] columns = null;
+            if (format == ImportFormat.CSV) {
+                String header = reader.readLine();
+                lineNo++;
+                if (header == null || header.isBlank()) {
+                    throw new IllegalArgumentException("CSV header row is required");
+                }
+                columns = parseHeader(header);
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                result.setTotalRows(result.getTotalRows() + 1);
+
+                WorkOrder workOrder = null;
+                try {
+                    workOrder = format == ImportFormat.CSV ? parseCsvRow(line, columns) : parseJsonRow(line);
+                    validate(workOrder, defaultCreatedBy);
+                    if (!seenIds.add(workOrder.getId())) {
+                        throw new IllegalArgumentException("Duplicate work order number in import: " + workOrder.getId());
+                    }
+                    batch.add(new ImportRow(lineNo, workOrder));
+                } catch (IllegalArgumentException e) {
+                    addError(result, lineNo, workOrder != null ? workOrder.getId() : null, e.getMessage());
+                }
+
+                if (batch.size() >= batchSize) {
+                    flush(batch, result, transactionTemplate);
+                    batch.clear();
+                }
+            }
+            flush(batch, result, transactionTemplate);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read import body: " + e.getMessage(), e);
+        }
+
+        result.setElapsedMs(System.currentTimeMillis() - started);
+        log.info("Work order import finished: {} rows, {} imported, {} failed in {} ms",
+                result.getTotalRows(), result.getImportedRows(), result.getFailedRows(), result.getElapsedMs());
+        return result;
+    }
+
+    /**
+     * 写入一批工单
+     */
+    private void flush(List<ImportRow> batch, WorkOrderImportResult result, TransactionTemplate transactionTemplate) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<ImportRow> existing = new ArrayList<>();
+        int inserted = 0;
+        try {
+            inserted = transactionTemplate.execute(status -> insert(batch, existing));
+        } catch (DataAccessException e) {
+            log.warn("Work order import batch failed, retrying row by row: {}", e.getMessage());
+            existing.clear();
+            for (ImportRow row : batch) {
+                try {
+                    inserted += transactionTemplate.execute(status -> insert(List.of(row), existing));
+                } catch (DataAccessException rowError) {
+                    addError(result, row.line(), row.workOrder().getId(), "Failed to insert work order: "
+                            + rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+
+        for (ImportRow row : existing) {
+            addError(result, row.line(), row.workOrder().getId(),
+                    "Work order number already exists: " + row.workOrder().getId());
+        }
+        result.setImportedRows(result.getImportedRows() + inserted);
+    }
+
+    /**
+     * 在当前事务内排除已存在的工单号后批量插入，并发布批量变更事件
+     *
+     * @param rows 待写入的行
+     * @param existing 收集工单号已存在的行
+     * @return 插入的行数
+     */
+    private int insert(List<ImportRow> rows, List<ImportRow> existing) {
+        Set<String> existingIds = workOrderBatchRepository.findExistingIds(
+                rows.stream().map(row -> row.workOrder().getId()).toList());
+
+        List<WorkOrder> workOrders = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            if (existingIds.contains(row.workOrder().getId())) {
+                existing.add(row);
+            } else {
+                workOrders.add(row.workOrder());
+            }
+        }
+        if (workOrders.isEmpty()) {
+            return 0;
+        }
+
+        workOrderBatchRepository.batchInsert(workOrders);
+        eventPublisher.publishEvent(new WorkOrderBatchChangedEvent(workOrders.stream()
+                .map(workOrder -> WorkOrderChangedEvent.of(ChangeType.CREATED, null, workOrder))
+                .toList()));
+        return workOrders.size();
+    }
+
+    /**
+     * 校验并补全工单，导入的工单均为待开始状态
+     */
+    private void validate(WorkOrder workOrder, String defaultCreatedBy) {
+        if (workOrder.getId() == null) {
+            throw new IllegalArgumentException("Work order number is required");
+        }
+        if (workOrder.getProductCode() == null) {
+            throw new IllegalArgumentException("Product code is required");
+        }
+        if (workOrder.getPlanQty() == null || workOrder.getPlanQty() <= 0) {
+            throw new IllegalArgumentException("Plan quantity must be positive");
+        }
+        if (workOrder.getCreatedBy() == null) {
+            workOrder.setCreatedBy(defaultCreatedBy);
+            if (workOrder.getCreatedBy() == null) {
+                throw new IllegalArgumentException("Creator is required");
+            }
+        }
+        if (workOrder.getStatus() != null && workOrder.getStatus() != WorkOrderStatus.PENDING) {
+            throw new IllegalArgumentException("Imported work orders must be PENDING: " + workOrder.getStatus());
+        }
+        if (workOrder.getActualQty() != null && workOrder.getActualQty() != 0) {
+            throw new IllegalArgumentException("Imported work orders must not have actual quantity");
+        }
+        for (String value : new String[]{workOrder.getId(), workOrder.getProductCode(), workOrder.getBatchNo(),
+                workOrder.getLineId(), workOrder.getEquipmentId(), workOrder.getOperatorId(), workOrder.getCreatedBy()}) {
+            if (value != null && value.length() > MAX_FIELD_LENGTH) {
+                throw new IllegalArgumentException("Field exceeds " + MAX_FIELD_LENGTH + " characters: " + value);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        workOrder.setStatus(WorkOrderStatus.PENDING);
+        workOrder.setActualQty(0);
+        workOrder.setStartTime(null);
+        workOrder.setEndTime(null);
+        workOrder.setCreatedAt(now);
+        workOrder.setUpdatedAt(now);
+    }
+
+    private CsvColumn[] parseHeader(String header) {
+        List<String> names = splitCsv(header);
+        CsvColumn[] columns = new CsvColumn[names.size()];
+        Set<CsvColumn> present = new HashSet<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns[i] = CsvColumn.of(names.get(i));
+            if (!present.add(columns[i])) {
+                throw new IllegalArgumentException("Duplicate CSV column: " + names.get(i));
+            }
+        }
+        return columns;
+    }
+
+    private WorkOrder parseCsvRow(String line, CsvColumn[] columns) {
+        List<String> values = splitCsv(line);
+        if (values.size() != columns.length) {
+            throw new IllegalArgumentException("Expected " + columns.length + " columns but found " + values.size());
+        }
+        WorkOrder workOrder = new WorkOrder();
+        workOrder.setActualQty(null);
+        for (int i = 0; i < columns.length; i++) {
+            String value = trimToNull(values.get(i));
+            if (value != null) {
+                columns[i].setter.accept(workOrder, value);
+            }
+        }
+        return workOrder;
+    }
+
+    private WorkOrder parseJsonRow(String line) {
+        WorkOrder workOrder;
+        try {
+            workOrder = objectMapper.readValue(line, WorkOrder.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+        workOrder.setId(trimToNull(workOrder.getId()));
+        workOrder.setProductCode(trimToNull(workOrder.getProductCode()));
+        workOrder.setBatchNo(trimToNull(workOrder.getBatchNo()));
+        workOrder.setLineId(trimToNull(workOrder.getLineId()));
+        workOrder.setEquipmentId(trimToNull(workOrder.getEquipmentId()));
+        workOrder.setOperatorId(trimToNull(workOrder.getOperatorId()));
+        workOrder.setCreatedBy(trimToNull(workOrder.getCreatedBy()));
+        return workOrder;
+    }
+
+    /**
+     * 拆分单行CSV，支持双引号包裹的字段及字段内以两个双引号表示的引号（不支持字段内换行）
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private void addError(WorkOrderImportResult result, long line, String orderId, String message) {
+        result.setFailedRows(result.getFailedRows() + 1);
+        if (result.getErrors().size() < maxErrors) {
+            result.getErrors().add(new RowError(line, orderId, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    /**
+     * 待写入的行
+     */
+    private record ImportRow(long line, WorkOrder workOrder) {
+    }
+
+    /**
+     * CSV列定义，表头不区分大小写且忽略下划线（如 product_code 与 productCode 等价）
+     */
+    private enum CsvColumn {
+        ID(WorkOrder::setId),
+        PRODUCT_CODE(WorkOrder::setProductCode),
+        BATCH_NO(WorkOrder::setBatchNo),
+        PLAN_QTY((workOrder, value) -> workOrder.setPlanQty(parseInt(value, "planQty"))),
+        LINE_ID(WorkOrder::setLineId),
+        EQUIPMENT_ID(WorkOrder::setEquipmentId),
+        OPERATOR_ID(WorkOrder::setOperatorId),
+        CREATED_BY(WorkOrder::setCreatedBy);
+
+        private final BiConsumer<WorkOrder, String> setter;
+
+        CsvColumn(BiConsumer<WorkOrder, String> setter) {
+            this.setter = setter;
+        }
+
+        private static CsvColumn of(String header) {
+            String normalized = header.trim().replace("_", "").toLowerCase(Locale.ROOT);
+            if (normalized.equals("orderid") || normalized.equals("workorderno")) {
+                return ID;
+            }
+            for (CsvColumn column : values()) {
+                if (column.name().replace("_", "").toLowerCase(Locale.ROOT).equals(normalized)) {
+                    return column;
+                }
+            }
+            throw new IllegalArgumentException("Unknown CSV column: " + header);
+        }
+
+        private static Integer parseInt(String value, String field) {
+            try {
+                return Integer.valueOf(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid " + field + ": " + value);
+            }
+        }
+    }
+}
@@ -1,22 +1,44 @@
 package com.smartmes.service.impl;
 
+import com.smartmes.cache.InProgressWorkOrderIndex;
+import com.smartmes.cache.PageTotalCache;
+import com.smartmes.cache.PageTotalCache.PageTotal;
+import com.smartmes.cache.WorkOrderProgressBuffer;
+import com.smartmes.common.KeysetCursor;
 import com.smartmes.common.PageResult;
+import com.smartmes.common.TotalMode;
+import com.smartmes.dto.BatchTransitionResult;
+import com.smartmes.dto.BatchTransitionResult.Rejection;
 import com.smartmes.entity.WorkOrder;
 import com.smartmes.entity.WorkOrder.WorkOrderStatus;
+import com.smartmes.event.WorkOrderBatchChangedEvent;
+import com.smartmes.event.WorkOrderChangedEvent;
+import com.smartmes.event.WorkOrderChangedEvent.ChangeType;
+import com.smartmes.event.WorkOrderChangedEvent.Snapshot;
+import com.smartmes.repository.PersistenceErrors;
 import com.smartmes.repository.WorkOrderRepository;
+import com.smartmes.repository.WorkOrderSpecifications;
 import com.smartmes.service.WorkOrderService;
+import com.smartmes.service.WorkOrderService.Transition;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import jakarta.persistence.criteria.Predicate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 工单服务实现类
@@ -30,17 +52,16 @@ import java.util.List;
 public class WorkOrderServiceImpl implements WorkOrderService {
 
     private final WorkOrderRepository workOrderRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WorkOrderProgressBuffer progressBuffer;
+    private final PageTotalCache pageTotalCache;
+    private final InProgressWorkOrderIndex inProgressIndex;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public WorkOrder createWorkOrder(WorkOrder workOrder) {
         log.info("Creating work order: {}", workOrder.getId());
 
-        // 检查工单号是否已存在
-        if (workOrder.getId() != null && workOrderRepository.existsById(workOrder.getId())) {
-            throw new IllegalArgumentException("Work order number already exists: " + workOrder.getId());
-        }
-
         // 设置初始状态
         if (workOrder.getStatus() == null) {
             workOrder.setStatus(WorkOrderStatus.PENDING);
@@ -51,7 +72,19 @@ public class WorkOrderServiceImpl implements WorkOrderService {
             workOrder.setActualQty(0);
         }
 
-        WorkOrder saved = workOrderRepository.save(workOrder);
+        // 版本号为空的实体按新建处理，直接插入；工单号重复由主键约束判定
+        workOrder.setVersion(null);
+
+        WorkOrder saved;
+        try {
+            saved = workOrderRepository.saveAndFlush(workOrder);
+        } catch (DataIntegrityViolationException e) {
+            if (PersistenceErrors.isDuplicateKey(e)) {
+                throw new IllegalArgumentException("Work order number already exists: " + workOrder.getId());
+            }
+            throw e;
+        }
+        eventPublisher.publishEvent(WorkOrderChangedEvent.of(ChangeType.CREATED, null, saved));
         log.info("Work order created successfully: {}", saved.getId());
         return saved;
     }
@@ -59,15 +92,13 @@ public class WorkOrderServiceImpl implements WorkOrderService {
     @Override
     public WorkOrder getWorkOrderById(String id) {
         log.debug("Getting work order by id: {}", id);
-        return workOrderRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Work order not found: " + id));
+        return withPendingProgress(loadWorkOrder(id));
     }
 
     @Override
     public WorkOrder getWorkOrderByNo(String workOrderNo) {
         log.debug("Getting work order by number: {}", workOrderNo);
-        return workOrderRepository.findById(workOrderNo)
-                .orElseThrow(() -> new IllegalArgumentException("Work order not found: " + workOrderNo));
+        return withPendingProgress(loadWorkOrder(workOrderNo));
     }
 
     @Override
@@ -75,7 +106,14 @@ public class WorkOrderServiceImpl implements WorkOrderService {
     public WorkOrder updateWorkOrder(String id, WorkOrder workOrder) {
         log.info("Updating work order: {}", id);
 
-        WorkOrder existing = getWorkOrderById(id);
+        WorkOrder existing = loadWorkOrder(id);
+        Snapshot previous = Snapshot.of(existing);
+
+        // 请求携带版本号时，要求与当前版本一致，避免覆盖他人的修改
+        if (workOrder.getVersion() != null && !workOrder.getVersion().equals(existing.getVersion())) {
+            throw new IllegalStateException("Work order was modified concurrently: " + id
+                    + " (expected version " + workOrder.getVersion() + ", current " + existing.getVersion() + ")");
+        }
 
         // 更新可修改的字段
         if (workOrder.getProductCode() != null) {
@@ -98,6 +136,7 @@ public class WorkOrderServiceImpl implements WorkOrderService {
         }
 
         WorkOrder updated = workOrderRepository.save(existing);
+        eventPublisher.publishEvent(WorkOrderChangedEvent.of(ChangeType.UPDATED, previous, updated));
         log.info("Work order updated successfully: {}", id);
         return updated;
     }
@@ -107,7 +146,8 @@ public class WorkOrderServiceImpl implements WorkOrderService {
     public void deleteWorkOrder(String id) {
         log.info("Deleting work order: {}", id);
 
-        WorkOrder workOrder = getWorkOrderById(id);
+        settlePendingProgress(id);
+        WorkOrder workOrder = loadWorkOrder(id);
 
         // 只能删除待开始或已取消的工单
         if (workOrder.getStatus() == WorkOrderStatus.IN_PROGRESS ||
@@ -116,20 +156,14 @@ public class WorkOrderServiceImpl implements WorkOrderService {
         }
 
         workOrderRepository.deleteById(id);
+        eventPublisher.publishEvent(WorkOrderChangedEvent.of(ChangeType.DELETED, Snapshot.of(workOrder), workOrder));
         log.info("Work order deleted successfully: {}", id);
     }
 
     @Override
-    public PageResult<WorkOrder> listWorkOrders(Pageable pageable) {
+    public PageResult<WorkOrder> listWorkOrders(Pageable pageable, TotalMode totalMode) {
         log.debug("Listing work orders with page: {}, size: {}", pageable.getPageNumber(), pageable.getPageSize());
-
-        Page<WorkOrder> page = workOrderRepository.findAll(pageable);
-        return PageResult.of(
-                page.getContent(),
-                page.getTotalElements(),
-                page.getNumber() + 1,
-                page.getSize()
-        );
+        return searchWorkOrders(null, null, null, null, null, pageable, totalMode);
     }
 
     @Override
@@ -139,44 +173,68 @@ public class WorkOrderServiceImpl implements WorkOrderService {
             String lineId,
             LocalDateTime startTime,
             LocalDateTime endTime,
-            Pageable pageable) {
+            Pageable pageable,
+            TotalMode totalMode) {
 
         log.debug("Searching work orders with filters - productCode: {}, status: {}, lineId: {}",
                   productCode, status, lineId);
 
-        Specification<WorkOrder> spec = (root, query, criteriaBuilder) -> {
-            List<Predicate> predicates = new ArrayList<>();
-
-            if (productCode != null && !productCode.isEmpty()) {
-                predicates.add(criteriaBuilder.equal(root.get("productCode"), productCode));
-            }
-
-            if (status != null) {
-                predicates.add(criteriaBuilder.equal(root.get("status"), status));
-            }
+        Specification<WorkOrder> spec = WorkOrderSpecifications.search(productCode, status, lineId, startTime, endTime);
+        List<WorkOrder> records = workOrderRepository.findPageContent(spec, pageable);
 
-            if (lineId != null && !lineId.isEmpty()) {
-                predicates.add(criteriaBuilder.equal(root.get("lineId"), lineId));
-            }
+        // 未取满一页时总数可直接得出，无需统计
+        if (records.size() < pageable.getPageSize() && (pageable.getOffset() == 0 || !records.isEmpty())) {
+            return PageResult.of(records, pageable.getOffset() + records.size(),
+                    pageable.getPageNumber() + 1, pageable.getPageSize(), TotalMode.EXACT);
+        }
+        PageTotal total = pageTotalCache.total(PageTotalCache.WORK_ORDER, totalMode, () -> workOrderRepository.count(spec),
+                blankToNull(productCode), status, blankToNull(lineId), startTime, endTime);
+        return PageResult.of(records, total.total(), pageable.getPageNumber() + 1, pageable.getPageSize(), total.mode());
+    }
 
-            if (startTime != null) {
-                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("createdAt"), startTime));
-            }
+    @Override
+    public PageResult<WorkOrder> searchWorkOrdersByCursor(
+            String productCode,
+            WorkOrderStatus status,
+            String lineId,
+            LocalDateTime startTime,
+            LocalDateTime endTime,
+            String cursor,
+            int pageSize,
+            Sort.Direction direction,
+            TotalMode totalMode) {
+
+        log.debug("Searching work orders by cursor - productCode: {}, status: {}, lineId: {}, cursor: {}",
+                  productCode, status, lineId, cursor);
+
+        Specification<WorkOrder> spec = WorkOrderSpecifications.search(productCode, status, lineId, startTime, endTime);
+        Specification<WorkOrder> seek = spec;
+        if (cursor != null && !cursor.isEmpty()) {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            seek = spec.and(WorkOrderSpecifications.seekAfter(after, direction));
+        }
 
-            if (endTime != null) {
-                predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("createdAt"), endTime));
-            }
+        // 按 (created_at, order_id) 定位，多取一条判断是否还有下一页，不做COUNT
+        Sort sort = Sort.by(direction, "createdAt").and(Sort.by(direction, "id"));
+        List<WorkOrder> fetched = workOrderRepository.findBy(seek, query -> query.sortBy(sort).limit(pageSize + 1).all());
 
-            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
-        };
+        String nextCursor = null;
+        List<WorkOrder> records = fetched;
+        if (fetched.size() > pageSize) {
+            records = fetched.subList(0, pageSize);
+            WorkOrder last = records.get(pageSize - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        if (totalMode == null) {
+            return PageResult.ofCursor(records, pageSize, nextCursor, null, null);
+        }
+        PageTotal total = pageTotalCache.total(PageTotalCache.WORK_ORDER, totalMode, () -> workOrderRepository.count(spec),
+                blankToNull(productCode), status, blankToNull(lineId), startTime, endTime);
+        return PageResult.ofCursor(records, pageSize, nextCursor, total.total(), total.mode());
+    }
 
-        Page<WorkOrder> page = workOrderRepository.findAll(spec, pageable);
-        return PageResult.of(
-                page.getContent(),
-                page.getTotalElements(),
-                page.getNumber() + 1,
-                page.getSize()
-        );
+    private static String blankToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
     }
 
     @Override
@@ -184,17 +242,8 @@ public class WorkOrderServiceImpl implements WorkOrderService {
     public WorkOrder startWorkOrder(String id) {
         log.info("Starting work order: {}", id);
 
-        WorkOrder workOrder = getWorkOrderById(id);
-
         // 只有待开始状态的工单才能启动
-        if (workOrder.getStatus() != WorkOrderStatus.PENDING) {
-            throw new IllegalStateException("Cannot start work order in status: " + workOrder.getStatus());
-        }
-
-        workOrder.setStatus(WorkOrderStatus.IN_PROGRESS);
-        workOrder.setStartTime(LocalDateTime.now());
-
-        WorkOrder updated = workOrderRepository.save(workOrder);
+        WorkOrder updated = compareAndSetStatus(id, Transition.START, null, "Cannot start work order in status: ");
         log.info("Work order started successfully: {}", id);
         return updated;
     }
@@ -204,19 +253,11 @@ public class WorkOrderServiceImpl implements WorkOrderService {
     public WorkOrder completeWorkOrder(String id, Integer actualQty) {
         log.info("Completing work order: {}", id);
 
-        WorkOrder workOrder = getWorkOrderById(id);
+        settlePendingProgress(id);
 
         // 只有进行中或异常状态的工单才能完成
-        if (workOrder.getStatus() != WorkOrderStatus.IN_PROGRESS &&
-            workOrder.getStatus() != WorkOrderStatus.ABNORMAL) {
-            throw new IllegalStateException("Cannot complete work order in status: " + workOrder.getStatus());
-        }
-
-        workOrder.setStatus(WorkOrderStatus.COMPLETED);
-        workOrder.setEndTime(LocalDateTime.now());
-        workOrder.setActualQty(actualQty != null ? actualQty : workOrder.getActualQty());
-
-        WorkOrder updated = workOrderRepository.save(workOrder);
+        WorkOrder updated = compareAndSetStatus(id, Transition.COMPLETE, actualQty,
+                "Cannot complete work order in status: ");
         log.info("Work order completed successfully: {}", id);
         return updated;
     }
@@ -226,17 +267,10 @@ public class WorkOrderServiceImpl implements WorkOrderService {
     public WorkOrder cancelWorkOrder(String id) {
         log.info("Cancelling work order: {}", id);
 
-        WorkOrder workOrder = getWorkOrderById(id);
-
-        // 只有待开始和进行中状态的工单才能取消
-        if (workOrder.getStatus() == WorkOrderStatus.COMPLETED ||
-            workOrder.getStatus() == WorkOrderStatus.CANCELLED) {
-            throw new IllegalStateException("Cannot cancel work order in status: " + workOrder.getStatus());
-        }
-
-        workOrder.setStatus(WorkOrderStatus.CANCELLED);
+        settlePendingProgress(id);
 
-        WorkOrder updated = workOrderRepository.save(workOrder);
+        // 已完成和已取消的工单不能取消
+        WorkOrder updated = compareAndSetStatus(id, Transition.CANCEL, null, "Cannot cancel work order in status: ");
         log.info("Work order cancelled successfully: {}", id);
         return updated;
     }
@@ -246,16 +280,11 @@ public class WorkOrderServiceImpl implements WorkOrderService {
     public WorkOrder markAbnormal(String id) {
         log.info("Marking work order as abnormal: {}", id);
 
-        WorkOrder workOrder = getWorkOrderById(id);
+        settlePendingProgress(id);
 
         // 只有进行中状态的工单才能标记为异常
-        if (workOrder.getStatus() != WorkOrderStatus.IN_PROGRESS) {
-            throw new IllegalStateException("Cannot mark work order as abnormal in status: " + workOrder.getStatus());
-        }
-
-        workOrder.setStatus(WorkOrderStatus.ABNORMAL);
-
-        WorkOrder updated = workOrderRepository.save(workOrder);
+        WorkOrder updated = compareAndSetStatus(id, Transition.ABNORMAL, null,
+                "Cannot mark work order as abnormal in status: ");
         log.info("Work order marked as abnormal successfully: {}", id);
         return updated;
     }
@@ -265,7 +294,12 @@ public class WorkOrderServiceImpl implements WorkOrderService {
     public WorkOrder updateProgress(String id, Integer actualQty) {
         log.info("Updating work order progress: {}", id);
 
-        WorkOrder workOrder = getWorkOrderById(id);
+        if (actualQty != null) {
+            // 直接设置的产量覆盖尚未写入的增量，须在读取工单之前丢弃，使正在写入的增量先提交
+            progressBuffer.discard(id);
+        }
+        WorkOrder workOrder = loadWorkOrder(id);
+        Snapshot previous = Snapshot.of(workOrder);
 
         // 只有进行中状态的工单才能更新进度
         if (workOrder.getStatus() != WorkOrderStatus.IN_PROGRESS) {
@@ -277,10 +311,97 @@ public class WorkOrderServiceImpl implements WorkOrderService {
         }
 
         WorkOrder updated = workOrderRepository.save(workOrder);
+        eventPublisher.publishEvent(WorkOrderChangedEvent.of(ChangeType.PROGRESS, previous, updated));
         log.info("Work order progress updated successfully: {}", id);
         return updated;
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public BatchTransitionResult transitionWorkOrders(List<String> ids, Transition transition) {
+        log.info("Batch transition {} for {} work orders", transition, ids.size());
+
+        BatchTransitionResult result = new BatchTransitionResult();
+        result.setTargetStatus(transition.getTargetStatus());
+
+        // 一次查询并按ID顺序锁定全部工单，校验当前状态；锁持有到事务结束，变更前快照即流转时的状态
+        Set<String> requested = new LinkedHashSet<>(ids);
+        if (requested.stream().anyMatch(id -> progressBuffer.pending(id) != 0)) {
+            progressBuffer.flush();
+        }
+        Map<String, WorkOrder> workOrders = new HashMap<>();
+        for (WorkOrder workOrder : workOrderRepository.findAllByIdForUpdate(requested)) {
+            workOrders.put(workOrder.getId(), workOrder);
+        }
+
+        List<String> eligible = new ArrayList<>();
+        for (String id : requested) {
+            WorkOrder workOrder = workOrders.get(id);
+            if (workOrder == null) {
+                result.getRejected().add(new Rejection(id, null, "Work order not found: " + id));
+            } else if (!transition.getSourceStatuses().contains(workOrder.getStatus())) {
+                result.getRejected().add(new Rejection(id, workOrder.getStatus(),
+                        "Cannot apply " + transition + " to work order in status: " + workOrder.getStatus()));
+            } else {
+                eligible.add(id);
+            }
+        }
+        if (eligible.isEmpty()) {
+            return result;
+        }
+
+        // 一条带状态条件的UPDATE完成流转，数据库列精度为秒；工单已锁定，更新行数与校验结果一致
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        int updated = workOrderRepository.transitionStatus(eligible, transition.getSourceStatuses(),
+                transition.getTargetStatus(),
+                transition == Transition.START ? now : null,
+                transition == Transition.COMPLETE ? now : null,
+                now);
+        if (updated != eligible.size()) {
+            throw new IllegalStateException("Batch transition updated " + updated + " of " + eligible.size()
+                    + " locked work orders");
+        }
+
+        List<WorkOrderChangedEvent> changes = new ArrayList<>(eligible.size());
+        for (String id : eligible) {
+            WorkOrder workOrder = workOrders.get(id);
+            Snapshot previous = Snapshot.of(workOrder);
+            workOrder.setStatus(transition.getTargetStatus());
+            if (transition == Transition.START) {
+                workOrder.setStartTime(now);
+            } else if (transition == Transition.COMPLETE) {
+                workOrder.setEndTime(now);
+            }
+            workOrder.setUpdatedAt(now);
+            changes.add(WorkOrderChangedEvent.of(transition.getChangeType(), previous, workOrder));
+            result.getMoved().add(id);
+        }
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new WorkOrderBatchChangedEvent(changes));
+        }
+
+        log.info("Batch transition {} finished: {} moved, {} rejected",
+                transition, result.getMoved().size(), result.getRejected().size());
+        return result;
+    }
+
+    @Override
+    public int addProgress(String id, int increment) {
+        if (increment <= 0) {
+            throw new IllegalArgumentException("Progress increment must be positive: " + increment);
+        }
+
+        // 已有待写增量的工单在上次累加时已校验过状态，避免每次上报都查询数据库
+        if (!progressBuffer.hasPending(id)) {
+            WorkOrderStatus status = workOrderRepository.findStatusById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Work order not found: " + id));
+            if (status != WorkOrderStatus.IN_PROGRESS) {
+                throw new IllegalStateException("Cannot update progress for work order in status: " + status);
+            }
+        }
+        return progressBuffer.add(id, increment);
+    }
+
     @Override
     public Long countByStatus(WorkOrderStatus status) {
         log.debug("Counting work orders by status: {}", status);
@@ -290,9 +411,15 @@ public class WorkOrderServiceImpl implements WorkOrderService {
     @Override
     public List<WorkOrder> getInProgressWorkOrdersByLine(String lineId) {
         log.debug("Getting in-progress work orders for line: {}", lineId);
-        List<WorkOrder> allWorkOrders = workOrderRepository.findByLineId(lineId);
-        return allWorkOrders.stream()
-                .filter(wo -> wo.getStatus() == WorkOrderStatus.IN_PROGRESS)
+
+        // 索引给出进行中的工单号，按主键读取；索引未加载时走 (line_id, status) 组合索引
+        List<String> orderIds = inProgressIndex.getOrderIds(lineId);
+        List<WorkOrder> workOrders = orderIds == null
+                ? workOrderRepository.findByLineIdAndStatus(lineId, WorkOrderStatus.IN_PROGRESS)
+                : orderIds.isEmpty() ? List.of() : workOrderRepository.findAllById(orderIds);
+        return workOrders.stream()
+                .filter(wo -> wo.getStatus() == WorkOrderStatus.IN_PROGRESS && lineId.equals(wo.getLineId()))
+                .map(this::withPendingProgress)
                 .toList();
     }
 
@@ -300,4 +427,85 @@ public class WorkOrderServiceImpl implements WorkOrderService {
     public boolean existsByWorkOrderNo(String workOrderNo) {
         return workOrderRepository.existsById(workOrderNo);
     }
+
+    /**
+     * 加载工单实体（不含尚未写入的进度增量），供修改类操作使用
+     */
+    private WorkOrder loadWorkOrder(String id) {
+        return workOrderRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Work order not found: " + id));
+    }
+
+    /**
+     * 以带原状态条件的UPDATE完成单个工单的状态流转，不加行锁、不校验版本号
+     * （进度累加会递增版本号，但不影响状态流转）。按允许的原状态逐个尝试，更新成功时的条件即变更前的状态，
+     * 均未更新说明工单已不在允许流转的状态，此时再读取一次状态生成错误信息。
+     * 更新成功后该行由本事务持有，重新读取得到变更前的产量与流转后的工单，据此发布变更事件
+     *
+     * @param id 工单ID
+     * @param transition 状态流转
+     * @param actualQty 实际产量（可选，仅完成时设置）
+     * @param rejectMessage 工单不在允许流转的状态时的错误信息前缀
+     * @return 流转后的工单
+     */
+    private WorkOrder compareAndSetStatus(String id, Transition transition, Integer actualQty, String rejectMessage) {
+        // 数据库列精度为秒
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime startTime = transition == Transition.START ? now : null;
+        LocalDateTime endTime = transition == Transition.COMPLETE ? now : null;
+
+        WorkOrderStatus previousStatus = null;
+        for (WorkOrderStatus sourceStatus : transition.getSourceStatuses()) {
+            if (workOrderRepository.compareAndSetStatus(id, sourceStatus, transition.getTargetStatus(),
+                    startTime, endTime, now) > 0) {
+                previousStatus = sourceStatus;
+                break;
+            }
+        }
+        if (previousStatus == null) {
+            WorkOrderStatus status = workOrderRepository.findStatusById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Work order not found: " + id));
+            throw new IllegalStateException(rejectMessage + status);
+        }
+
+        WorkOrder workOrder = loadWorkOrder(id);
+        Snapshot current = Snapshot.of(workOrder);
+        Snapshot previous = new Snapshot(current.productCode(), current.lineId(), previousStatus,
+                current.planQty(), current.actualQty());
+        if (actualQty != null && !actualQty.equals(workOrder.getActualQty())) {
+            // 持久化上下文已在更新时清空，此处修改的是游离实体
+            workOrderRepository.updateActualQty(id, actualQty, now);
+            workOrder.setActualQty(actualQty);
+            workOrder.setVersion(workOrder.getVersion() + 1);
+            workOrder.calculateCompletionRate();
+        }
+
+        eventPublisher.publishEvent(WorkOrderChangedEvent.of(transition.getChangeType(), previous, workOrder));
+        return workOrder;
+    }
+
+    /**
+     * 叠加尚未写入的进度增量，返回副本，不修改持久化上下文中的实体
+     */
+    private WorkOrder withPendingProgress(WorkOrder workOrder) {
+        int pending = progressBuffer.pending(workOrder.getId(),
+                workOrder.getVersion() != null ? workOrder.getVersion() : 0L);
+        if (pending == 0) {
+            return workOrder;
+        }
+        WorkOrder view = new WorkOrder();
+        BeanUtils.copyProperties(workOrder, view);
+        view.setActualQty((workOrder.getActualQty() != null ? workOrder.getActualQty() : 0) + pending);
+        view.calculateCompletionRate();
+        return view;
+    }
+
+    /**
+     * 状态变更前先写入该工单尚未写入的进度增量，使变更基于完整产量
+     */
+    private void settlePendingProgress(String id) {
+        if (progressBuffer.pending(id) != 0) {
+            progressBuffer.flush();
+        }
+    }
 }
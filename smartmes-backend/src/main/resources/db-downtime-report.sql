@@ -35,9 +35,9 @@ CREATE TABLE IF NOT EXISTS downtime_report (
 
     -- Indexes
     INDEX idx_order_id (order_id) COMMENT 'Order ID index',
-    INDEX idx_equipment_id (equipment_id) COMMENT 'Equipment ID index',
-    INDEX idx_downtime_type (downtime_type) COMMENT 'Downtime type index',
-    INDEX idx_status (status) COMMENT 'Status index',
+    INDEX idx_equipment_start (equipment_id, start_time) COMMENT 'Equipment + start time index',
+    INDEX idx_type_start (downtime_type, start_time) COMMENT 'Downtime type + start time index',
+    INDEX idx_status_start (status, start_time) COMMENT 'Status + start time index',
     INDEX idx_start_time (start_time) COMMENT 'Start time index',
     INDEX idx_reporter_id (reporter_id) COMMENT 'Reporter ID index',
     INDEX idx_created_at (created_at) COMMENT 'Creation time index'